@@ -0,0 +1,73 @@
+package de.codecentric.reedelk.file.benchmark;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+/**
+ * Content, temporary files and concurrency shared by the benchmarks.
+ */
+class BenchmarkFiles {
+
+    // The size of the chunks of the content written, as received e.g. from a REST listener.
+    static final int CHUNK_SIZE = 8192;
+
+    private BenchmarkFiles() {
+    }
+
+    /**
+     * Returns random content of the given size split into chunks of CHUNK_SIZE bytes.
+     */
+    static List<byte[]> content(int size) {
+        Random random = new Random(size);
+        List<byte[]> chunks = new ArrayList<>();
+        for (int position = 0; position < size; position += CHUNK_SIZE) {
+            byte[] chunk = new byte[Math.min(CHUNK_SIZE, size - position)];
+            random.nextBytes(chunk);
+            chunks.add(chunk);
+        }
+        return chunks;
+    }
+
+    static Path create(Path file, int size) throws IOException {
+        for (byte[] chunk : content(size)) {
+            Files.write(file, chunk, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        }
+        return file;
+    }
+
+    static void delete(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> {
+                try {
+                    Files.delete(path);
+                } catch (IOException exception) {
+                    throw new UncheckedIOException(exception);
+                }
+            });
+        }
+    }
+
+    /**
+     * Runs the given number of tasks concurrently and waits until all of them are done.
+     */
+    static void concurrently(ExecutorService executor, int concurrency, Callable<?> task) throws Exception {
+        List<Future<?>> futures = new ArrayList<>(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            futures.add(executor.submit(task));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+    }
+}
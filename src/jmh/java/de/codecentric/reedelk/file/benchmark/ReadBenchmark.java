@@ -0,0 +1,125 @@
+package de.codecentric.reedelk.file.benchmark;
+
+import de.codecentric.reedelk.file.component.FileRead;
+import de.codecentric.reedelk.file.component.FileReadConfiguration;
+import de.codecentric.reedelk.file.internal.read.ReadConfigurationDecorator;
+import de.codecentric.reedelk.file.internal.read.ReadStrategy;
+import de.codecentric.reedelk.file.internal.read.ReadStrategyDefault;
+import de.codecentric.reedelk.file.internal.read.ReadStrategyLines;
+import de.codecentric.reedelk.file.internal.read.ReadStrategyMapped;
+import de.codecentric.reedelk.file.internal.read.ReadStrategyParallel;
+import de.codecentric.reedelk.file.internal.read.ReadStrategyStream;
+import de.codecentric.reedelk.runtime.api.message.Message;
+import de.codecentric.reedelk.runtime.api.message.MessageBuilder;
+import de.codecentric.reedelk.runtime.api.message.content.MimeType;
+import de.codecentric.reedelk.runtime.api.message.content.TypedContent;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads the same file with the 'Default', 'Stream', 'Mapped', 'Parallel' and 'Lines' read strategies,
+ * by 'concurrency' readers at a time. Each operation is complete once every reader has consumed the
+ * whole content of the file (the random content is split into lines at each new line byte).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReadBenchmark {
+
+    @Param({"4096", "1048576", "67108864"})
+    private int fileSize;
+
+    // In kilobytes, as the 'Read buffer size' of the File Read configuration.
+    @Param({"4", "64", "512"})
+    private int readBufferSize;
+
+    @Param({"false", "true"})
+    private boolean lockFile;
+
+    @Param({"1", "4"})
+    private int concurrency;
+
+    private final ReadStrategy defaultStrategy = new ReadStrategyDefault();
+    private final ReadStrategy streamStrategy = new ReadStrategyStream();
+    private final ReadStrategy mappedStrategy = new ReadStrategyMapped();
+    private final ReadStrategy parallelStrategy = new ReadStrategyParallel();
+    private final ReadStrategy linesStrategy = new ReadStrategyLines();
+
+    private Path directory;
+    private Path file;
+    private ReadConfigurationDecorator config;
+    private ExecutorService executor;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("file-read-benchmark");
+        file = BenchmarkFiles.create(directory.resolve("read.bin"), fileSize);
+
+        FileReadConfiguration configuration = new FileReadConfiguration();
+        configuration.setReadBufferSize(readBufferSize);
+        configuration.setLockFile(lockFile);
+        config = new ReadConfigurationDecorator(configuration);
+
+        executor = Executors.newFixedThreadPool(concurrency);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        executor.shutdownNow();
+        BenchmarkFiles.delete(directory);
+    }
+
+    @Benchmark
+    public void readDefault(Blackhole blackhole) throws Exception {
+        read(defaultStrategy, blackhole);
+    }
+
+    @Benchmark
+    public void readStream(Blackhole blackhole) throws Exception {
+        read(streamStrategy, blackhole);
+    }
+
+    @Benchmark
+    public void readMapped(Blackhole blackhole) throws Exception {
+        read(mappedStrategy, blackhole);
+    }
+
+    @Benchmark
+    public void readParallel(Blackhole blackhole) throws Exception {
+        read(parallelStrategy, blackhole);
+    }
+
+    @Benchmark
+    public void readLines(Blackhole blackhole) throws Exception {
+        read(linesStrategy, blackhole);
+    }
+
+    private void read(ReadStrategy strategy, Blackhole blackhole) throws Exception {
+        BenchmarkFiles.concurrently(executor, concurrency, () -> {
+
+            MessageBuilder messageBuilder = MessageBuilder.get(FileRead.class);
+
+            strategy.read(file, config, messageBuilder, MimeType.APPLICATION_BINARY);
+
+            Message message = messageBuilder.build();
+
+            // The content of a stream is read only when it is consumed.
+            TypedContent<?, ?> content = message.content();
+
+            return Flux.from(content.stream())
+                    .doOnNext(blackhole::consume)
+                    .blockLast();
+        });
+    }
+}
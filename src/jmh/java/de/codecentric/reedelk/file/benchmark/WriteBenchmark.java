@@ -0,0 +1,98 @@
+package de.codecentric.reedelk.file.benchmark;
+
+import de.codecentric.reedelk.file.component.FileWriteConfiguration;
+import de.codecentric.reedelk.file.internal.write.WriteConfiguration;
+import de.codecentric.reedelk.file.internal.write.WriteMode;
+import de.codecentric.reedelk.file.internal.write.Writer;
+import de.codecentric.reedelk.runtime.api.component.OnResult;
+import de.codecentric.reedelk.runtime.api.flow.FlowContext;
+import de.codecentric.reedelk.runtime.api.message.Message;
+import de.codecentric.reedelk.runtime.api.message.content.TypedPublisher;
+import org.openjdk.jmh.annotations.*;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Writes the same content with the Writer into 'concurrency' files at a time, overwriting them.
+ * The content is already in memory, split into chunks, so that only the write path is measured.
+ * Each operation is complete once the result callback of every write has been invoked.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WriteBenchmark {
+
+    @Param({"4096", "1048576", "67108864"})
+    private int fileSize;
+
+    // In bytes, as the 'Write buffer size' of the File Write configuration.
+    @Param({"4096", "65536", "524288"})
+    private int writeBufferSize;
+
+    @Param({"false", "true"})
+    private boolean lockFile;
+
+    @Param({"1", "4"})
+    private int concurrency;
+
+    private final Writer writer = new Writer();
+
+    private Path directory;
+    private List<byte[]> content;
+    private WriteConfiguration config;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("file-write-benchmark");
+        content = BenchmarkFiles.content(fileSize);
+
+        FileWriteConfiguration configuration = new FileWriteConfiguration();
+        configuration.setWriteBufferSize(writeBufferSize);
+        configuration.setLockFile(lockFile);
+        config = new WriteConfiguration(configuration, WriteMode.OVERWRITE);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        BenchmarkFiles.delete(directory);
+    }
+
+    @Benchmark
+    public void write() throws Exception {
+        CountDownLatch done = new CountDownLatch(concurrency);
+        AtomicReference<Exception> error = new AtomicReference<>();
+
+        OnResult callback = new OnResult() {
+            @Override
+            public void onResult(FlowContext flowContext, Message message) {
+                done.countDown();
+            }
+
+            @Override
+            public void onError(FlowContext flowContext, Exception exception) {
+                error.set(exception);
+                done.countDown();
+            }
+        };
+
+        // The writer writes asynchronously: the writes are all started before waiting for their results.
+        for (int i = 0; i < concurrency; i++) {
+            Path path = directory.resolve("write-" + i + ".bin");
+            writer.write(config, null, callback, path, TypedPublisher.fromByteArray(Flux.fromIterable(content)));
+        }
+
+        done.await();
+
+        if (error.get() != null) throw error.get();
+    }
+}
@@ -0,0 +1,123 @@
+package de.codecentric.reedelk.file.benchmark;
+
+import de.codecentric.reedelk.file.component.FileWriteConfiguration;
+import de.codecentric.reedelk.file.internal.write.WriteConfiguration;
+import de.codecentric.reedelk.file.internal.write.WriteEngine;
+import de.codecentric.reedelk.file.internal.write.WriteMode;
+import de.codecentric.reedelk.file.internal.write.Writer;
+import de.codecentric.reedelk.runtime.api.component.OnResult;
+import de.codecentric.reedelk.runtime.api.flow.FlowContext;
+import de.codecentric.reedelk.runtime.api.message.Message;
+import de.codecentric.reedelk.runtime.api.message.content.TypedPublisher;
+import org.openjdk.jmh.annotations.*;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Compares the write engines of the Writer: 'concurrency' files are written at a time, overwriting them,
+ * either with the file channel or with the asynchronous file channel. Besides the throughput, the peak
+ * number of live threads of the JVM during each iteration is reported as the 'peakThreads' secondary result.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WriteEngineBenchmark {
+
+    @Param({"CHANNEL", "ASYNC_CHANNEL"})
+    private WriteEngine engine;
+
+    @Param({"65536", "1048576"})
+    private int fileSize;
+
+    @Param({"1", "64", "512"})
+    private int concurrency;
+
+    @Param({"4"})
+    private int maxWritesInFlight;
+
+    private final Writer writer = new Writer();
+
+    private Path directory;
+    private List<byte[]> content;
+    private WriteConfiguration config;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("file-write-engine-benchmark");
+        content = BenchmarkFiles.content(fileSize);
+
+        FileWriteConfiguration configuration = new FileWriteConfiguration();
+        configuration.setWriteEngine(engine);
+        configuration.setMaxWritesInFlight(maxWritesInFlight);
+        config = new WriteConfiguration(configuration, WriteMode.OVERWRITE);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        BenchmarkFiles.delete(directory);
+    }
+
+    @Benchmark
+    public void write(ThreadUsage threadUsage) throws Exception {
+        CountDownLatch done = new CountDownLatch(concurrency);
+        AtomicReference<Exception> error = new AtomicReference<>();
+
+        OnResult callback = new OnResult() {
+            @Override
+            public void onResult(FlowContext flowContext, Message message) {
+                done.countDown();
+            }
+
+            @Override
+            public void onError(FlowContext flowContext, Exception exception) {
+                error.set(exception);
+                done.countDown();
+            }
+        };
+
+        for (int i = 0; i < concurrency; i++) {
+            Path path = directory.resolve("write-" + i + ".bin");
+            writer.write(config, null, callback, path, TypedPublisher.fromByteArray(Flux.fromIterable(content)));
+        }
+
+        done.await();
+
+        threadUsage.update();
+
+        if (error.get() != null) throw error.get();
+    }
+
+    /**
+     * The peak number of live threads since the beginning of the iteration.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class ThreadUsage {
+
+        private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+        public long peakThreads;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            threads.resetPeakThreadCount();
+            peakThreads = 0;
+        }
+
+        void update() {
+            peakThreads = threads.getPeakThreadCount();
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package de.codecentric.reedelk.file.component;
+
+import de.codecentric.reedelk.file.internal.attribute.FileAttribute;
+import de.codecentric.reedelk.file.internal.transfer.TransferEvaluator;
+import de.codecentric.reedelk.file.internal.transfer.TransferOperation;
+import de.codecentric.reedelk.runtime.api.annotation.*;
+import de.codecentric.reedelk.runtime.api.component.ProcessorSync;
+import de.codecentric.reedelk.runtime.api.flow.FlowContext;
+import de.codecentric.reedelk.runtime.api.message.Message;
+import de.codecentric.reedelk.runtime.api.script.ScriptEngineService;
+import de.codecentric.reedelk.runtime.api.script.dynamicvalue.DynamicString;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.component.annotations.ServiceScope;
+
+import static de.codecentric.reedelk.runtime.api.commons.ComponentPrecondition.Configuration.requireNotNull;
+
+@ModuleComponent("File Copy")
+@ComponentOutput(
+        attributes = FileAttribute.class,
+        payload = String.class,
+        description = "The path and name of the target file.")
+@ComponentInput(
+        payload = Object.class,
+        description = "The input payload is used to evaluate the source and target file names.")
+@Description("Copies a file on the file system from the given Source file name to the given Target file name. " +
+        "The content of the file is copied by the file system without being loaded into memory. " +
+        "The file names can be dynamic expressions.")
+@Component(service = FileCopy.class, scope = ServiceScope.PROTOTYPE)
+public class FileCopy implements ProcessorSync {
+
+    @Property("Source file name")
+    @Hint("/var/logs/log1.txt")
+    @Example("/var/logs/log1.txt")
+    @Description("The path and name of the file to be copied.")
+    private DynamicString sourceFileName;
+
+    @Property("Target file name")
+    @Hint("/var/archive/log1.txt")
+    @Example("/var/archive/log1.txt")
+    @Description("The path and name of the copy of the file.")
+    private DynamicString targetFileName;
+
+    @Property("Replace existing")
+    @Example("true")
+    @DefaultValue("false")
+    @Description("If true, the target file is replaced if it exists already, otherwise an error is raised.")
+    private Boolean replaceExisting;
+
+    @Property("Configuration")
+    @Group("Configuration")
+    private FileTransferConfiguration configuration;
+
+    @Reference
+    private ScriptEngineService service;
+
+    private TransferEvaluator evaluator;
+
+    @Override
+    public void initialize() {
+        requireNotNull(FileCopy.class, sourceFileName, "The source file name must not be null");
+        requireNotNull(FileCopy.class, targetFileName, "The target file name must not be null");
+        evaluator = TransferEvaluator.builder()
+                .component(FileCopy.class)
+                .operation(TransferOperation.COPY)
+                .service(service)
+                .sourceFileName(sourceFileName)
+                .targetFileName(targetFileName)
+                .replaceExisting(replaceExisting)
+                .configuration(configuration)
+                .build();
+    }
+
+    @Override
+    public Message apply(FlowContext flowContext, Message message) {
+        return evaluator.evaluate(flowContext, message).execute();
+    }
+
+    public void setSourceFileName(DynamicString sourceFileName) {
+        this.sourceFileName = sourceFileName;
+    }
+
+    public void setTargetFileName(DynamicString targetFileName) {
+        this.targetFileName = targetFileName;
+    }
+
+    public void setReplaceExisting(Boolean replaceExisting) {
+        this.replaceExisting = replaceExisting;
+    }
+
+    public void setConfiguration(FileTransferConfiguration configuration) {
+        this.configuration = configuration;
+    }
+}
@@ -3,6 +3,7 @@ package de.codecentric.reedelk.file.component;
 import de.codecentric.reedelk.file.internal.attribute.FileAttribute;
 import de.codecentric.reedelk.file.internal.exception.FileDeleteException;
 import de.codecentric.reedelk.file.internal.exception.NotValidFileException;
+import de.codecentric.reedelk.file.internal.metrics.OperationMetrics;
 import de.codecentric.reedelk.runtime.api.annotation.*;
 import de.codecentric.reedelk.runtime.api.component.ProcessorSync;
 import de.codecentric.reedelk.runtime.api.flow.FlowContext;
@@ -47,6 +48,8 @@ public class FileDelete implements ProcessorSync {
     @Reference
     private ScriptEngineService service;
 
+    private static final OperationMetrics metrics = OperationMetrics.of(FileDelete.class, OperationMetrics.FILE_DELETE);
+
     @Override
     public void initialize() {
         requireNotNull(FileDelete.class, fileName, "The file name must not be null");
@@ -58,13 +61,18 @@ public class FileDelete implements ProcessorSync {
         return service.evaluate(fileName, flowContext, message).flatMap(evaluatedFileNameToRemove -> {
             Path filePathToDelete;
 
+            OperationMetrics.Sample sample = metrics.start();
+
             try {
 
                 filePathToDelete = Paths.get(evaluatedFileNameToRemove);
 
                 Files.delete(filePathToDelete);
 
+                sample.success();
+
             } catch (Exception exception) {
+                sample.error();
                 String errorMessage = ERROR_FILE_DELETE.format(exception.getMessage());
                 throw new FileDeleteException(errorMessage, exception);
             }
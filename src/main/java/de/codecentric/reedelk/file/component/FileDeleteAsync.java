@@ -0,0 +1,107 @@
+package de.codecentric.reedelk.file.component;
+
+import de.codecentric.reedelk.file.internal.attribute.FileAttribute;
+import de.codecentric.reedelk.file.internal.commons.AsyncOperation;
+import de.codecentric.reedelk.file.internal.exception.FileDeleteException;
+import de.codecentric.reedelk.file.internal.exception.NotValidFileException;
+import de.codecentric.reedelk.file.internal.metrics.OperationMetrics;
+import de.codecentric.reedelk.runtime.api.annotation.*;
+import de.codecentric.reedelk.runtime.api.component.OnResult;
+import de.codecentric.reedelk.runtime.api.component.ProcessorAsync;
+import de.codecentric.reedelk.runtime.api.flow.FlowContext;
+import de.codecentric.reedelk.runtime.api.message.Message;
+import de.codecentric.reedelk.runtime.api.message.MessageBuilder;
+import de.codecentric.reedelk.runtime.api.message.content.MimeType;
+import de.codecentric.reedelk.runtime.api.script.ScriptEngineService;
+import de.codecentric.reedelk.runtime.api.script.dynamicvalue.DynamicString;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.component.annotations.ServiceScope;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Optional;
+
+import static de.codecentric.reedelk.file.internal.commons.Messages.FileDelete.ERROR_FILE_DELETE;
+import static de.codecentric.reedelk.file.internal.commons.Messages.FileDelete.FILE_NAME_ERROR;
+import static de.codecentric.reedelk.runtime.api.commons.ComponentPrecondition.Configuration.requireNotNull;
+
+@ModuleComponent("File Delete Async")
+@ComponentOutput(
+        attributes = FileAttribute.class,
+        payload = String.class,
+        description = "The path and name of the deleted file.")
+@ComponentInput(
+        payload = Object.class,
+        description = "The input payload is used to evaluate the file name to delete.")
+@Description("Deletes a file from the file system with the given File name. " +
+                "An error is raised if the given file could not be found. " +
+                "The file name can be a dynamic expression. " +
+                "The file is deleted on the module I/O threads and the flow continues once it has been deleted: " +
+                "the thread running the flow (e.g. the thread of a REST listener) is never blocked by the file system.")
+@Component(service = FileDeleteAsync.class, scope = ServiceScope.PROTOTYPE)
+public class FileDeleteAsync implements ProcessorAsync {
+
+    @Property("File name")
+    @Hint("/var/logs/sample.txt")
+    @Example("/var/logs/log1.txt")
+    @Description("The path and name of the file to be deleted from the file system.")
+    private DynamicString fileName;
+
+    @Reference
+    private ScriptEngineService service;
+
+    private static final OperationMetrics metrics = OperationMetrics.of(FileDeleteAsync.class, OperationMetrics.FILE_DELETE);
+
+    @Override
+    public void initialize() {
+        requireNotNull(FileDeleteAsync.class, fileName, "The file name must not be null");
+    }
+
+    @Override
+    public void apply(FlowContext flowContext, Message message, OnResult callback) {
+
+        Optional<String> evaluated = service.evaluate(fileName, flowContext, message);
+
+        if (!evaluated.isPresent()) {
+            callback.onError(flowContext, new NotValidFileException(FILE_NAME_ERROR.format(fileName.toString())));
+            return;
+        }
+
+        String evaluatedFileNameToRemove = evaluated.get();
+
+        AsyncOperation.execute(flowContext, callback, () -> {
+
+            Path filePathToDelete = Paths.get(evaluatedFileNameToRemove);
+
+            OperationMetrics.Sample sample = metrics.start();
+
+            try {
+
+                Files.delete(filePathToDelete);
+
+                sample.success();
+
+            } catch (Exception exception) {
+                sample.error();
+                throw exception;
+            }
+
+            FileAttribute attributes = new FileAttribute(evaluatedFileNameToRemove);
+
+            return MessageBuilder.get(FileDeleteAsync.class)
+                    .attributes(attributes)
+                    .withString(filePathToDelete.toString(), MimeType.TEXT_PLAIN)
+                    .build();
+
+        }, throwable -> {
+            String errorMessage = ERROR_FILE_DELETE.format(throwable.getMessage());
+            return new FileDeleteException(errorMessage, throwable);
+        });
+    }
+
+    public void setFileName(DynamicString fileName) {
+        this.fileName = fileName;
+    }
+}
@@ -2,6 +2,7 @@ package de.codecentric.reedelk.file.component;
 
 import de.codecentric.reedelk.file.internal.attribute.FileAttribute;
 import de.codecentric.reedelk.file.internal.exception.NotValidFileException;
+import de.codecentric.reedelk.file.internal.metrics.OperationMetrics;
 import de.codecentric.reedelk.runtime.api.annotation.*;
 import de.codecentric.reedelk.runtime.api.commons.DynamicValueUtils;
 import de.codecentric.reedelk.runtime.api.component.ProcessorSync;
@@ -60,6 +61,8 @@ public class FileExists implements ProcessorSync {
     @Reference
     private ScriptEngineService service;
 
+    private static final OperationMetrics metrics = OperationMetrics.of(FileExists.class, OperationMetrics.FILE_EXISTS);
+
     @Override
     public Message apply(FlowContext flowContext, Message message) {
 
@@ -69,8 +72,12 @@ public class FileExists implements ProcessorSync {
 
             Path path = isBlank(basePath) ? Paths.get(filePath) : Paths.get(basePath, filePath);
 
+            OperationMetrics.Sample sample = metrics.start();
+
             boolean exists = Files.exists(path);
 
+            sample.success();
+
             // If the target variable has been set, we assign to a context variable
             // the result of the file exists check and we return the original message.
 
@@ -0,0 +1,233 @@
+package de.codecentric.reedelk.file.component;
+
+import de.codecentric.reedelk.file.internal.attribute.FileAttribute;
+import de.codecentric.reedelk.file.internal.commons.Messages;
+import de.codecentric.reedelk.file.internal.exception.FileListenerException;
+import de.codecentric.reedelk.file.internal.listener.DirectoryListener;
+import de.codecentric.reedelk.file.internal.listener.ListenerConfiguration;
+import de.codecentric.reedelk.file.internal.listener.ListenerMode;
+import de.codecentric.reedelk.file.internal.read.*;
+import de.codecentric.reedelk.runtime.api.annotation.*;
+import de.codecentric.reedelk.runtime.api.commons.MimeTypeUtils;
+import de.codecentric.reedelk.runtime.api.component.AbstractInbound;
+import de.codecentric.reedelk.runtime.api.component.OnResult;
+import de.codecentric.reedelk.runtime.api.flow.FlowContext;
+import de.codecentric.reedelk.runtime.api.message.Message;
+import de.codecentric.reedelk.runtime.api.message.MessageBuilder;
+import de.codecentric.reedelk.runtime.api.message.content.MimeType;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.ServiceScope;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static de.codecentric.reedelk.runtime.api.commons.StringUtils.isBlank;
+
+@ModuleComponent("File Listener")
+@ComponentOutput(
+        attributes = FileAttribute.class,
+        payload = byte[].class,
+        description = "The content of the new or changed file found in the listened directory.")
+@Description("Listens for new or changed files in a directory whose name matches the given pattern, " +
+                "and starts a new flow for each of them with the file content as payload. " +
+                "A file is read only once its size and last modified time have not changed for the <i>Stability interval</i>, " +
+                "so that files still being written are not read. Changes are notified by the file system when possible, " +
+                "otherwise the directory is polled at every <i>Poll interval</i>.")
+@Component(service = FileListener.class, scope = ServiceScope.PROTOTYPE)
+public class FileListener extends AbstractInbound {
+
+    @Property("Directory")
+    @Hint("/var/inbox")
+    @Example("/var/inbox")
+    @Description("The directory to be listened for new or changed files. Sub directories are not listened.")
+    private String directory;
+
+    @Property("File name pattern")
+    @Hint("*.csv")
+    @Example("orders-*.{csv,txt}")
+    @InitValue("*")
+    @DefaultValue("*")
+    @Description("The glob pattern the name of the files must match to be read, e.g. <i>*.csv</i>.")
+    private String pattern;
+
+    @Property("Process existing files")
+    @Example("true")
+    @DefaultValue("false")
+    @Description("If true, the files already in the directory when the listener starts are read as well, " +
+            "otherwise only the files created or changed afterwards are read.")
+    private Boolean processExisting;
+
+    @Property("Read mode")
+    @Example("STREAM")
+    @InitValue("DEFAULT")
+    @DefaultValue("DEFAULT")
+    @Description("Determines the read strategy. When <i>Default</i> the file is completely read into memory. " +
+            "When <i>Stream</i> the file is read only on demand only when the message payload is being consumed. " +
+            "When <i>Mapped</i> the file is memory mapped and streamed on demand directly from the mapping. " +
+            "When <i>Lines</i> the file is streamed on demand line by line. " +
+            "When <i>Parallel</i> the file is streamed on demand reading many chunks at the same time.")
+    private ReadMode mode;
+
+    @Property("Auto mime type")
+    @Example("false")
+    @InitValue("true")
+    @DefaultValue("true")
+    @Description("If true, the mime type of the payload is determined from the extension of the file read.")
+    private boolean autoMimeType = true;
+
+    @Property("Mime type")
+    @MimeTypeCombo
+    @Example(MimeType.AsString.TEXT_XML)
+    @DefaultValue(MimeType.AsString.APPLICATION_BINARY)
+    @When(propertyName = "autoMimeType", propertyValue = "false")
+    @When(propertyName = "autoMimeType", propertyValue = When.BLANK)
+    @Description("The mime type of the files read from the filesystem.")
+    private String mimeType;
+
+    @Property("Listener mode")
+    @Group("Advanced")
+    @Example("POLLING")
+    @InitValue("WATCH")
+    @DefaultValue("WATCH")
+    @Description("Determines how new or changed files are found. When <i>Watch service</i> changes are notified by the " +
+            "file system, and the listener falls back to polling if the file system does not support it. " +
+            "When <i>Polling</i> the directory is listed at every <i>Poll interval</i>: this should be used " +
+            "for network file systems, whose changes might not be notified.")
+    private ListenerMode listenerMode;
+
+    @Property("Poll interval (ms)")
+    @Group("Advanced")
+    @Hint("5000")
+    @Example("10000")
+    @DefaultValue("5000")
+    @Description("The time (in milliseconds) between two listings of the directory when polling.")
+    private Long pollInterval;
+
+    @Property("Stability interval (ms)")
+    @Group("Advanced")
+    @Hint("1000")
+    @Example("3000")
+    @DefaultValue("1000")
+    @Description("The time (in milliseconds) the size and last modified time of a file must not change " +
+            "before the file is read.")
+    private Long stabilityInterval;
+
+    @Property("Max concurrent files")
+    @Group("Advanced")
+    @Hint("4")
+    @Example("8")
+    @DefaultValue("4")
+    @Description("The max number of files processed at the same time. " +
+            "The other files are read once the processing of a file is completed.")
+    private Integer maxConcurrentFiles;
+
+    @Property("Configuration")
+    @Group("Configuration")
+    private FileReadConfiguration configuration;
+
+    private DirectoryListener listener;
+
+    @Override
+    public void onStart() {
+        Path directoryPath = isBlank(directory) ? null : Paths.get(directory);
+        if (directoryPath == null || !Files.isDirectory(directoryPath)) {
+            throw new FileListenerException(Messages.FileListener.DIRECTORY_NOT_VALID.format(directory));
+        }
+
+        ReadStrategy strategy = ReadStrategy.of(mode);
+
+        ListenerConfiguration config = new ListenerConfiguration(pattern, listenerMode,
+                pollInterval, stabilityInterval, maxConcurrentFiles, processExisting);
+
+        listener = new DirectoryListener(directoryPath, config, new DirectoryListener.FileHandler() {
+
+            @Override
+            public Message read(Path path) {
+                MimeType actualMimeType = MimeTypeUtils.fromFileExtensionOrParse(autoMimeType, path.toString(), mimeType, MimeType.APPLICATION_BINARY);
+
+                MessageBuilder messageBuilder = MessageBuilder.get(FileListener.class);
+
+                FileAttribute attributes = new FileAttribute(path.toString());
+
+                ReadConfigurationDecorator readConfig = new ReadConfigurationDecorator(FileListener.class, configuration, ReadRange.ALL, null, attributes);
+
+                strategy.read(path, readConfig, messageBuilder, actualMimeType);
+
+                return messageBuilder
+                        .attributes(attributes)
+                        .build();
+            }
+
+            @Override
+            public void onFile(Message message, Runnable done) {
+                // The next file can be processed once the flow for this file has been completed.
+                onEvent(message, new OnResult() {
+                    @Override
+                    public void onResult(FlowContext flowContext, Message message) {
+                        done.run();
+                    }
+
+                    @Override
+                    public void onError(FlowContext flowContext, Exception exception) {
+                        done.run();
+                    }
+                });
+            }
+        });
+
+        listener.start();
+    }
+
+    @Override
+    public void onShutdown() {
+        if (listener != null) {
+            listener.stop();
+            listener = null;
+        }
+    }
+
+    public void setDirectory(String directory) {
+        this.directory = directory;
+    }
+
+    public void setPattern(String pattern) {
+        this.pattern = pattern;
+    }
+
+    public void setProcessExisting(Boolean processExisting) {
+        this.processExisting = processExisting;
+    }
+
+    public void setMode(ReadMode mode) {
+        this.mode = mode;
+    }
+
+    public void setAutoMimeType(boolean autoMimeType) {
+        this.autoMimeType = autoMimeType;
+    }
+
+    public void setMimeType(String mimeType) {
+        this.mimeType = mimeType;
+    }
+
+    public void setListenerMode(ListenerMode listenerMode) {
+        this.listenerMode = listenerMode;
+    }
+
+    public void setPollInterval(Long pollInterval) {
+        this.pollInterval = pollInterval;
+    }
+
+    public void setStabilityInterval(Long stabilityInterval) {
+        this.stabilityInterval = stabilityInterval;
+    }
+
+    public void setMaxConcurrentFiles(Integer maxConcurrentFiles) {
+        this.maxConcurrentFiles = maxConcurrentFiles;
+    }
+
+    public void setConfiguration(FileReadConfiguration configuration) {
+        this.configuration = configuration;
+    }
+}
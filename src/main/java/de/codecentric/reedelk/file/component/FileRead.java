@@ -1,28 +1,19 @@
 package de.codecentric.reedelk.file.component;
 
 import de.codecentric.reedelk.file.internal.attribute.FileAttribute;
-import de.codecentric.reedelk.file.internal.exception.NotValidFileException;
 import de.codecentric.reedelk.runtime.api.annotation.*;
-import de.codecentric.reedelk.runtime.api.commons.MimeTypeUtils;
 import de.codecentric.reedelk.runtime.api.component.ProcessorSync;
 import de.codecentric.reedelk.runtime.api.flow.FlowContext;
 import de.codecentric.reedelk.runtime.api.message.Message;
-import de.codecentric.reedelk.runtime.api.message.MessageBuilder;
 import de.codecentric.reedelk.runtime.api.message.content.MimeType;
 import de.codecentric.reedelk.runtime.api.script.ScriptEngineService;
+import de.codecentric.reedelk.runtime.api.script.dynamicvalue.DynamicLong;
 import de.codecentric.reedelk.runtime.api.script.dynamicvalue.DynamicString;
-import de.codecentric.reedelk.file.internal.commons.Messages;
 import de.codecentric.reedelk.file.internal.read.*;
 import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.Reference;
 import org.osgi.service.component.annotations.ServiceScope;
 
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.util.Optional;
-
-import static de.codecentric.reedelk.runtime.api.commons.StringUtils.isBlank;
-
 @ModuleComponent("File Read")
 @ComponentOutput(
         attributes = FileAttribute.class,
@@ -57,7 +48,14 @@ public class FileRead implements ProcessorSync {
     @DefaultValue("DEFAULT")
     @Description("Determines the read strategy. When <i>Default</i> the file is completely read into memory. " +
             "When <i>Stream</i> the file is read only on demand only when the message payload is being consumed. " +
-            "This is the preferred method to read large files from the filesystem.")
+            "This is the preferred method to read large files from the filesystem. " +
+            "When <i>Mapped</i> the file is memory mapped and streamed on demand directly from the mapping, " +
+            "this is the preferred method to read large files which are read frequently. " +
+            "When <i>Lines</i> the file is streamed on demand line by line, as configured by the <i>Line format</i>, " +
+            "<i>Line charset</i> and <i>Lines per element</i> options: this is the preferred method to process large " +
+            "text files (e.g. CSV or log files) record by record. " +
+            "When <i>Parallel</i> the file is streamed on demand as with <i>Stream</i>, but up to <i>Parallel reads</i> " +
+            "chunks are read at the same time: this is the preferred method to read very large files from fast storage devices.")
     private ReadMode mode;
 
     @Property("Auto mime type")
@@ -76,6 +74,40 @@ public class FileRead implements ProcessorSync {
     @Description("The mime type of the file read from the filesystem.")
     private String mimeType;
 
+    @Property("Offset")
+    @Group("Range")
+    @Hint("1024")
+    @Example("0")
+    @Description("Optional offset (in bytes) from which the file is read. " +
+            "If the offset is past the end of the file, the content is empty. " +
+            "In the <i>Lines</i> read mode, the lines are read from the first line starting at or after the offset.")
+    private DynamicLong offset;
+
+    @Property("Length")
+    @Group("Range")
+    @Hint("4096")
+    @Example("1048576")
+    @Description("Optional max number of bytes read from the <i>Offset</i>. " +
+            "If empty, the file is read up to the end. " +
+            "In the <i>Lines</i> read mode, a last line not ending within the length is not read.")
+    private DynamicLong length;
+
+    @Property("Tail")
+    @Group("Range")
+    @Hint("4096")
+    @Example("65536")
+    @Description("Optional number of bytes read from the end of the file, e.g. to read the last lines of a log file. " +
+            "If set, the <i>Offset</i> and <i>Length</i> are ignored. " +
+            "In the <i>Lines</i> read mode, the first line is skipped if it starts before the tail.")
+    private DynamicLong tail;
+
+    @Property("Expected checksum")
+    @Hint("9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08")
+    @Example("#[message.attributes().checksum]")
+    @Description("Optional checksum the content read must have, as a hex string. The read fails if the checksum " +
+            "computed with the <i>Checksum</i> algorithm of the configuration does not match.")
+    private DynamicString expectedChecksum;
+
     @Property("Configuration")
     @Group("Configuration")
     private FileReadConfiguration configuration;
@@ -83,39 +115,29 @@ public class FileRead implements ProcessorSync {
     @Reference
     private ScriptEngineService service;
 
-    private ReadStrategy strategy;
+    private ReadEvaluator evaluator;
 
     @Override
     public void initialize() {
-        strategy = ReadMode.STREAM.equals(mode) ?
-                new ReadStrategyStream() :
-                new ReadStrategyDefault();
+        evaluator = ReadEvaluator.builder()
+                .component(FileRead.class)
+                .service(service)
+                .fileName(fileName)
+                .basePath(basePath)
+                .autoMimeType(autoMimeType)
+                .mimeType(mimeType)
+                .mode(mode)
+                .offset(offset)
+                .length(length)
+                .tail(tail)
+                .expectedChecksum(expectedChecksum)
+                .configuration(configuration)
+                .build();
     }
 
     @Override
     public Message apply(FlowContext flowContext, Message message) {
-
-        Optional<String> evaluated = service.evaluate(fileName, flowContext, message);
-
-        return evaluated.map(filePath -> {
-
-            MimeType actualMimeType = MimeTypeUtils.fromFileExtensionOrParse(autoMimeType, filePath, mimeType, MimeType.APPLICATION_BINARY);
-
-            Path path = isBlank(basePath) ? Paths.get(filePath) : Paths.get(basePath, filePath);
-
-            ReadConfigurationDecorator config = new ReadConfigurationDecorator(configuration);
-
-            FileAttribute attributes = new FileAttribute(path.toString());
-
-            MessageBuilder messageBuilder = MessageBuilder.get(FileRead.class);
-
-            strategy.read(path, config, messageBuilder, actualMimeType);
-
-            return messageBuilder
-                    .attributes(attributes)
-                    .build();
-
-        }).orElseThrow(() -> new NotValidFileException(Messages.FileRead.FILE_NAME_ERROR.format(fileName.toString())));
+        return evaluator.evaluate(flowContext, message).execute();
     }
 
     public void setConfiguration(FileReadConfiguration configuration) {
@@ -141,4 +163,20 @@ public class FileRead implements ProcessorSync {
     public void setMode(ReadMode mode) {
         this.mode = mode;
     }
+
+    public void setOffset(DynamicLong offset) {
+        this.offset = offset;
+    }
+
+    public void setLength(DynamicLong length) {
+        this.length = length;
+    }
+
+    public void setTail(DynamicLong tail) {
+        this.tail = tail;
+    }
+
+    public void setExpectedChecksum(DynamicString expectedChecksum) {
+        this.expectedChecksum = expectedChecksum;
+    }
 }
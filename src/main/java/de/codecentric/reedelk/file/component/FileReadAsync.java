@@ -0,0 +1,212 @@
+package de.codecentric.reedelk.file.component;
+
+import de.codecentric.reedelk.file.internal.attribute.FileAttribute;
+import de.codecentric.reedelk.file.internal.exception.FileReadException;
+import de.codecentric.reedelk.runtime.api.annotation.*;
+import de.codecentric.reedelk.runtime.api.component.OnResult;
+import de.codecentric.reedelk.runtime.api.component.ProcessorAsync;
+import de.codecentric.reedelk.runtime.api.exception.PlatformException;
+import de.codecentric.reedelk.runtime.api.flow.FlowContext;
+import de.codecentric.reedelk.runtime.api.message.Message;
+import de.codecentric.reedelk.runtime.api.message.content.MimeType;
+import de.codecentric.reedelk.runtime.api.script.ScriptEngineService;
+import de.codecentric.reedelk.runtime.api.script.dynamicvalue.DynamicLong;
+import de.codecentric.reedelk.runtime.api.script.dynamicvalue.DynamicString;
+import de.codecentric.reedelk.file.internal.commons.AsyncOperation;
+import de.codecentric.reedelk.file.internal.commons.Messages;
+import de.codecentric.reedelk.file.internal.read.*;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.component.annotations.ServiceScope;
+
+import static de.codecentric.reedelk.runtime.api.commons.StackTraceUtils.rootCauseMessageOf;
+
+@ModuleComponent("File Read Async")
+@ComponentOutput(
+        attributes = FileAttribute.class,
+        payload = byte[].class,
+        description = "The content of the file read from the file system from the given path and file name.")
+@ComponentInput(
+        payload = Object.class,
+        description = "The input payload is used to evaluate the file name to read.")
+@Description("Reads a file from the file system from the given file name and optionally provided base path. " +
+                "The file read strategy determines if the file should be streamed from the file system or " +
+                "loaded into memory before continuing with the execution of the flow. " +
+                "The component can also be configured to acquire a lock before reading the file. " +
+                "The file is opened and read on the module I/O threads and the flow continues once it has been read: " +
+                "the thread running the flow (e.g. the thread of a REST listener) is never blocked by the file system.")
+@Component(service = FileReadAsync.class, scope = ServiceScope.PROTOTYPE)
+public class FileReadAsync implements ProcessorAsync {
+
+    @Property("File name")
+    @Hint("/var/logs/log1.txt")
+    @Example("/var/logs/log1.txt")
+    @Description("The path and name of the file to be read from the file system.")
+    private DynamicString fileName;
+
+    @Property("Base path")
+    @Hint("/var/logs")
+    @Example("/var/logs")
+    @Description("Optional base path from which files with the given <i>File name</i> will be read from. " +
+            "The final file will be read from <i>Base Path</i> + <i>File Name</i>.")
+    private String basePath;
+
+    @Property("Read mode")
+    @Example("STREAM")
+    @InitValue("DEFAULT")
+    @DefaultValue("DEFAULT")
+    @Description("Determines the read strategy. When <i>Default</i> the file is completely read into memory. " +
+            "When <i>Stream</i> the file is read only on demand only when the message payload is being consumed. " +
+            "This is the preferred method to read large files from the filesystem. " +
+            "When <i>Mapped</i> the file is memory mapped and streamed on demand directly from the mapping, " +
+            "this is the preferred method to read large files which are read frequently. " +
+            "When <i>Lines</i> the file is streamed on demand line by line, as configured by the <i>Line format</i>, " +
+            "<i>Line charset</i> and <i>Lines per element</i> options: this is the preferred method to process large " +
+            "text files (e.g. CSV or log files) record by record. " +
+            "When <i>Parallel</i> the file is streamed on demand as with <i>Stream</i>, but up to <i>Parallel reads</i> " +
+            "chunks are read at the same time: this is the preferred method to read very large files from fast storage devices.")
+    private ReadMode mode;
+
+    @Property("Auto mime type")
+    @Example("false")
+    @InitValue("true")
+    @DefaultValue("false")
+    @Description("If true, the mime type of the payload is determined from the extension of the file read.")
+    private boolean autoMimeType;
+
+    @Property("Mime type")
+    @MimeTypeCombo
+    @Example(MimeType.AsString.TEXT_XML)
+    @DefaultValue(MimeType.AsString.APPLICATION_BINARY)
+    @When(propertyName = "autoMimeType", propertyValue = "false")
+    @When(propertyName = "autoMimeType", propertyValue = When.BLANK)
+    @Description("The mime type of the file read from the filesystem.")
+    private String mimeType;
+
+    @Property("Offset")
+    @Group("Range")
+    @Hint("1024")
+    @Example("0")
+    @Description("Optional offset (in bytes) from which the file is read. " +
+            "If the offset is past the end of the file, the content is empty. " +
+            "In the <i>Lines</i> read mode, the lines are read from the first line starting at or after the offset.")
+    private DynamicLong offset;
+
+    @Property("Length")
+    @Group("Range")
+    @Hint("4096")
+    @Example("1048576")
+    @Description("Optional max number of bytes read from the <i>Offset</i>. " +
+            "If empty, the file is read up to the end. " +
+            "In the <i>Lines</i> read mode, a last line not ending within the length is not read.")
+    private DynamicLong length;
+
+    @Property("Tail")
+    @Group("Range")
+    @Hint("4096")
+    @Example("65536")
+    @Description("Optional number of bytes read from the end of the file, e.g. to read the last lines of a log file. " +
+            "If set, the <i>Offset</i> and <i>Length</i> are ignored. " +
+            "In the <i>Lines</i> read mode, the first line is skipped if it starts before the tail.")
+    private DynamicLong tail;
+
+    @Property("Expected checksum")
+    @Hint("9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08")
+    @Example("#[message.attributes().checksum]")
+    @Description("Optional checksum the content read must have, as a hex string. The read fails if the checksum " +
+            "computed with the <i>Checksum</i> algorithm of the configuration does not match.")
+    private DynamicString expectedChecksum;
+
+    @Property("Configuration")
+    @Group("Configuration")
+    private FileReadConfiguration configuration;
+
+    @Reference
+    private ScriptEngineService service;
+
+    private ReadEvaluator evaluator;
+
+    @Override
+    public void initialize() {
+        evaluator = ReadEvaluator.builder()
+                .component(FileReadAsync.class)
+                .service(service)
+                .fileName(fileName)
+                .basePath(basePath)
+                .autoMimeType(autoMimeType)
+                .mimeType(mimeType)
+                .mode(mode)
+                .offset(offset)
+                .length(length)
+                .tail(tail)
+                .expectedChecksum(expectedChecksum)
+                .configuration(configuration)
+                .build();
+    }
+
+    @Override
+    public void apply(FlowContext flowContext, Message message, OnResult callback) {
+
+        ReadEvaluator.Read read;
+        try {
+            // The dynamic values are evaluated on the flow thread, the file is read on the I/O scheduler.
+            read = evaluator.evaluate(flowContext, message);
+
+        } catch (Exception exception) {
+            callback.onError(flowContext, mapException(fileName.toString(), exception));
+            return;
+        }
+
+        AsyncOperation.execute(flowContext, callback, read::execute,
+                throwable -> mapException(read.path().toString(), throwable));
+    }
+
+    private Exception mapException(String file, Throwable exception) {
+        if (exception instanceof PlatformException) {
+            return (PlatformException) exception;
+        } else {
+            String message = Messages.FileRead.FILE_READ_ERROR.format(file, rootCauseMessageOf(exception));
+            return new FileReadException(message, exception);
+        }
+    }
+
+    public void setConfiguration(FileReadConfiguration configuration) {
+        this.configuration = configuration;
+    }
+
+    public void setAutoMimeType(boolean autoMimeType) {
+        this.autoMimeType = autoMimeType;
+    }
+
+    public void setFileName(DynamicString fileName) {
+        this.fileName = fileName;
+    }
+
+    public void setBasePath(String basePath) {
+        this.basePath = basePath;
+    }
+
+    public void setMimeType(String mimeType) {
+        this.mimeType = mimeType;
+    }
+
+    public void setMode(ReadMode mode) {
+        this.mode = mode;
+    }
+
+    public void setOffset(DynamicLong offset) {
+        this.offset = offset;
+    }
+
+    public void setLength(DynamicLong length) {
+        this.length = length;
+    }
+
+    public void setTail(DynamicLong tail) {
+        this.tail = tail;
+    }
+
+    public void setExpectedChecksum(DynamicString expectedChecksum) {
+        this.expectedChecksum = expectedChecksum;
+    }
+}
@@ -1,5 +1,9 @@
 package de.codecentric.reedelk.file.component;
 
+import de.codecentric.reedelk.file.internal.checksum.ChecksumAlgorithm;
+import de.codecentric.reedelk.file.internal.codec.Compression;
+import de.codecentric.reedelk.file.internal.commons.RetryPolicy;
+import de.codecentric.reedelk.file.internal.read.LineFormat;
 import de.codecentric.reedelk.runtime.api.annotation.*;
 import de.codecentric.reedelk.runtime.api.component.Implementor;
 import org.osgi.service.component.annotations.Component;
@@ -12,7 +16,7 @@ public class FileReadConfiguration implements Implementor {
     @Property("Lock file")
     @Example("true")
     @DefaultValue("false")
-    @Description("If true a lock on the file is acquired before reading its content.")
+    @Description("If true a shared lock on the file is acquired before reading its content.")
     private Boolean lockFile;
 
     @Property("Lock retry max attempts")
@@ -28,9 +32,20 @@ public class FileReadConfiguration implements Implementor {
     @Example("500")
     @DefaultValue("500")
     @When(propertyName = "lockFile", propertyValue = "true")
-    @Description("Sets the wait time between two file lock attempts in milliseconds.")
+    @Description("Sets the wait time (in milliseconds) before the first lock retry, as per the <i>Lock retry policy</i>. " +
+            "The lock is given up once <i>Lock retry max attempts</i> retries have been made, or once their longest total wait time has elapsed.")
     private Long lockRetryWaitTime;
 
+    @Property("Lock retry policy")
+    @Example("DECORRELATED_JITTER")
+    @InitValue("FIXED")
+    @DefaultValue("FIXED")
+    @When(propertyName = "lockFile", propertyValue = "true")
+    @Description("Sets how long to wait before each lock retry. Possible values are: <b>FIXED</b> (default): always the <i>Lock retry wait time</i>, " +
+            "<b>EXPONENTIAL</b>: the wait time doubles at each retry, with a random jitter, " +
+            "<b>DECORRELATED_JITTER</b>: a random wait time between the <i>Lock retry wait time</i> and three times the previous wait time.")
+    private RetryPolicy lockRetryPolicy;
+
     @Property("Read buffer size")
     @Hint("1024")
     @Example("1024")
@@ -39,9 +54,64 @@ public class FileReadConfiguration implements Implementor {
             "This parameter can be used to improve read performances. " +
             "If the files are big the buffer size should be bigger, " +
             "otherwise for very small files it should be kept smaller. " +
-            "The read buffer size is expressed in Kb and it can only be applied when the read mode strategy is 'Stream'.")
+            "The read buffer size is expressed in Kb. When the read mode strategy is 'Stream', 'Mapped' or 'Parallel' " +
+            "it is the size of each chunk of the stream, when 'Default' it is the size of each read step.")
     private Integer readBufferSize;
 
+    @Property("Parallel reads")
+    @Hint("4")
+    @Example("8")
+    @DefaultValue("4")
+    @Description("Used only when the read mode strategy is 'Parallel'. The max number of chunks of the file " +
+            "read at the same time. The chunks are still streamed in order: at most this number of chunks " +
+            "are kept in memory waiting to be consumed.")
+    private Integer parallelReads;
+
+    @Property("Compression")
+    @Example("GZIP")
+    @InitValue("NONE")
+    @DefaultValue("NONE")
+    @Description("The compression format of the file. When <i>GZIP</i> or <i>Deflate</i> the file content is " +
+            "decompressed while it is being read: the compressed file is never entirely loaded into memory, " +
+            "unless the read mode strategy is 'Default'. A compressed file is always read sequentially, " +
+            "and it cannot be read by offset, length or tail.")
+    private Compression compression;
+
+    @Property("Checksum")
+    @Example("SHA_256")
+    @InitValue("NONE")
+    @DefaultValue("NONE")
+    @Description("The checksum computed on the content while it is being read. The checksum is computed on the " +
+            "content read (after it has been decompressed), and it is set in the <i>checksum</i> attribute of the " +
+            "output message: when the content is streamed, only once the stream has been completely consumed. " +
+            "When an <i>Expected checksum</i> is given, the read fails if the checksum does not match.")
+    private ChecksumAlgorithm checksum;
+
+    @Property("Line format")
+    @Example("BYTES")
+    @InitValue("STRING")
+    @DefaultValue("STRING")
+    @Description("Used only when the read mode strategy is 'Lines'. When <i>String</i> each element of the stream " +
+            "is a string decoded with the <i>Line charset</i>, when <i>Bytes</i> it is the raw bytes of the lines.")
+    private LineFormat lineFormat;
+
+    @Property("Line charset")
+    @Hint("UTF-8")
+    @Example("ISO-8859-1")
+    @DefaultValue("UTF-8")
+    @Description("Used only when the read mode strategy is 'Lines'. The charset of the file, " +
+            "used to find the line terminators and to decode the lines.")
+    private String lineCharset;
+
+    @Property("Lines per element")
+    @Hint("1")
+    @Example("1000")
+    @DefaultValue("1")
+    @Description("Used only when the read mode strategy is 'Lines'. The number of lines of each element of the stream. " +
+            "The lines of an element are separated by their original line terminator, " +
+            "while the line terminator of the last line is removed.")
+    private Integer linesPerElement;
+
     public Boolean getLockFile() {
         return lockFile;
     }
@@ -66,6 +136,14 @@ public class FileReadConfiguration implements Implementor {
         this.lockRetryWaitTime = lockRetryWaitTime;
     }
 
+    public RetryPolicy getLockRetryPolicy() {
+        return lockRetryPolicy;
+    }
+
+    public void setLockRetryPolicy(RetryPolicy lockRetryPolicy) {
+        this.lockRetryPolicy = lockRetryPolicy;
+    }
+
     public Integer getReadBufferSize() {
         return readBufferSize;
     }
@@ -73,5 +151,52 @@ public class FileReadConfiguration implements Implementor {
     public void setReadBufferSize(Integer readBufferSize) {
         this.readBufferSize = readBufferSize;
     }
-}
 
+    public LineFormat getLineFormat() {
+        return lineFormat;
+    }
+
+    public void setLineFormat(LineFormat lineFormat) {
+        this.lineFormat = lineFormat;
+    }
+
+    public String getLineCharset() {
+        return lineCharset;
+    }
+
+    public void setLineCharset(String lineCharset) {
+        this.lineCharset = lineCharset;
+    }
+
+    public Integer getLinesPerElement() {
+        return linesPerElement;
+    }
+
+    public void setLinesPerElement(Integer linesPerElement) {
+        this.linesPerElement = linesPerElement;
+    }
+
+    public Integer getParallelReads() {
+        return parallelReads;
+    }
+
+    public void setParallelReads(Integer parallelReads) {
+        this.parallelReads = parallelReads;
+    }
+
+    public Compression getCompression() {
+        return compression;
+    }
+
+    public void setCompression(Compression compression) {
+        this.compression = compression;
+    }
+
+    public ChecksumAlgorithm getChecksum() {
+        return checksum;
+    }
+
+    public void setChecksum(ChecksumAlgorithm checksum) {
+        this.checksum = checksum;
+    }
+}
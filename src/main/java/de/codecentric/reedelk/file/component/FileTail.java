@@ -0,0 +1,159 @@
+package de.codecentric.reedelk.file.component;
+
+import de.codecentric.reedelk.file.internal.attribute.FileTailAttribute;
+import de.codecentric.reedelk.file.internal.commons.Messages;
+import de.codecentric.reedelk.file.internal.exception.NotValidFileException;
+import de.codecentric.reedelk.file.internal.tail.TailReader;
+import de.codecentric.reedelk.runtime.api.annotation.*;
+import de.codecentric.reedelk.runtime.api.commons.MimeTypeUtils;
+import de.codecentric.reedelk.runtime.api.component.ProcessorSync;
+import de.codecentric.reedelk.runtime.api.flow.FlowContext;
+import de.codecentric.reedelk.runtime.api.message.Message;
+import de.codecentric.reedelk.runtime.api.message.MessageBuilder;
+import de.codecentric.reedelk.runtime.api.message.content.MimeType;
+import de.codecentric.reedelk.runtime.api.script.ScriptEngineService;
+import de.codecentric.reedelk.runtime.api.script.dynamicvalue.DynamicString;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.component.annotations.ServiceScope;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Optional;
+
+import static de.codecentric.reedelk.runtime.api.commons.StringUtils.isBlank;
+
+@ModuleComponent("File Tail")
+@ComponentOutput(
+        attributes = FileTailAttribute.class,
+        payload = byte[].class,
+        description = "The content appended to the file since the last time it was read.")
+@ComponentInput(
+        payload = Object.class,
+        description = "The input payload is used to evaluate the file name to read.")
+@Description("Reads only the content appended to a continuously growing file (e.g. a log file) since the last time " +
+                "it was read by this component. The offset up to which each file has been read is persisted in the " +
+                "<i>Checkpoint file</i>, so that reading resumes from the same offset after a restart. " +
+                "If the file has been rotated or truncated, it is read again from the beginning. " +
+                "The content is streamed and the offset is advanced only once the stream has been completely consumed. " +
+                "This component is meant to be triggered periodically, e.g. by a Scheduler.")
+@Component(service = FileTail.class, scope = ServiceScope.PROTOTYPE)
+public class FileTail implements ProcessorSync {
+
+    @Property("File name")
+    @Hint("/var/logs/log1.txt")
+    @Example("/var/logs/log1.txt")
+    @Description("The path and name of the file to be read from the file system.")
+    private DynamicString fileName;
+
+    @Property("Base path")
+    @Hint("/var/logs")
+    @Example("/var/logs")
+    @Description("Optional base path from which files with the given <i>File name</i> will be read from. " +
+            "The final file will be read from <i>Base Path</i> + <i>File Name</i>.")
+    private String basePath;
+
+    @Property("Checkpoint file")
+    @Hint("/var/checkpoints/logs.properties")
+    @Example("/var/checkpoints/logs.properties")
+    @Description("The file where the offset up to which each file has been read is persisted. " +
+            "The same checkpoint file can be used to tail many files.")
+    private String checkpointFile;
+
+    @Property("Read existing content")
+    @Example("false")
+    @InitValue("true")
+    @DefaultValue("true")
+    @Description("If true, a file which has never been read is read from the beginning, " +
+            "otherwise only the content appended after the first read is read.")
+    private Boolean readExisting;
+
+    @Property("Auto mime type")
+    @Example("false")
+    @InitValue("true")
+    @DefaultValue("false")
+    @Description("If true, the mime type of the payload is determined from the extension of the file read.")
+    private boolean autoMimeType;
+
+    @Property("Mime type")
+    @MimeTypeCombo
+    @Example(MimeType.AsString.TEXT_XML)
+    @DefaultValue(MimeType.AsString.APPLICATION_BINARY)
+    @When(propertyName = "autoMimeType", propertyValue = "false")
+    @When(propertyName = "autoMimeType", propertyValue = When.BLANK)
+    @Description("The mime type of the file read from the filesystem.")
+    private String mimeType;
+
+    @Property("Configuration")
+    @Group("Configuration")
+    private FileReadConfiguration configuration;
+
+    @Reference
+    private ScriptEngineService service;
+
+    private TailReader reader;
+
+    @Override
+    public void initialize() {
+        if (isBlank(checkpointFile)) {
+            throw new NotValidFileException(Messages.FileTail.CHECKPOINT_NOT_VALID.format(checkpointFile));
+        }
+        reader = new TailReader(Paths.get(checkpointFile), Optional.ofNullable(readExisting).orElse(true));
+    }
+
+    @Override
+    public void dispose() {
+        if (reader != null) {
+            reader.dispose();
+            reader = null;
+        }
+    }
+
+    @Override
+    public Message apply(FlowContext flowContext, Message message) {
+
+        Optional<String> evaluated = service.evaluate(fileName, flowContext, message);
+
+        return evaluated.map(filePath -> {
+
+            MimeType actualMimeType = MimeTypeUtils.fromFileExtensionOrParse(autoMimeType, filePath, mimeType, MimeType.APPLICATION_BINARY);
+
+            Path path = isBlank(basePath) ? Paths.get(filePath) : Paths.get(basePath, filePath);
+
+            MessageBuilder messageBuilder = MessageBuilder.get(FileTail.class);
+
+            reader.read(path, configuration, messageBuilder, actualMimeType);
+
+            return messageBuilder.build();
+
+        }).orElseThrow(() -> new NotValidFileException(Messages.FileTail.FILE_NAME_ERROR.format(fileName.toString())));
+    }
+
+    public void setFileName(DynamicString fileName) {
+        this.fileName = fileName;
+    }
+
+    public void setBasePath(String basePath) {
+        this.basePath = basePath;
+    }
+
+    public void setCheckpointFile(String checkpointFile) {
+        this.checkpointFile = checkpointFile;
+    }
+
+    public void setReadExisting(Boolean readExisting) {
+        this.readExisting = readExisting;
+    }
+
+    public void setAutoMimeType(boolean autoMimeType) {
+        this.autoMimeType = autoMimeType;
+    }
+
+    public void setMimeType(String mimeType) {
+        this.mimeType = mimeType;
+    }
+
+    public void setConfiguration(FileReadConfiguration configuration) {
+        this.configuration = configuration;
+    }
+}
@@ -0,0 +1,93 @@
+package de.codecentric.reedelk.file.component;
+
+import de.codecentric.reedelk.file.internal.commons.RetryPolicy;
+import de.codecentric.reedelk.runtime.api.annotation.*;
+import de.codecentric.reedelk.runtime.api.component.Implementor;
+import org.osgi.service.component.annotations.Component;
+
+import static org.osgi.service.component.annotations.ServiceScope.PROTOTYPE;
+
+@Collapsible
+@Component(service = FileTransferConfiguration.class, scope = PROTOTYPE)
+public class FileTransferConfiguration implements Implementor {
+
+    @Property("Create directories")
+    @Example("true")
+    @DefaultValue("false")
+    @Description("If true, missing directories of the target file will be created on the filesystem before " +
+            "copying or moving the file.")
+    private Boolean createParentDirectory;
+
+    @Property("Lock file")
+    @Example("true")
+    @DefaultValue("false")
+    @Description("If true a lock on the source and target files is acquired before copying or moving the content.")
+    private Boolean lockFile;
+
+    @Property("Lock retry max attempts")
+    @Hint("3")
+    @Example("5")
+    @DefaultValue("3")
+    @When(propertyName = "lockFile", propertyValue = "true")
+    @Description("Sets the max lock attempts before throwing an error.")
+    private Integer lockRetryMaxAttempts;
+
+    @Property("Lock retry wait time (ms)")
+    @Hint("500")
+    @Example("600")
+    @DefaultValue("500")
+    @When(propertyName = "lockFile", propertyValue = "true")
+    @Description("Sets the wait time (in milliseconds) before the first lock retry, as per the <i>Lock retry policy</i>. " +
+            "The lock is given up once <i>Lock retry max attempts</i> retries have been made, or once their longest total wait time has elapsed.")
+    private Long lockRetryWaitTime;
+
+    @Property("Lock retry policy")
+    @Example("DECORRELATED_JITTER")
+    @InitValue("FIXED")
+    @DefaultValue("FIXED")
+    @When(propertyName = "lockFile", propertyValue = "true")
+    @Description("Sets how long to wait before each lock retry. Possible values are: <b>FIXED</b> (default): always the <i>Lock retry wait time</i>, " +
+            "<b>EXPONENTIAL</b>: the wait time doubles at each retry, with a random jitter, " +
+            "<b>DECORRELATED_JITTER</b>: a random wait time between the <i>Lock retry wait time</i> and three times the previous wait time.")
+    private RetryPolicy lockRetryPolicy;
+
+    public Boolean getCreateParentDirectory() {
+        return createParentDirectory;
+    }
+
+    public void setCreateParentDirectory(Boolean createParentDirectory) {
+        this.createParentDirectory = createParentDirectory;
+    }
+
+    public Boolean getLockFile() {
+        return lockFile;
+    }
+
+    public void setLockFile(Boolean lockFile) {
+        this.lockFile = lockFile;
+    }
+
+    public Integer getLockRetryMaxAttempts() {
+        return lockRetryMaxAttempts;
+    }
+
+    public void setLockRetryMaxAttempts(Integer lockRetryMaxAttempts) {
+        this.lockRetryMaxAttempts = lockRetryMaxAttempts;
+    }
+
+    public Long getLockRetryWaitTime() {
+        return lockRetryWaitTime;
+    }
+
+    public void setLockRetryWaitTime(Long lockRetryWaitTime) {
+        this.lockRetryWaitTime = lockRetryWaitTime;
+    }
+
+    public RetryPolicy getLockRetryPolicy() {
+        return lockRetryPolicy;
+    }
+
+    public void setLockRetryPolicy(RetryPolicy lockRetryPolicy) {
+        this.lockRetryPolicy = lockRetryPolicy;
+    }
+}
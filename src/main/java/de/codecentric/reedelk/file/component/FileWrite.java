@@ -36,8 +36,8 @@ import static de.codecentric.reedelk.runtime.api.commons.StringUtils.isBlank;
         payload = { byte[].class, String.class },
         description = "The data to be written on the file. The expected input is byte array or string.")
 @Description("Writes a file to the file system to the given File name and optionally provided Base path. " +
-                "The write mode can be used to override an existing file, create new file if it does not exists " +
-                "or append to the existing file if exists already.")
+                "The write mode can be used to override an existing file, create new file if it does not exists, " +
+                "append to the existing file if exists already or append to a rolling file.")
 @Component(service = FileWrite.class, scope = ServiceScope.PROTOTYPE)
 public class FileWrite implements ProcessorAsync {
 
@@ -58,9 +58,26 @@ public class FileWrite implements ProcessorAsync {
     @Example("APPEND")
     @InitValue("OVERWRITE")
     @DefaultValue("OVERWRITE")
-    @Description("Sets the file write mode. Possible values are <b>OVERWRITE</b>, <b>CREATE_NEW</b>, <b>APPEND</b>.")
+    @Description("Sets the file write mode. Possible values are <b>OVERWRITE</b>, <b>CREATE_NEW</b>, <b>APPEND</b>, <b>ATOMIC_REPLACE</b>, <b>ROLLING</b>. " +
+            "When <b>ATOMIC_REPLACE</b> the content is written into a temporary file in the same directory, which replaces " +
+            "the target file with an atomic move once the content has been completely written: readers never see a partially written file. " +
+            "When <b>ROLLING</b> the content is appended to the current file of a rolling file name pattern, e.g. " +
+            "<i>orders-%d{yyyyMMdd-HH}-%i.log</i>: a new file is started when the time window of the <i>%d{format}</i> " +
+            "placeholder changes or when the <i>Rolling max file size</i> would be exceeded. " +
+            "The current file is kept open and shared as with the <i>Shared appender</i> option.")
     private WriteMode mode;
 
+    @Property("Expected checksum")
+    @Hint("9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08")
+    @Example("#[message.attributes().checksum]")
+    @Description("Optional checksum the content written must have, as a hex string. The write fails if the checksum " +
+            "computed with the <i>Checksum</i> algorithm of the configuration does not match. " +
+            "The checksum is only known once all the content has been written: with the <b>ATOMIC_REPLACE</b> write mode " +
+            "the target file is left untouched when the checksum does not match, with <b>OVERWRITE</b> and <b>CREATE_NEW</b> " +
+            "the target file is deleted (the previous content of an overwritten file is lost), while with <b>APPEND</b> " +
+            "(which requires the <i>Shared appender</i> option) and <b>ROLLING</b> the content is verified before being appended.")
+    private DynamicString expectedChecksum;
+
     @Property("Configuration")
     @Group("Configuration")
     private FileWriteConfiguration configuration;
@@ -84,7 +101,10 @@ public class FileWrite implements ProcessorAsync {
 
             try {
 
-                WriteConfiguration config = new WriteConfiguration(configuration, mode);
+                String expected = expectedChecksum == null ? null :
+                        scriptService.evaluate(expectedChecksum, flowContext, message).orElse(null);
+
+                WriteConfiguration config = new WriteConfiguration(configuration, mode, expected);
 
                 String filePath = evaluated.get();
 
@@ -124,6 +144,10 @@ public class FileWrite implements ProcessorAsync {
         this.mode = mode;
     }
 
+    public void setExpectedChecksum(DynamicString expectedChecksum) {
+        this.expectedChecksum = expectedChecksum;
+    }
+
     public void setConfiguration(FileWriteConfiguration configuration) {
         this.configuration = configuration;
     }
@@ -1,5 +1,10 @@
 package de.codecentric.reedelk.file.component;
 
+import de.codecentric.reedelk.file.internal.checksum.ChecksumAlgorithm;
+import de.codecentric.reedelk.file.internal.codec.Compression;
+import de.codecentric.reedelk.file.internal.write.Durability;
+import de.codecentric.reedelk.file.internal.write.WriteEngine;
+import de.codecentric.reedelk.file.internal.commons.RetryPolicy;
 import de.codecentric.reedelk.runtime.api.annotation.*;
 import de.codecentric.reedelk.runtime.api.component.Implementor;
 import org.osgi.service.component.annotations.Component;
@@ -19,7 +24,8 @@ public class FileWriteConfiguration implements Implementor {
     @Property("Lock file")
     @Example("true")
     @DefaultValue("false")
-    @Description("If true a lock on the file is acquired before writing the content.")
+    @Description("If true a lock on the file is acquired before writing the content. " +
+            "The lock is ignored with the <i>Atomic replace</i> mode, which writes a new temporary file and moves it over the file.")
     private Boolean lockFile;
 
     @Property("Lock retry max attempts")
@@ -35,9 +41,20 @@ public class FileWriteConfiguration implements Implementor {
     @Example("600")
     @DefaultValue("500")
     @When(propertyName = "lockFile", propertyValue = "true")
-    @Description("Sets the wait time (in milliseconds) between two file lock attempts.")
+    @Description("Sets the wait time (in milliseconds) before the first lock retry, as per the <i>Lock retry policy</i>. " +
+            "The lock is given up once <i>Lock retry max attempts</i> retries have been made, or once their longest total wait time has elapsed.")
     private Long lockRetryWaitTime;
 
+    @Property("Lock retry policy")
+    @Example("DECORRELATED_JITTER")
+    @InitValue("FIXED")
+    @DefaultValue("FIXED")
+    @When(propertyName = "lockFile", propertyValue = "true")
+    @Description("Sets how long to wait before each lock retry. Possible values are: <b>FIXED</b> (default): always the <i>Lock retry wait time</i>, " +
+            "<b>EXPONENTIAL</b>: the wait time doubles at each retry, with a random jitter, " +
+            "<b>DECORRELATED_JITTER</b>: a random wait time between the <i>Lock retry wait time</i> and three times the previous wait time.")
+    private RetryPolicy lockRetryPolicy;
+
     @Property("Write buffer size")
     @Hint("65536")
     @Example("524288")
@@ -48,6 +65,92 @@ public class FileWriteConfiguration implements Implementor {
             "files it should be kept smaller.")
     private Integer writeBufferSize;
 
+    @Property("Compression")
+    @Example("GZIP")
+    @InitValue("NONE")
+    @DefaultValue("NONE")
+    @Description("The compression format of the file. When <i>GZIP</i> or <i>Deflate</i> the content is compressed " +
+            "while it is being written, without loading it entirely into memory. When appending, the content of each message " +
+            "is compressed on its own: a file made of many appended <i>GZIP</i> messages can still be read as a single " +
+            "<i>GZIP</i> file, while appended <i>Deflate</i> messages cannot.")
+    private Compression compression;
+
+    @Property("Checksum")
+    @Example("SHA_256")
+    @InitValue("NONE")
+    @DefaultValue("NONE")
+    @Description("The checksum computed on the content while it is being written. The checksum is computed " +
+            "on the content before it is compressed, and it is set in the <i>checksum</i> attribute of the output message. " +
+            "When an <i>Expected checksum</i> is given, the write fails if the checksum does not match.")
+    private ChecksumAlgorithm checksum;
+
+    @Property("Durability")
+    @Example("SYNC_DATA")
+    @DefaultValue("NONE")
+    @Description("Determines if and how the written data is synced to the storage device before completing. " +
+            "When <i>None</i> the data is not explicitly synced and it might be lost if the system crashes. " +
+            "When <i>Sync data on close</i> the file content is synced once it has been completely written. " +
+            "When <i>Sync data and metadata on close</i> also the file metadata (e.g last modified time) is synced. " +
+            "When <i>Group commit</i> all the writes on the same file completed within the <i>Group commit window</i> " +
+            "share a single sync, and each write completes only when the sync is done.")
+    private Durability durability;
+
+    @Property("Group commit window (ms)")
+    @Hint("10")
+    @Example("50")
+    @DefaultValue("10")
+    @When(propertyName = "durability", propertyValue = "GROUP_COMMIT")
+    @Description("The time window (in milliseconds) within which the writes on the same file share a single sync.")
+    private Long groupCommitWindow;
+
+    @Property("Shared appender")
+    @Example("true")
+    @DefaultValue("false")
+    @Description("If true and the write mode is <b>APPEND</b>, the file is kept open and shared by all the " +
+            "File Write components appending to the same file. The content of concurrent messages is batched " +
+            "into a single write. The file is closed once no message has been appended for the <i>Shared appender idle timeout</i>. " +
+            "This option should be used when many small messages are appended to the same file at a high rate.")
+    private Boolean sharedAppender;
+
+    @Property("Shared appender idle timeout (ms)")
+    @Hint("5000")
+    @Example("10000")
+    @DefaultValue("5000")
+    @When(propertyName = "sharedAppender", propertyValue = "true")
+    @Description("The time (in milliseconds) after which a shared appender which has not been used is closed.")
+    private Long sharedAppenderIdleTimeout;
+
+    @Property("Rolling max file size")
+    @Hint("10485760")
+    @Example("104857600")
+    @DefaultValue("0")
+    @Description("The max size (in bytes) of each file written with the <b>ROLLING</b> write mode. " +
+            "When the size would be exceeded, the next file is written, with the next index replacing the " +
+            "<i>%i</i> placeholder of the file name. If zero or if the file name has no <i>%i</i> placeholder " +
+            "files are rolled only by time.")
+    private Long rollingMaxFileSize;
+
+    @Property("Write engine")
+    @Example("ASYNC_CHANNEL")
+    @InitValue("CHANNEL")
+    @DefaultValue("CHANNEL")
+    @Description("Determines how the content is written. When <i>File channel</i> the content is written sequentially " +
+            "by a single thread, which is used for the whole write. When <i>Asynchronous file channel</i> up to " +
+            "<i>Max writes in flight</i> buffers are written at the same time with positional writes, and a thread is " +
+            "used only while a buffer is being written: this is the preferred engine to write many large files at the same time. " +
+            "The asynchronous file channel is only used with the <b>OVERWRITE</b>, <b>CREATE_NEW</b> and <b>ATOMIC_REPLACE</b> " +
+            "write modes and without compression, otherwise the content is written with the file channel.")
+    private WriteEngine writeEngine;
+
+    @Property("Max writes in flight")
+    @Hint("4")
+    @Example("8")
+    @DefaultValue("4")
+    @When(propertyName = "writeEngine", propertyValue = "ASYNC_CHANNEL")
+    @Description("The max number of buffers of <i>Write buffer size</i> bytes written at the same time " +
+            "by the asynchronous file channel.")
+    private Integer maxWritesInFlight;
+
     public void setCreateParentDirectory(boolean createParentDirectory) {
         this.createParentDirectory = createParentDirectory;
     }
@@ -76,6 +179,14 @@ public class FileWriteConfiguration implements Implementor {
         this.lockRetryWaitTime = lockRetryWaitTime;
     }
 
+    public RetryPolicy getLockRetryPolicy() {
+        return lockRetryPolicy;
+    }
+
+    public void setLockRetryPolicy(RetryPolicy lockRetryPolicy) {
+        this.lockRetryPolicy = lockRetryPolicy;
+    }
+
     public Integer getWriteBufferSize() {
         return writeBufferSize;
     }
@@ -87,4 +198,76 @@ public class FileWriteConfiguration implements Implementor {
     public Boolean getCreateParentDirectory() {
         return createParentDirectory;
     }
+
+    public Durability getDurability() {
+        return durability;
+    }
+
+    public void setDurability(Durability durability) {
+        this.durability = durability;
+    }
+
+    public Boolean getSharedAppender() {
+        return sharedAppender;
+    }
+
+    public void setSharedAppender(Boolean sharedAppender) {
+        this.sharedAppender = sharedAppender;
+    }
+
+    public Long getSharedAppenderIdleTimeout() {
+        return sharedAppenderIdleTimeout;
+    }
+
+    public void setSharedAppenderIdleTimeout(Long sharedAppenderIdleTimeout) {
+        this.sharedAppenderIdleTimeout = sharedAppenderIdleTimeout;
+    }
+
+    public Long getRollingMaxFileSize() {
+        return rollingMaxFileSize;
+    }
+
+    public void setRollingMaxFileSize(Long rollingMaxFileSize) {
+        this.rollingMaxFileSize = rollingMaxFileSize;
+    }
+
+    public Long getGroupCommitWindow() {
+        return groupCommitWindow;
+    }
+
+    public void setGroupCommitWindow(Long groupCommitWindow) {
+        this.groupCommitWindow = groupCommitWindow;
+    }
+
+    public Compression getCompression() {
+        return compression;
+    }
+
+    public void setCompression(Compression compression) {
+        this.compression = compression;
+    }
+
+    public ChecksumAlgorithm getChecksum() {
+        return checksum;
+    }
+
+    public void setChecksum(ChecksumAlgorithm checksum) {
+        this.checksum = checksum;
+    }
+
+    public WriteEngine getWriteEngine() {
+        return writeEngine;
+    }
+
+    public void setWriteEngine(WriteEngine writeEngine) {
+        this.writeEngine = writeEngine;
+    }
+
+    public Integer getMaxWritesInFlight() {
+        return maxWritesInFlight;
+    }
+
+    public void setMaxWritesInFlight(Integer maxWritesInFlight) {
+        this.maxWritesInFlight = maxWritesInFlight;
+    }
 }
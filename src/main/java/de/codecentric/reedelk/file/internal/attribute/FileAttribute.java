@@ -5,11 +5,15 @@ import de.codecentric.reedelk.runtime.api.annotation.TypeProperty;
 import de.codecentric.reedelk.runtime.api.message.MessageAttributes;
 
 import static de.codecentric.reedelk.file.internal.attribute.FileAttribute.FILE_NAME;
+import static de.codecentric.reedelk.file.internal.checksum.Checksum.CHECKSUM;
+import static de.codecentric.reedelk.file.internal.checksum.Checksum.CHECKSUM_ALGORITHM;
 import static de.codecentric.reedelk.file.internal.attribute.FileAttribute.TIMESTAMP;
 
 @Type
 @TypeProperty(name = FILE_NAME, type = String.class)
 @TypeProperty(name = TIMESTAMP, type = long.class)
+@TypeProperty(name = CHECKSUM, type = String.class)
+@TypeProperty(name = CHECKSUM_ALGORITHM, type = String.class)
 public class FileAttribute extends MessageAttributes {
 
     static final String FILE_NAME =  "fileName";
@@ -19,4 +23,12 @@ public class FileAttribute extends MessageAttributes {
         put(FILE_NAME, fileName);
         put(TIMESTAMP, System.currentTimeMillis());
     }
+
+    /**
+     * Replaces the file name with the name of the file actually written,
+     * e.g. the current file of a rolling file name pattern.
+     */
+    public void setFileName(String fileName) {
+        put(FILE_NAME, fileName);
+    }
 }
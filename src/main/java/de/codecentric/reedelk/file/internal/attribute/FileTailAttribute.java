@@ -0,0 +1,30 @@
+package de.codecentric.reedelk.file.internal.attribute;
+
+import de.codecentric.reedelk.runtime.api.annotation.Type;
+import de.codecentric.reedelk.runtime.api.annotation.TypeProperty;
+import de.codecentric.reedelk.runtime.api.message.MessageAttributes;
+
+import static de.codecentric.reedelk.file.internal.attribute.FileTailAttribute.*;
+
+@Type
+@TypeProperty(name = FILE_NAME, type = String.class)
+@TypeProperty(name = TIMESTAMP, type = long.class)
+@TypeProperty(name = OFFSET, type = long.class)
+@TypeProperty(name = LENGTH, type = long.class)
+@TypeProperty(name = ROTATED, type = boolean.class)
+public class FileTailAttribute extends MessageAttributes {
+
+    static final String FILE_NAME =  "fileName";
+    static final String TIMESTAMP = "timestamp";
+    static final String OFFSET = "offset";
+    static final String LENGTH = "length";
+    static final String ROTATED = "rotated";
+
+    public FileTailAttribute(String fileName, long offset, long length, boolean rotated) {
+        put(FILE_NAME, fileName);
+        put(TIMESTAMP, System.currentTimeMillis());
+        put(OFFSET, offset);
+        put(LENGTH, length);
+        put(ROTATED, rotated);
+    }
+}
@@ -0,0 +1,102 @@
+package de.codecentric.reedelk.file.internal.checksum;
+
+import de.codecentric.reedelk.file.internal.exception.ChecksumMismatchException;
+import de.codecentric.reedelk.runtime.api.message.MessageAttributes;
+import reactor.core.publisher.Flux;
+
+import java.nio.ByteBuffer;
+
+import static de.codecentric.reedelk.file.internal.commons.Messages.Misc.CHECKSUM_MISMATCH;
+
+/**
+ * The checksum to be computed on the content of a file while it is being read or written.
+ * Each read or write of the content starts a new calculation, which is updated with the chunks
+ * as they flow and, once the content is complete, it puts the checksum into the message
+ * attributes and it verifies it against the expected checksum (if any).
+ */
+public class Checksum {
+
+    public static final String CHECKSUM = "checksum";
+    public static final String CHECKSUM_ALGORITHM = "checksumAlgorithm";
+
+    private final ChecksumAlgorithm algorithm;
+    private final String expected;
+    private final MessageAttributes attributes;
+
+    private Checksum(ChecksumAlgorithm algorithm, String expected, MessageAttributes attributes) {
+        this.algorithm = algorithm;
+        this.expected = expected;
+        this.attributes = attributes;
+    }
+
+    /**
+     * Returns null if no checksum must be computed. The expected checksum (if any) requires
+     * an algorithm: callers must reject it beforehand otherwise (see {@link #isMissingAlgorithm}).
+     */
+    public static Checksum of(ChecksumAlgorithm algorithm, String expected, MessageAttributes attributes) {
+        if (algorithm == null || ChecksumAlgorithm.NONE.equals(algorithm)) return null;
+        return new Checksum(algorithm, expectedOf(expected), attributes);
+    }
+
+    /**
+     * Returns true if an expected checksum is given but no algorithm to compute it: the expected
+     * checksum could never be verified, and the content would be silently accepted.
+     */
+    public static boolean isMissingAlgorithm(ChecksumAlgorithm algorithm, String expected) {
+        return expectedOf(expected) != null && (algorithm == null || ChecksumAlgorithm.NONE.equals(algorithm));
+    }
+
+    private static String expectedOf(String expected) {
+        return expected == null || expected.trim().isEmpty() ? null : expected.trim();
+    }
+
+    /**
+     * Computes the checksum on the chunks of the given content as they flow. Once the content is complete,
+     * the content terminates with a ChecksumMismatchException if the checksum is not the expected one.
+     * Each subscription to the content starts a new calculation.
+     */
+    public static Flux<byte[]> computeOn(Flux<byte[]> content, Checksum checksum) {
+        if (checksum == null) return content;
+        return Flux.defer(() -> {
+            Calculation calculation = checksum.start();
+            return content
+                    .doOnNext(calculation::update)
+                    .doOnComplete(calculation::complete);
+        });
+    }
+
+    public Calculation start() {
+        return new Calculation(algorithm.newDigest());
+    }
+
+    public class Calculation {
+
+        private final Digest digest;
+
+        private Calculation(Digest digest) {
+            this.digest = digest;
+        }
+
+        public void update(byte[] bytes) {
+            digest.update(bytes, 0, bytes.length);
+        }
+
+        public void update(ByteBuffer buffer) {
+            digest.update(buffer);
+        }
+
+        /**
+         * Throws a ChecksumMismatchException if the checksum is not the expected one.
+         */
+        public void complete() {
+            String value = digest.value();
+            attributes.put(CHECKSUM, value);
+            attributes.put(CHECKSUM_ALGORITHM, algorithm.name());
+
+            if (expected != null && !expected.equalsIgnoreCase(value)) {
+                String message = CHECKSUM_MISMATCH.format(algorithm.name(), expected, value);
+                throw new ChecksumMismatchException(message);
+            }
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package de.codecentric.reedelk.file.internal.checksum;
+
+import de.codecentric.reedelk.runtime.api.annotation.DisplayName;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.zip.CRC32;
+import java.util.zip.Checksum;
+
+public enum ChecksumAlgorithm {
+
+    @DisplayName("None")
+    NONE {
+        @Override
+        Digest newDigest() {
+            return null;
+        }
+    },
+
+    @DisplayName("CRC32")
+    CRC32 {
+        @Override
+        Digest newDigest() {
+            return checksum(new CRC32());
+        }
+    },
+
+    @DisplayName("CRC32C")
+    CRC32C {
+        @Override
+        Digest newDigest() {
+            return checksum(Crc32c.create());
+        }
+    },
+
+    @DisplayName("MD5")
+    MD5 {
+        @Override
+        Digest newDigest() {
+            return messageDigest("MD5");
+        }
+    },
+
+    @DisplayName("SHA-1")
+    SHA_1 {
+        @Override
+        Digest newDigest() {
+            return messageDigest("SHA-1");
+        }
+    },
+
+    @DisplayName("SHA-256")
+    SHA_256 {
+        @Override
+        Digest newDigest() {
+            return messageDigest("SHA-256");
+        }
+    };
+
+    /**
+     * Returns a new digest, or null if no checksum must be computed.
+     */
+    abstract Digest newDigest();
+
+    private static Digest checksum(Checksum checksum) {
+        return new Digest() {
+            @Override
+            public void update(byte[] bytes, int offset, int length) {
+                checksum.update(bytes, offset, length);
+            }
+
+            @Override
+            public void update(ByteBuffer buffer) {
+                if (buffer.hasArray()) {
+                    checksum.update(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+                    buffer.position(buffer.limit());
+                } else {
+                    // Direct buffers are copied in small steps.
+                    byte[] step = new byte[Math.min(buffer.remaining(), 8192)];
+                    while (buffer.hasRemaining()) {
+                        int length = Math.min(step.length, buffer.remaining());
+                        buffer.get(step, 0, length);
+                        checksum.update(step, 0, length);
+                    }
+                }
+            }
+
+            @Override
+            public String value() {
+                return String.format("%08x", checksum.getValue());
+            }
+        };
+    }
+
+    private static Digest messageDigest(String algorithm) {
+        MessageDigest messageDigest;
+        try {
+            messageDigest = MessageDigest.getInstance(algorithm);
+        } catch (NoSuchAlgorithmException exception) {
+            // Every Java platform must support MD5, SHA-1 and SHA-256.
+            throw new IllegalStateException(exception);
+        }
+        return new Digest() {
+            @Override
+            public void update(byte[] bytes, int offset, int length) {
+                messageDigest.update(bytes, offset, length);
+            }
+
+            @Override
+            public void update(ByteBuffer buffer) {
+                messageDigest.update(buffer);
+            }
+
+            @Override
+            public String value() {
+                StringBuilder hex = new StringBuilder();
+                for (byte value : messageDigest.digest()) {
+                    hex.append(String.format("%02x", value));
+                }
+                return hex.toString();
+            }
+        };
+    }
+}
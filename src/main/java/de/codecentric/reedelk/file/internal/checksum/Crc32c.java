@@ -0,0 +1,84 @@
+package de.codecentric.reedelk.file.internal.checksum;
+
+import java.util.zip.Checksum;
+
+/**
+ * CRC-32C (Castagnoli), as in java.util.zip.CRC32C which is only available from Java 9.
+ * The bytes are processed 8 at a time with the 'slicing by 8' lookup tables.
+ */
+class Crc32c implements Checksum {
+
+    /**
+     * Returns the platform CRC-32C if available (Java 9+), which is hardware accelerated.
+     */
+    static Checksum create() {
+        try {
+            return (Checksum) Class.forName("java.util.zip.CRC32C").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError exception) {
+            return new Crc32c();
+        }
+    }
+
+    private static final int POLYNOMIAL = 0x82F63B78;
+    private static final int[][] TABLES = new int[8][256];
+
+    static {
+        for (int n = 0; n < 256; n++) {
+            int crc = n;
+            for (int bit = 0; bit < 8; bit++) {
+                crc = (crc & 1) != 0 ? (crc >>> 1) ^ POLYNOMIAL : crc >>> 1;
+            }
+            TABLES[0][n] = crc;
+        }
+        for (int n = 0; n < 256; n++) {
+            for (int table = 1; table < 8; table++) {
+                int previous = TABLES[table - 1][n];
+                TABLES[table][n] = (previous >>> 8) ^ TABLES[0][previous & 0xff];
+            }
+        }
+    }
+
+    private int crc = 0xFFFFFFFF;
+
+    @Override
+    public void update(int value) {
+        crc = (crc >>> 8) ^ TABLES[0][(crc ^ value) & 0xff];
+    }
+
+    @Override
+    public void update(byte[] bytes, int offset, int length) {
+        int[] t0 = TABLES[0], t1 = TABLES[1], t2 = TABLES[2], t3 = TABLES[3];
+        int[] t4 = TABLES[4], t5 = TABLES[5], t6 = TABLES[6], t7 = TABLES[7];
+        int value = crc;
+        while (length >= 8) {
+            value ^= (bytes[offset] & 0xff) |
+                    (bytes[offset + 1] & 0xff) << 8 |
+                    (bytes[offset + 2] & 0xff) << 16 |
+                    (bytes[offset + 3] & 0xff) << 24;
+            value = t7[value & 0xff] ^
+                    t6[(value >>> 8) & 0xff] ^
+                    t5[(value >>> 16) & 0xff] ^
+                    t4[value >>> 24] ^
+                    t3[bytes[offset + 4] & 0xff] ^
+                    t2[bytes[offset + 5] & 0xff] ^
+                    t1[bytes[offset + 6] & 0xff] ^
+                    t0[bytes[offset + 7] & 0xff];
+            offset += 8;
+            length -= 8;
+        }
+        while (length-- > 0) {
+            value = (value >>> 8) ^ t0[(value ^ bytes[offset++]) & 0xff];
+        }
+        crc = value;
+    }
+
+    @Override
+    public long getValue() {
+        return ~crc & 0xFFFFFFFFL;
+    }
+
+    @Override
+    public void reset() {
+        crc = 0xFFFFFFFF;
+    }
+}
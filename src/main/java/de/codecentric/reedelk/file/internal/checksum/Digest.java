@@ -0,0 +1,22 @@
+package de.codecentric.reedelk.file.internal.checksum;
+
+import java.nio.ByteBuffer;
+
+/**
+ * An incremental checksum or message digest computation.
+ */
+interface Digest {
+
+    void update(byte[] bytes, int offset, int length);
+
+    /**
+     * Updates the digest with the remaining bytes of the buffer, consuming them.
+     */
+    void update(ByteBuffer buffer);
+
+    /**
+     * Returns the lowercase hex value of the digest of all the bytes updated so far.
+     */
+    String value();
+
+}
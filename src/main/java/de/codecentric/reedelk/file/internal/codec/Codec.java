@@ -0,0 +1,29 @@
+package de.codecentric.reedelk.file.internal.codec;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * A streaming compression format: the content is decompressed while it is being read
+ * and compressed while it is being written, therefore neither the compressed nor the
+ * decompressed content is ever entirely held in memory. A new format is supported
+ * by implementing this interface and adding it to the {@link Compression} values.
+ */
+public interface Codec {
+
+    /**
+     * Returns a stream of the decompressed content of the given compressed stream,
+     * reading the compressed stream in steps of 'bufferSize' bytes.
+     */
+    InputStream decompress(InputStream compressed, int bufferSize) throws IOException;
+
+    /**
+     * Returns a stream compressing into the given stream the content written to it.
+     * The compressed content is complete only once the returned stream has been closed,
+     * which also closes the given stream. If the content could not be completely written,
+     * the returned stream must be aborted, so that the compressed content is left incomplete.
+     */
+    CompressingStream compress(OutputStream target, int bufferSize) throws IOException;
+
+}
@@ -0,0 +1,54 @@
+package de.codecentric.reedelk.file.internal.codec;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * A stream compressing the content written to it. Closing the stream writes the end of the
+ * compressed content (e.g. the gzip trailer) and frees the native memory of the compressor.
+ * A stream whose content could not be completely written must be aborted instead: the native
+ * memory is freed without writing the end of the compressed content, therefore what has been
+ * written so far is left as a visibly incomplete (hence invalid) compressed content.
+ */
+public class CompressingStream extends OutputStream {
+
+    private final OutputStream compressor;
+    private final Runnable end;
+
+    CompressingStream(OutputStream compressor, Runnable end) {
+        this.compressor = compressor;
+        this.end = end;
+    }
+
+    @Override
+    public void write(int value) throws IOException {
+        compressor.write(value);
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        compressor.write(bytes, offset, length);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        compressor.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            compressor.close();
+        } finally {
+            end.run();
+        }
+    }
+
+    /**
+     * Frees the native memory of the compressor without finishing the compressed content
+     * and without closing the target stream. It has no effect once the stream has been closed.
+     */
+    public void abort() {
+        end.run();
+    }
+}
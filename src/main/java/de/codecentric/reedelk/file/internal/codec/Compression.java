@@ -0,0 +1,28 @@
+package de.codecentric.reedelk.file.internal.codec;
+
+import de.codecentric.reedelk.runtime.api.annotation.DisplayName;
+
+public enum Compression {
+
+    @DisplayName("None")
+    NONE(null),
+
+    @DisplayName("GZIP")
+    GZIP(new GzipCodec()),
+
+    @DisplayName("Deflate")
+    DEFLATE(new DeflateCodec());
+
+    private final Codec codec;
+
+    Compression(Codec codec) {
+        this.codec = codec;
+    }
+
+    /**
+     * Returns the codec of the compression format, or null if the content is not compressed.
+     */
+    public Codec codec() {
+        return codec;
+    }
+}
@@ -0,0 +1,38 @@
+package de.codecentric.reedelk.file.internal.codec;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * The deflate format, with the zlib header and checksum. Unlike gzip,
+ * concatenated deflate streams are not a valid deflate stream.
+ * The native memory of the deflater and inflater is freed when the stream is closed (or aborted).
+ */
+class DeflateCodec implements Codec {
+
+    @Override
+    public InputStream decompress(InputStream compressed, int bufferSize) {
+        Inflater inflater = new Inflater();
+        return new InflaterInputStream(compressed, inflater, bufferSize) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    inflater.end();
+                }
+            }
+        };
+    }
+
+    @Override
+    public CompressingStream compress(OutputStream target, int bufferSize) {
+        Deflater deflater = new Deflater();
+        return new CompressingStream(new DeflaterOutputStream(target, deflater, bufferSize), deflater::end);
+    }
+}
@@ -0,0 +1,39 @@
+package de.codecentric.reedelk.file.internal.codec;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The gzip format. A file made of many concatenated gzip members (e.g. appended by
+ * many writes) is decompressed as the concatenation of the content of all the members.
+ */
+class GzipCodec implements Codec {
+
+    @Override
+    public InputStream decompress(InputStream compressed, int bufferSize) throws IOException {
+        return new GZIPInputStream(compressed, bufferSize);
+    }
+
+    @Override
+    public CompressingStream compress(OutputStream target, int bufferSize) throws IOException {
+        GzipOutputStream compressor = new GzipOutputStream(target, bufferSize);
+        return new CompressingStream(compressor, compressor::end);
+    }
+
+    /**
+     * Exposes the deflater of the gzip stream, so that it can be ended without writing the gzip trailer.
+     */
+    static class GzipOutputStream extends GZIPOutputStream {
+
+        GzipOutputStream(OutputStream target, int bufferSize) throws IOException {
+            super(target, bufferSize);
+        }
+
+        void end() {
+            def.end();
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package de.codecentric.reedelk.file.internal.commons;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static de.codecentric.reedelk.file.internal.commons.Defaults.AsyncChannel.THREADS;
+import static de.codecentric.reedelk.file.internal.commons.Defaults.AsyncChannel.THREADS_PROPERTY;
+
+/**
+ * Module wide executor of the asynchronous file channels: it executes their I/O operations
+ * (where the OS does not provide asynchronous file I/O) and it invokes their completion handlers.
+ * A thread is used only for the duration of a single operation, not for the whole transfer of a file,
+ * therefore a few threads serve any number of files being written at the same time.
+ * The number of threads can be set with the 'de.codecentric.reedelk.file.asyncChannel.threads' system property.
+ */
+public class AsyncChannelExecutor {
+
+    private static final String NAME = "file-async-channel";
+
+    private static final ExecutorService INSTANCE = create();
+
+    private AsyncChannelExecutor() {
+    }
+
+    public static ExecutorService get() {
+        return INSTANCE;
+    }
+
+    private static ExecutorService create() {
+        int threads = Math.max(1, Integer.getInteger(THREADS_PROPERTY, THREADS));
+        AtomicInteger counter = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, NAME + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
@@ -0,0 +1,44 @@
+package de.codecentric.reedelk.file.internal.commons;
+
+import de.codecentric.reedelk.runtime.api.component.OnResult;
+import de.codecentric.reedelk.runtime.api.flow.FlowContext;
+import de.codecentric.reedelk.runtime.api.message.Message;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.Callable;
+import java.util.function.Function;
+
+/**
+ * Executes the blocking part of a file operation on the module I/O scheduler and completes it
+ * through the callback of the asynchronous component: the thread running the flow (e.g. the NIO
+ * thread of a REST listener) is released as soon as the operation has been submitted.
+ * Any error, including the rejection of the operation by a saturated scheduler, is mapped by
+ * the given exception mapper and it is passed to the error callback.
+ * The callbacks are invoked from the bounded elastic scheduler, never from the module I/O
+ * scheduler: the rest of the flow, which continues from the callback thread, must not take
+ * the I/O threads (and their queue) away from the file operations.
+ */
+public class AsyncOperation {
+
+    private AsyncOperation() {
+    }
+
+    public static void execute(FlowContext flowContext,
+                               OnResult callback,
+                               Callable<Message> operation,
+                               Function<Throwable, Exception> exceptionMapper) {
+        Mono.fromCallable(operation)
+
+                .subscribeOn(IOScheduler.get())
+
+                .publishOn(Schedulers.boundedElastic())
+
+                .doOnError(throwable -> callback.onError(flowContext, exceptionMapper.apply(throwable)))
+
+                .doOnSuccess(message -> callback.onResult(flowContext, message))
+
+                // The error has been already passed to the error callback.
+                .subscribe(message -> {}, throwable -> {});
+    }
+}
@@ -0,0 +1,89 @@
+package de.codecentric.reedelk.file.internal.commons;
+
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static de.codecentric.reedelk.file.internal.commons.Defaults.BufferPool.*;
+
+/**
+ * Module wide pool of direct byte buffers, grouped by buffer capacity. A buffer is
+ * always returned on acquire: if there are no pooled buffers with the requested
+ * capacity a new one is allocated. Released buffers are only kept as long as the
+ * total capacity of the pooled buffers does not exceed the pool max size, otherwise
+ * they are left to the garbage collector.
+ * The total capacity of the direct buffers acquired and not yet released is bounded by the
+ * max direct size: above it, heap buffers are returned instead, which are not pooled. The direct
+ * memory is therefore bounded however many reads and writes are running at the same time.
+ */
+public class ByteBufferPool {
+
+    private static final ByteBufferPool INSTANCE = new ByteBufferPool(MAX_SIZE,
+            Math.max(0, Long.getLong(MAX_DIRECT_SIZE_PROPERTY, MAX_DIRECT_SIZE)));
+
+    private final long maxPooledBytes;
+    private final long maxLeasedBytes;
+    private final AtomicLong pooledBytes = new AtomicLong();
+    private final AtomicLong leasedBytes = new AtomicLong();
+    private final Map<Integer, Queue<ByteBuffer>> buffersBySize = new ConcurrentHashMap<>();
+
+    ByteBufferPool(long maxPooledBytes, long maxLeasedBytes) {
+        this.maxPooledBytes = maxPooledBytes;
+        this.maxLeasedBytes = maxLeasedBytes;
+    }
+
+    public static ByteBufferPool get() {
+        return INSTANCE;
+    }
+
+    public ByteBuffer acquire(int size) {
+        if (leasedBytes.addAndGet(size) > maxLeasedBytes) {
+            // Too much direct memory in use: a heap buffer is returned.
+            leasedBytes.addAndGet(-size);
+            return ByteBuffer.allocate(size);
+        }
+
+        ByteBuffer buffer = buffersOf(size).poll();
+        if (buffer == null) {
+            return ByteBuffer.allocateDirect(size);
+        }
+        pooledBytes.addAndGet(-size);
+        return buffer;
+    }
+
+    public void release(ByteBuffer buffer) {
+        if (buffer == null || !buffer.isDirect()) return;
+
+        int size = buffer.capacity();
+        leasedBytes.addAndGet(-size);
+
+        if (pooledBytes.addAndGet(size) > maxPooledBytes) {
+            // The pool is full: the buffer is not kept.
+            pooledBytes.addAndGet(-size);
+            return;
+        }
+
+        buffer.clear();
+        buffersOf(size).offer(buffer);
+    }
+
+    /**
+     * Gives back a buffer which must not be reused, e.g. because it might still be in use:
+     * it is no longer accounted as acquired, and it is left to the garbage collector.
+     */
+    public void discard(ByteBuffer buffer) {
+        if (buffer == null || !buffer.isDirect()) return;
+        leasedBytes.addAndGet(-buffer.capacity());
+    }
+
+    long getLeasedBytes() {
+        return leasedBytes.get();
+    }
+
+    private Queue<ByteBuffer> buffersOf(int size) {
+        return buffersBySize.computeIfAbsent(size, key -> new ConcurrentLinkedQueue<>());
+    }
+}
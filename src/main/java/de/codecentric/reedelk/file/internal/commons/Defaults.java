@@ -2,12 +2,60 @@ package de.codecentric.reedelk.file.internal.commons;
 
 public class Defaults {
 
+    public static class BufferPool {
+
+        private BufferPool() {
+        }
+
+        public static final String MAX_DIRECT_SIZE_PROPERTY = "de.codecentric.reedelk.file.bufferPool.maxDirectSize";
+
+        public static final long MAX_SIZE = 64L * 1024 * 1024;
+        public static final long MAX_DIRECT_SIZE = 256L * 1024 * 1024;
+    }
+
+    public static class IOScheduler {
+
+        private IOScheduler() {
+        }
+
+        public static final String MAX_THREADS_PROPERTY = "de.codecentric.reedelk.file.io.maxThreads";
+        public static final String MAX_QUEUED_TASKS_PROPERTY = "de.codecentric.reedelk.file.io.maxQueuedTasks";
+        public static final String VIRTUAL_THREADS_PROPERTY = "de.codecentric.reedelk.file.io.virtualThreads";
+
+        public static final int MAX_THREADS = 10 * Runtime.getRuntime().availableProcessors();
+        public static final int MAX_QUEUED_TASKS = 10_000;
+        public static final int THREAD_TTL_SECONDS = 60;
+    }
+
+    public static class AsyncChannel {
+
+        private AsyncChannel() {
+        }
+
+        public static final String THREADS_PROPERTY = "de.codecentric.reedelk.file.asyncChannel.threads";
+
+        public static final int THREADS = 2 * Runtime.getRuntime().availableProcessors();
+    }
+
+    public static class FileLock {
+
+        private FileLock() {
+        }
+
+        public static final long MAX_BACKOFF = 2000;
+    }
+
     public static class FileRead {
 
         private FileRead() {
         }
 
         public static final int READ_FILE_BUFFER_SIZE_KB = 1024;
+        public static final long MAPPED_REGION_SIZE = 256L * 1024 * 1024;
+        public static final String LINE_CHARSET = "UTF-8";
+        public static final int LINES_PER_ELEMENT = 1;
+        public static final int PARALLEL_READS = 4;
+        public static final RetryPolicy RETRY_POLICY = RetryPolicy.FIXED;
         public static final int RETRY_MAX_ATTEMPTS = 3;
         public static final long RETRY_WAIT_TIME = 500;
     }
@@ -18,7 +66,33 @@ public class Defaults {
         }
 
         public static final int WRITE_FILE_BUFFER_SIZE = 65536;
+        public static final long GROUP_COMMIT_WINDOW = 10;
+        public static final long APPENDER_IDLE_TIMEOUT = 5000;
+        public static final long ROLLING_MAX_FILE_SIZE = 0;
+        public static final int MAX_WRITES_IN_FLIGHT = 4;
+        public static final RetryPolicy RETRY_POLICY = RetryPolicy.FIXED;
         public static final int RETRY_MAX_ATTEMPTS = 3;
         public static final long RETRY_WAIT_TIME = 500;
     }
+
+    public static class FileTransfer {
+
+        private FileTransfer() {
+        }
+
+        public static final RetryPolicy RETRY_POLICY = RetryPolicy.FIXED;
+        public static final int RETRY_MAX_ATTEMPTS = 3;
+        public static final long RETRY_WAIT_TIME = 500;
+    }
+
+    public static class FileListener {
+
+        private FileListener() {
+        }
+
+        public static final String PATTERN = "*";
+        public static final long POLL_INTERVAL = 5000;
+        public static final long STABILITY_INTERVAL = 1000;
+        public static final int MAX_CONCURRENT_FILES = 4;
+    }
 }
@@ -1,50 +1,316 @@
 package de.codecentric.reedelk.file.internal.commons;
 
 import de.codecentric.reedelk.file.internal.exception.FileReadException;
+import de.codecentric.reedelk.file.internal.exception.MaxRetriesExceeded;
+import de.codecentric.reedelk.file.internal.metrics.OperationMetrics;
+import de.codecentric.reedelk.runtime.api.exception.PlatformException;
+import reactor.core.publisher.Mono;
 
 import java.io.IOException;
+import java.nio.channels.AsynchronousFileChannel;
 import java.nio.channels.FileChannel;
 import java.nio.channels.FileLock;
 import java.nio.channels.OverlappingFileLockException;
 import java.nio.file.OpenOption;
 import java.nio.file.Path;
-import java.util.function.Supplier;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import static de.codecentric.reedelk.file.internal.commons.Messages.FileRead.FILE_LOCK_ERROR;
 import static de.codecentric.reedelk.runtime.api.commons.StackTraceUtils.rootCauseMessageOf;
 
+/**
+ * Opens file channels (or asynchronous file channels) and, if required, locks the file. The lock is acquired with
+ * FileChannel#tryLock, which never blocks: if the lock is held by another process
+ * (or by another channel of this JVM) it is retried as per the retry policy by the
+ * retry command, until the max retry attempts have been made or the deadline
+ * (the longest total wait time of the retry attempts as per the retry policy) has passed. A shared lock is acquired on files
+ * opened for reading only, an exclusive lock otherwise.
+ * Before the OS lock, a permit is acquired from the module wide file lock manager, which resolves
+ * the contention between the flows of this JVM without polling: the OS lock only protects the file
+ * from other processes. The wait for the permit and the retries of the OS lock share the same deadline.
+ * The permit and the lock are released when the channel is closed.
+ * The time spent acquiring the permit and the lock is measured by the 'file-lock' metrics.
+ */
 public class FileChannelProvider {
 
-    public static FileChannel from(Path path, LockType lockType, int retryMaxAttempts, long retryWaitTime, OpenOption ...options) throws IOException {
-        FileChannel channel = FileChannel.open(path, options);
-        if (LockType.LOCK.equals(lockType)) {
+    private static final OperationMetrics metrics = OperationMetrics.of(OperationMetrics.FILE_LOCK);
+
+    /**
+     * Returns a Mono emitting the opened (and locked, if required) channel. If the lock
+     * had to be waited for, the channel is emitted on the module I/O scheduler.
+     */
+    public static Mono<FileChannel> open(Path path, LockType lockType, RetryPolicy retryPolicy, int retryMaxAttempts, long retryWaitTime, OpenOption... options) {
+        if (!LockType.LOCK.equals(lockType)) {
+            return Mono.fromCallable(() -> FileChannel.open(path, options));
+        }
+
+        boolean shared = isShared(options);
+        RetryCommand lockRetry = lockRetry(retryPolicy, retryMaxAttempts, retryWaitTime);
+
+        return Mono.defer(() -> {
+
+            OperationMetrics.Sample sample = metrics.start();
+            long deadline = lockRetry.deadline();
+
+            return permit(path, shared, deadline).flatMap(permit ->
+
+                    Mono.fromCallable(() -> FileChannel.open(path, options)).flatMap(channel -> {
+
+                        Mono<?> fileLock = shared ?
+                                Mono.fromFuture(permit.sharedFileLock(() -> sharedLock(path, lockRetry, deadline).toFuture())) :
+                                lockRetry.execute(tryLock(path, channel, false), deadline);
+
+                        // If we can't acquire the lock, we must close the channel.
+                        return fileLock
+                                .thenReturn((FileChannel) new LockedFileChannel(channel, permit))
+                                .doOnError(throwable -> CloseableUtils.closeSilently(channel))
+                                .doOnCancel(() -> CloseableUtils.closeSilently(channel));
+
+                    }).doOnError(throwable -> permit.release())
+                            .doOnCancel(permit::release))
+
+                    .doOnSuccess(channel -> sample.success())
+                    .doOnError(throwable -> sample.error());
+        });
+    }
+
+    /**
+     * Returns a Mono emitting the opened (and exclusively locked, if required) asynchronous channel,
+     * whose operations are executed by the module asynchronous channel executor. The channel must be
+     * opened for writing and the lock is acquired as for the file channels.
+     */
+    public static Mono<AsynchronousFileChannel> openAsynchronous(Path path, LockType lockType, RetryPolicy retryPolicy, int retryMaxAttempts, long retryWaitTime, OpenOption... options) {
+        Set<OpenOption> openOptions = new HashSet<>(Arrays.asList(options));
+        if (!LockType.LOCK.equals(lockType)) {
+            return Mono.fromCallable(() -> AsynchronousFileChannel.open(path, openOptions, AsyncChannelExecutor.get()));
+        }
+
+        RetryCommand lockRetry = lockRetry(retryPolicy, retryMaxAttempts, retryWaitTime);
+
+        return Mono.defer(() -> {
+
+            OperationMetrics.Sample sample = metrics.start();
+            long deadline = lockRetry.deadline();
+
+            return permit(path, false, deadline).flatMap(permit ->
+
+                    Mono.fromCallable(() -> AsynchronousFileChannel.open(path, openOptions, AsyncChannelExecutor.get())).flatMap(channel ->
+
+                            // If we can't acquire the lock, we must close the channel.
+                            lockRetry.execute(tryLock(path, () -> channel.tryLock(0L, Long.MAX_VALUE, false)), deadline)
+                                    .thenReturn((AsynchronousFileChannel) new LockedAsynchronousFileChannel(channel, permit))
+                                    .doOnError(throwable -> CloseableUtils.closeSilently(channel))
+                                    .doOnCancel(() -> CloseableUtils.closeSilently(channel)))
+
+                            .doOnError(throwable -> permit.release())
+                            .doOnCancel(permit::release))
+
+                    .doOnSuccess(channel -> sample.success())
+                    .doOnError(throwable -> sample.error());
+        });
+    }
+
+    /**
+     * Opens the channel from the calling thread, which waits for the lock (if required).
+     * It must only be used by callers which need the channel synchronously.
+     */
+    public static FileChannel from(Path path, LockType lockType, RetryPolicy retryPolicy, int retryMaxAttempts, long retryWaitTime, OpenOption... options) throws IOException {
+        if (!LockType.LOCK.equals(lockType)) {
+            return FileChannel.open(path, options);
+        }
+
+        boolean shared = isShared(options);
+        RetryCommand lockRetry = lockRetry(retryPolicy, retryMaxAttempts, retryWaitTime);
+
+        OperationMetrics.Sample sample = metrics.start();
+        try {
+            FileChannel channel = lockedChannel(path, shared, lockRetry, lockRetry.deadline(), options);
+            sample.success();
+            return channel;
+
+        } catch (IOException | RuntimeException exception) {
+            sample.error();
+            throw exception;
+        }
+    }
+
+    private static FileChannel lockedChannel(Path path, boolean shared, RetryCommand lockRetry, long deadline, OpenOption... options) throws IOException {
+        FileLockManager.Permit permit = awaitPermit(FileLockManager.get().acquire(path, shared), remainingMillis(deadline));
+        try {
+
+            FileChannel channel = FileChannel.open(path, options);
+
             // If something goes wrong while acquiring the lock,
             // we must close the channel. This is because if we
             // can't acquire the lock, the channel is still open.
             try {
-                RetryCommand.builder()
-                        .function(from(path, channel))
-                        .maxRetries(retryMaxAttempts)
-                        .waitTime(retryWaitTime)
-                        .retryOn(OverlappingFileLockException.class)
-                        .build()
-                        .execute();
+                if (shared) {
+                    // The owner of the shared lock gives up within its own deadline.
+                    await(permit.sharedFileLock(() -> sharedLock(path, lockRetry, deadline).toFuture()), Long.MAX_VALUE);
+                } else {
+                    lockRetry.executeSync(() -> tryLockOrThrow(path, channel, false), deadline);
+                }
+                return new LockedFileChannel(channel, permit);
+
             } catch (Exception exception) {
                 CloseableUtils.closeSilently(channel);
                 throw exception;
             }
+
+        } catch (IOException | RuntimeException exception) {
+            permit.release();
+            throw exception;
+
+        } catch (Exception exception) {
+            permit.release();
+            throw new PlatformException(exception);
         }
-        return channel;
     }
 
-    private static Supplier<FileLock> from(Path path, FileChannel channel) {
-        return () -> {
-            try {
-                return channel.lock();
-            } catch (IOException exception) {
-                String message = FILE_LOCK_ERROR.format(path.toString(), rootCauseMessageOf(exception));
-                throw new FileReadException(message, exception);
-            }
-        };
+    private static RetryCommand lockRetry(RetryPolicy retryPolicy, int retryMaxAttempts, long retryWaitTime) {
+        return RetryCommand.builder()
+                .policy(retryPolicy)
+                .maxRetries(retryMaxAttempts)
+                .waitTime(retryWaitTime)
+                .retryOn(LockUnavailableException.class)
+                .metrics(RetryMetrics.of(RetryMetrics.FILE_LOCK))
+                .build();
+    }
+
+    /**
+     * Flows of this JVM are coordinated through the file lock manager first: the OS lock
+     * is only acquired once no other flow of this JVM holds a conflicting permit.
+     */
+    private static Mono<FileLockManager.Permit> permit(Path path, boolean shared, long deadline) {
+        return Mono.defer(() -> {
+
+            CompletableFuture<FileLockManager.Permit> permit = FileLockManager.get().acquire(path, shared);
+            if (permit.isDone()) return Mono.just(permit.join());
+
+            long timeout = remainingMillis(deadline);
+            return Mono.<FileLockManager.Permit>create(sink -> {
+                permit.whenComplete((granted, error) -> {
+                    if (error == null) sink.success(granted);
+                });
+                sink.onCancel(() -> {
+                    // If the permit has been granted in the meantime, it is released.
+                    if (!permit.cancel(false)) permit.thenAccept(FileLockManager.Permit::release);
+                });
+            })
+                    .timeout(Duration.ofMillis(timeout), Mono.error(() -> permitNotAcquired(timeout)))
+                    // The permit is granted from the thread releasing the previous
+                    // one: the subscriber must not continue its work from that thread.
+                    .publishOn(IOScheduler.get());
+        });
+    }
+
+    /**
+     * The JVM does not allow overlapping locks, therefore the shared permits held at the same
+     * time share a single OS shared lock, held by a dedicated channel open for reading.
+     */
+    private static Mono<FileChannel> sharedLock(Path path, RetryCommand lockRetry, long deadline) {
+        return Mono.fromCallable(() -> FileChannel.open(path, StandardOpenOption.READ)).flatMap(channel ->
+                lockRetry.execute(tryLock(path, channel, true), deadline)
+                        .thenReturn(channel)
+                        .doOnError(throwable -> CloseableUtils.closeSilently(channel)));
+    }
+
+    private static Mono<FileLock> tryLock(Path path, FileChannel channel, boolean shared) {
+        return tryLock(path, () -> channel.tryLock(0L, Long.MAX_VALUE, shared));
+    }
+
+    private static Mono<FileLock> tryLock(Path path, LockAttempt attempt) {
+        return Mono.fromCallable(() -> tryLockOrThrow(path, attempt));
+    }
+
+    private static FileLock tryLockOrThrow(Path path, FileChannel channel, boolean shared) {
+        return tryLockOrThrow(path, () -> channel.tryLock(0L, Long.MAX_VALUE, shared));
+    }
+
+    private static FileLock tryLockOrThrow(Path path, LockAttempt attempt) {
+        try {
+            FileLock lock = attempt.tryLock();
+            // The lock is held by another process.
+            if (lock == null) throw new LockUnavailableException();
+            return lock;
+
+        } catch (OverlappingFileLockException exception) {
+            // The lock is held by another channel of this JVM.
+            throw new LockUnavailableException();
+
+        } catch (IOException exception) {
+            String message = FILE_LOCK_ERROR.format(path.toString(), rootCauseMessageOf(exception));
+            throw new FileReadException(message, exception);
+        }
+    }
+
+    private static FileLockManager.Permit awaitPermit(CompletableFuture<FileLockManager.Permit> permit, long timeout) throws IOException {
+        try {
+            return await(permit, timeout);
+        } catch (TimeoutException exception) {
+            // If the permit has been granted in the meantime, it is returned.
+            if (permit.cancel(false)) throw permitNotAcquired(timeout);
+            return permit.join();
+        }
+    }
+
+    private static <T> T await(CompletableFuture<T> future, long timeout) throws IOException, TimeoutException {
+        try {
+            return future.get(timeout, TimeUnit.MILLISECONDS);
+
+        } catch (ExecutionException exception) {
+            Throwable cause = exception.getCause();
+            if (cause instanceof IOException) throw (IOException) cause;
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            throw new PlatformException(cause);
+
+        } catch (InterruptedException exception) {
+            future.cancel(false);
+            Thread.currentThread().interrupt();
+            throw new PlatformException(exception);
+        }
+    }
+
+    private static long remainingMillis(long deadline) {
+        return Math.max(0, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime()));
+    }
+
+    private static MaxRetriesExceeded permitNotAcquired(long timeout) {
+        return new MaxRetriesExceeded(Messages.Misc.LOCK_HELD_IN_JVM.format(timeout));
+    }
+
+    private static boolean isShared(OpenOption... options) {
+        // A shared lock requires a channel open for reading,
+        // an exclusive lock requires a channel open for writing.
+        return !Arrays.asList(options).contains(StandardOpenOption.WRITE) &&
+                !Arrays.asList(options).contains(StandardOpenOption.APPEND);
+    }
+
+    /**
+     * A non blocking attempt to lock the whole file, either with a file channel or an asynchronous one.
+     */
+    @FunctionalInterface
+    private interface LockAttempt {
+
+        FileLock tryLock() throws IOException;
+    }
+
+    /**
+     * Thrown (and retried) when the lock is held by someone else. It is thrown at each
+     * attempt, therefore it does not fill in its stack trace.
+     */
+    private static class LockUnavailableException extends RuntimeException {
+
+        LockUnavailableException() {
+            super(null, null, false, false);
+        }
     }
 }
@@ -0,0 +1,204 @@
+package de.codecentric.reedelk.file.internal.commons;
+
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Module wide read/write locks on files, keyed by normalised file path, which coordinate
+ * the flows of this JVM before they lock the file at the OS level. The JVM does not allow
+ * two channels to hold overlapping OS locks: without these locks flows contending the same
+ * file would have to poll for the OS lock. The locks are fair: a permit is granted in arrival
+ * order, and all the shared permits waiting at the head of the queue are granted together.
+ * Waiters are completable futures, therefore no thread is blocked while waiting.
+ * A path lock is removed once it has no holders and no waiters.
+ */
+class FileLockManager {
+
+    private static final FileLockManager INSTANCE = new FileLockManager();
+
+    private final Map<Path, PathLock> locks = new ConcurrentHashMap<>();
+
+    static FileLockManager get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns a future completed with the permit once granted. If the future is cancelled
+     * before being completed, the permit is released as soon as it is granted.
+     */
+    CompletableFuture<Permit> acquire(Path path, boolean shared) {
+        Path key = path.toAbsolutePath().normalize();
+        PathLock lock = locks.compute(key, (newKey, current) -> {
+            PathLock pathLock = current == null ? new PathLock(newKey) : current;
+            pathLock.users++;
+            return pathLock;
+        });
+        return lock.acquire(shared);
+    }
+
+    private void leave(PathLock lock) {
+        locks.computeIfPresent(lock.key, (key, current) -> --current.users == 0 ? null : current);
+    }
+
+    class Permit {
+
+        private final PathLock lock;
+        private final boolean shared;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(PathLock lock, boolean shared) {
+            this.lock = lock;
+            this.shared = shared;
+        }
+
+        void release() {
+            if (released.compareAndSet(false, true)) {
+                lock.release(shared);
+            }
+        }
+
+        /**
+         * Returns the channel holding the OS shared lock on the file, which is shared by all the
+         * shared permits held at the same time. The first of them acquires it with the given supplier,
+         * and it is closed (hence the OS lock released) once all of them have been released.
+         */
+        CompletableFuture<FileChannel> sharedFileLock(Supplier<CompletableFuture<FileChannel>> lockSupplier) {
+            return lock.sharedFileLock(lockSupplier);
+        }
+    }
+
+    private class PathLock {
+
+        final Path key;
+
+        // Holders and waiters: only accessed within the locks map compute functions.
+        int users;
+
+        // Guarded by this.
+        private int readers;
+        private boolean writer;
+        private final Deque<Waiter> waiters = new ArrayDeque<>();
+        private CompletableFuture<FileChannel> sharedLock;
+        private FileChannel sharedLockChannel;
+
+        PathLock(Path key) {
+            this.key = key;
+        }
+
+        CompletableFuture<Permit> acquire(boolean shared) {
+            Waiter waiter = new Waiter(shared);
+            boolean granted;
+            synchronized (this) {
+                granted = waiters.isEmpty() && isCompatible(shared);
+                if (granted) {
+                    hold(shared);
+                } else {
+                    waiters.add(waiter);
+                }
+            }
+            if (granted) waiter.permit.complete(new Permit(this, shared));
+            return waiter.permit;
+        }
+
+        void release(boolean shared) {
+            FileChannel toClose = null;
+            List<Waiter> granted = new ArrayList<>();
+            synchronized (this) {
+                if (shared) readers--;
+                else writer = false;
+
+                if (readers == 0 && !writer) {
+                    toClose = sharedLockChannel;
+                    sharedLockChannel = null;
+                    sharedLock = null;
+                }
+
+                while (!waiters.isEmpty() && isCompatible(waiters.peek().shared)) {
+                    Waiter waiter = waiters.poll();
+                    hold(waiter.shared);
+                    granted.add(waiter);
+                }
+            }
+
+            CloseableUtils.closeSilently(toClose);
+
+            leave(this);
+
+            // The waiters are completed outside the monitor, since they
+            // might continue their work from within this thread.
+            for (Waiter waiter : granted) {
+                Permit permit = new Permit(this, waiter.shared);
+                if (!waiter.permit.complete(permit)) {
+                    // The waiter has been cancelled in the meantime.
+                    permit.release();
+                }
+            }
+        }
+
+        CompletableFuture<FileChannel> sharedFileLock(Supplier<CompletableFuture<FileChannel>> lockSupplier) {
+            CompletableFuture<FileChannel> result;
+            boolean owner = false;
+            synchronized (this) {
+                if (sharedLock == null) {
+                    sharedLock = new CompletableFuture<>();
+                    owner = true;
+                }
+                result = sharedLock;
+            }
+
+            if (owner) {
+                lockSupplier.get().whenComplete((channel, error) -> {
+                    boolean keep = false;
+                    synchronized (this) {
+                        if (sharedLock == result) {
+                            // If the lock could not be acquired, the next shared permit tries again.
+                            if (error != null) sharedLock = null;
+                            else {
+                                sharedLockChannel = channel;
+                                keep = true;
+                            }
+                        }
+                    }
+                    if (error != null) {
+                        result.completeExceptionally(error);
+                    } else {
+                        // All the shared permits have been released in the meantime.
+                        if (!keep) CloseableUtils.closeSilently(channel);
+                        result.complete(channel);
+                    }
+                });
+            }
+
+            // A copy, so that a caller cancelling it does not affect the other callers.
+            return result.thenApply(channel -> channel);
+        }
+
+        private boolean isCompatible(boolean shared) {
+            return shared ? !writer : !writer && readers == 0;
+        }
+
+        private void hold(boolean shared) {
+            if (shared) readers++;
+            else writer = true;
+        }
+    }
+
+    private static class Waiter {
+
+        final boolean shared;
+        final CompletableFuture<Permit> permit = new CompletableFuture<>();
+
+        Waiter(boolean shared) {
+            this.shared = shared;
+        }
+    }
+}
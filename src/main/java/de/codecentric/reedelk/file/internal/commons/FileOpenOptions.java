@@ -7,10 +7,10 @@ import static java.nio.file.StandardOpenOption.WRITE;
 
 public class FileOpenOptions {
 
-    public static OpenOption[] from(FileOperation fileOperation, LockType lockType) {
-        if (LockType.LOCK.equals(lockType)) {
-            return new OpenOption[] { READ, WRITE };
-        } else if (FileOperation.READ.equals(fileOperation)) {
+    public static OpenOption[] from(FileOperation fileOperation) {
+        // A file open for reading only is locked (if required) with a shared lock,
+        // therefore it does not need to be open for writing.
+        if (FileOperation.READ.equals(fileOperation)) {
             return new OpenOption[] { READ };
         } else {
             return new OpenOption[] { WRITE };
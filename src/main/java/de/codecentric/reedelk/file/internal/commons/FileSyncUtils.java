@@ -0,0 +1,31 @@
+package de.codecentric.reedelk.file.internal.commons;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+public class FileSyncUtils {
+
+    private FileSyncUtils() {
+    }
+
+    /**
+     * Syncs the entries of the given directory, so that a file created, renamed or moved
+     * into it survives a crash. Directories cannot be opened on every platform (e.g. Windows,
+     * where the entries are synced with the file itself): if so, nothing is synced.
+     */
+    public static void syncDirectory(Path directory) throws IOException {
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(directory, StandardOpenOption.READ);
+        } catch (IOException exception) {
+            return;
+        }
+        try {
+            channel.force(true);
+        } finally {
+            CloseableUtils.closeSilently(channel);
+        }
+    }
+}
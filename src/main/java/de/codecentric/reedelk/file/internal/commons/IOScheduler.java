@@ -0,0 +1,311 @@
+package de.codecentric.reedelk.file.internal.commons;
+
+import de.codecentric.reedelk.file.internal.metrics.MetricsMBeans;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import static de.codecentric.reedelk.file.internal.commons.Defaults.IOScheduler.*;
+
+/**
+ * Module wide scheduler of the blocking file I/O: writes, streaming reads, lock waits and syncs.
+ * Unlike Schedulers.elastic(), the number of threads is bounded (by default 10 x the number of
+ * processors) and so is the total number of tasks queued once all the threads are busy (by default
+ * 10000): further tasks are rejected with a RejectedExecutionException, failing the operation,
+ * instead of creating new threads or queueing tasks until the runtime runs out of memory. On Java 21+
+ * the tasks can be run on virtual threads instead, which are cheap enough not to need a bound.
+ * The scheduler is configured with the system properties:
+ * 'de.codecentric.reedelk.file.io.maxThreads', 'de.codecentric.reedelk.file.io.maxQueuedTasks'
+ * and 'de.codecentric.reedelk.file.io.virtualThreads'. The active and queued tasks are exposed
+ * as an MBean named 'de.codecentric.reedelk.file:type=Scheduler,name=file-io'.
+ * Delayed tasks wait on the parallel scheduler timer and they are queued only once due.
+ */
+public class IOScheduler implements Scheduler, IOSchedulerMXBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(IOScheduler.class);
+
+    private static final String NAME = "file-io";
+
+    private static final IOScheduler INSTANCE = create();
+
+    private static final int QUEUED = 0;
+    private static final int RUNNING = 1;
+    private static final int DONE = 2;
+
+    private final Scheduler delegate;
+    private final int maxThreads;
+    private final int maxQueuedTasks;
+    private final boolean virtualThreads;
+
+    private final AtomicInteger activeTasks = new AtomicInteger();
+    private final AtomicInteger queuedTasks = new AtomicInteger();
+    private final LongAdder completedTasks = new LongAdder();
+    private final LongAdder rejectedTasks = new LongAdder();
+
+    private IOScheduler(Scheduler delegate, int maxThreads, int maxQueuedTasks, boolean virtualThreads) {
+        this.delegate = delegate;
+        this.maxThreads = maxThreads;
+        this.maxQueuedTasks = maxQueuedTasks;
+        this.virtualThreads = virtualThreads;
+    }
+
+    public static IOScheduler get() {
+        return INSTANCE;
+    }
+
+    private static IOScheduler create() {
+        int maxThreads = Math.max(1, Integer.getInteger(MAX_THREADS_PROPERTY, MAX_THREADS));
+        int maxQueuedTasks = Math.max(1, Integer.getInteger(MAX_QUEUED_TASKS_PROPERTY, MAX_QUEUED_TASKS));
+
+        IOScheduler scheduler = null;
+        if (Boolean.getBoolean(VIRTUAL_THREADS_PROPERTY)) {
+            ExecutorService virtualThreadExecutor = virtualThreadExecutor();
+            if (virtualThreadExecutor != null) {
+                Scheduler delegate = Schedulers.fromExecutorService(virtualThreadExecutor, NAME);
+                scheduler = new IOScheduler(delegate, 0, 0, true);
+            }
+        }
+        if (scheduler == null) {
+            // The queue of each thread can hold all the queued tasks: the tasks
+            // are bounded across all the threads, when they are submitted.
+            Scheduler delegate = Schedulers.newBoundedElastic(maxThreads, maxQueuedTasks, NAME, THREAD_TTL_SECONDS, true);
+            scheduler = new IOScheduler(delegate, maxThreads, maxQueuedTasks, false);
+        }
+
+        MetricsMBeans.register("Scheduler", NAME, scheduler);
+        return scheduler;
+    }
+
+    /**
+     * Virtual threads are only available from Java 21, while the module is built for Java 8.
+     */
+    private static ExecutorService virtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException exception) {
+            logger.warn(String.format("Virtual threads are not available on this JVM: the %s scheduler uses bounded platform threads.", NAME));
+            return null;
+        }
+    }
+
+    @Override
+    public Disposable schedule(Runnable task) {
+        return submit(delegate::schedule, task, null);
+    }
+
+    /**
+     * A delayed task rejected once due is not run: it is only logged, since whoever waits for it
+     * is not known. The tasks having waiters must be scheduled with a rejection callback instead.
+     */
+    @Override
+    public Disposable schedule(Runnable task, long delay, TimeUnit unit) {
+        return schedule(task, delay, unit, IOScheduler::logRejected);
+    }
+
+    /**
+     * If the scheduler is saturated once the task is due, the task is not run and the given callback
+     * is invoked (from the timer thread) instead: it must fail (or reschedule) whatever waits for the task.
+     */
+    public Disposable schedule(Runnable task, long delay, TimeUnit unit, Consumer<RejectedExecutionException> onRejected) {
+        return delay(this::schedule, task, delay, unit, onRejected);
+    }
+
+    @Override
+    public Worker createWorker() {
+        return new IOWorker(delegate.createWorker());
+    }
+
+    @Override
+    public int getMaxThreads() {
+        return maxThreads;
+    }
+
+    @Override
+    public int getMaxQueuedTasks() {
+        return maxQueuedTasks;
+    }
+
+    @Override
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    @Override
+    public int getActiveTasks() {
+        return activeTasks.get();
+    }
+
+    @Override
+    public int getQueuedTasks() {
+        return queuedTasks.get();
+    }
+
+    @Override
+    public long getCompletedTasks() {
+        return completedTasks.sum();
+    }
+
+    @Override
+    public long getRejectedTasks() {
+        return rejectedTasks.sum();
+    }
+
+    private Disposable submit(Function<Runnable, Disposable> scheduler, Runnable runnable, Disposable.Composite tasks) {
+        // The virtual threads are not bounded, and neither are their queued tasks.
+        if (queuedTasks.incrementAndGet() > maxQueuedTasks && !virtualThreads) {
+            queuedTasks.decrementAndGet();
+            rejectedTasks.increment();
+            throw new RejectedExecutionException(NAME + " scheduler has " + maxQueuedTasks + " queued tasks already");
+        }
+        Task task = new Task(runnable, tasks);
+        if (tasks != null && !tasks.add(task)) {
+            // The worker has been disposed.
+            task.dispose();
+            throw new RejectedExecutionException(NAME + " worker has been disposed");
+        }
+        try {
+            task.future = scheduler.apply(task);
+            return task;
+
+        } catch (RejectedExecutionException exception) {
+            task.dispose();
+            rejectedTasks.increment();
+            throw exception;
+        }
+    }
+
+    /**
+     * The task is rejected once due (if so) on the timer thread, which must not run the task itself.
+     */
+    private Disposable delay(Function<Runnable, Disposable> scheduler, Runnable task, long delay, TimeUnit unit,
+                             Consumer<RejectedExecutionException> onRejected) {
+        Delayed delayed = new Delayed();
+        delayed.timer = Schedulers.parallel().schedule(() -> {
+            if (delayed.disposed) return;
+            try {
+                delayed.task = scheduler.apply(task);
+                // The delayed task might have been disposed while being scheduled.
+                if (delayed.disposed) delayed.task.dispose();
+            } catch (RejectedExecutionException exception) {
+                onRejected.accept(exception);
+            }
+        }, delay, unit);
+        return delayed;
+    }
+
+    private static void logRejected(RejectedExecutionException exception) {
+        logger.error(String.format("A delayed task has been rejected by the %s scheduler", NAME), exception);
+    }
+
+    /**
+     * The tasks of the worker are tracked, since the pending tasks are
+     * dropped by the delegate worker, without being run, once it is disposed.
+     */
+    private class IOWorker implements Worker {
+
+        private final Worker worker;
+        private final Disposable.Composite tasks = Disposables.composite();
+
+        IOWorker(Worker worker) {
+            this.worker = worker;
+        }
+
+        @Override
+        public Disposable schedule(Runnable task) {
+            return submit(worker::schedule, task, tasks);
+        }
+
+        @Override
+        public Disposable schedule(Runnable task, long delay, TimeUnit unit) {
+            return delay(this::schedule, task, delay, unit, IOScheduler::logRejected);
+        }
+
+        @Override
+        public void dispose() {
+            tasks.dispose();
+            worker.dispose();
+        }
+
+        @Override
+        public boolean isDisposed() {
+            return worker.isDisposed();
+        }
+    }
+
+    /**
+     * A task is queued until it starts running, or until it is disposed before running.
+     */
+    private class Task extends AtomicInteger implements Runnable, Disposable {
+
+        private final Runnable runnable;
+        private final Disposable.Composite tasks;
+        private volatile Disposable future;
+
+        Task(Runnable runnable, Disposable.Composite tasks) {
+            super(QUEUED);
+            this.runnable = runnable;
+            this.tasks = tasks;
+        }
+
+        @Override
+        public void run() {
+            if (!compareAndSet(QUEUED, RUNNING)) return;
+            queuedTasks.decrementAndGet();
+            activeTasks.incrementAndGet();
+            try {
+                runnable.run();
+            } finally {
+                activeTasks.decrementAndGet();
+                completedTasks.increment();
+                set(DONE);
+                if (tasks != null) tasks.remove(this);
+            }
+        }
+
+        @Override
+        public void dispose() {
+            if (compareAndSet(QUEUED, DONE)) queuedTasks.decrementAndGet();
+            if (tasks != null) tasks.remove(this);
+            Disposable scheduled = future;
+            if (scheduled != null) scheduled.dispose();
+        }
+
+        @Override
+        public boolean isDisposed() {
+            return get() == DONE;
+        }
+    }
+
+    private static class Delayed implements Disposable {
+
+        private volatile Disposable timer;
+        private volatile Disposable task;
+        private volatile boolean disposed;
+
+        @Override
+        public void dispose() {
+            disposed = true;
+            Disposable scheduledTimer = timer;
+            if (scheduledTimer != null) scheduledTimer.dispose();
+            Disposable scheduledTask = task;
+            if (scheduledTask != null) scheduledTask.dispose();
+        }
+
+        @Override
+        public boolean isDisposed() {
+            return disposed;
+        }
+    }
+}
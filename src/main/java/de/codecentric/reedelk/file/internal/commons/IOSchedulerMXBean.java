@@ -0,0 +1,22 @@
+package de.codecentric.reedelk.file.internal.commons;
+
+/**
+ * The state of the module I/O scheduler as exposed through JMX.
+ */
+public interface IOSchedulerMXBean {
+
+    int getMaxThreads();
+
+    int getMaxQueuedTasks();
+
+    boolean isVirtualThreads();
+
+    int getActiveTasks();
+
+    int getQueuedTasks();
+
+    long getCompletedTasks();
+
+    long getRejectedTasks();
+
+}
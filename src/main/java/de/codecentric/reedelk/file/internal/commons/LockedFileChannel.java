@@ -0,0 +1,125 @@
+package de.codecentric.reedelk.file.internal.commons;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * A file channel holding a permit of the module wide file lock manager,
+ * which is released when the channel is closed.
+ */
+class LockedFileChannel extends FileChannel {
+
+    private final FileChannel delegate;
+    private final FileLockManager.Permit permit;
+
+    LockedFileChannel(FileChannel delegate, FileLockManager.Permit permit) {
+        this.delegate = delegate;
+        this.permit = permit;
+    }
+
+    @Override
+    public int read(ByteBuffer dst) throws IOException {
+        return delegate.read(dst);
+    }
+
+    @Override
+    public long read(ByteBuffer[] dsts, int offset, int length) throws IOException {
+        return delegate.read(dsts, offset, length);
+    }
+
+    @Override
+    public int write(ByteBuffer src) throws IOException {
+        return delegate.write(src);
+    }
+
+    @Override
+    public long write(ByteBuffer[] srcs, int offset, int length) throws IOException {
+        return delegate.write(srcs, offset, length);
+    }
+
+    @Override
+    public long position() throws IOException {
+        return delegate.position();
+    }
+
+    @Override
+    public FileChannel position(long newPosition) throws IOException {
+        delegate.position(newPosition);
+        return this;
+    }
+
+    @Override
+    public long size() throws IOException {
+        return delegate.size();
+    }
+
+    @Override
+    public FileChannel truncate(long size) throws IOException {
+        delegate.truncate(size);
+        return this;
+    }
+
+    @Override
+    public void force(boolean metaData) throws IOException {
+        delegate.force(metaData);
+    }
+
+    @Override
+    public long transferTo(long position, long count, WritableByteChannel target) throws IOException {
+        // The JDK transfers between two file channels in the kernel only if
+        // both are JDK file channels, therefore the target must be unwrapped.
+        return delegate.transferTo(position, count, unwrap(target));
+    }
+
+    @Override
+    public long transferFrom(ReadableByteChannel src, long position, long count) throws IOException {
+        return delegate.transferFrom(unwrap(src), position, count);
+    }
+
+    @Override
+    public int read(ByteBuffer dst, long position) throws IOException {
+        return delegate.read(dst, position);
+    }
+
+    @Override
+    public int write(ByteBuffer src, long position) throws IOException {
+        return delegate.write(src, position);
+    }
+
+    @Override
+    public MappedByteBuffer map(MapMode mode, long position, long size) throws IOException {
+        return delegate.map(mode, position, size);
+    }
+
+    @Override
+    public FileLock lock(long position, long size, boolean shared) throws IOException {
+        return delegate.lock(position, size, shared);
+    }
+
+    @Override
+    public FileLock tryLock(long position, long size, boolean shared) throws IOException {
+        return delegate.tryLock(position, size, shared);
+    }
+
+    @Override
+    protected void implCloseChannel() throws IOException {
+        try {
+            delegate.close();
+        } finally {
+            permit.release();
+        }
+    }
+
+    private static WritableByteChannel unwrap(WritableByteChannel channel) {
+        return channel instanceof LockedFileChannel ? ((LockedFileChannel) channel).delegate : channel;
+    }
+
+    private static ReadableByteChannel unwrap(ReadableByteChannel channel) {
+        return channel instanceof LockedFileChannel ? ((LockedFileChannel) channel).delegate : channel;
+    }
+}
@@ -0,0 +1,64 @@
+package de.codecentric.reedelk.file.internal.commons;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+
+public class MappedBufferUtils {
+
+    private static final Logger logger = LoggerFactory.getLogger(MappedBufferUtils.class);
+
+    private static final Unmapper UNMAPPER = unmapper();
+
+    private MappedBufferUtils() {
+    }
+
+    /**
+     * Unmaps the given buffer right away, instead of when it is garbage collected: the address space
+     * (and on Windows the file, which cannot be deleted or replaced while mapped) is released at once.
+     * The buffer (and any view of it) must not be accessed anymore. If the JVM does not allow unmapping
+     * buffers, the buffer is left to the garbage collector.
+     */
+    public static void unmap(MappedByteBuffer buffer) {
+        if (buffer == null || UNMAPPER == null) return;
+        try {
+            UNMAPPER.unmap(buffer);
+        } catch (Exception exception) {
+            logger.warn("Could not unmap buffer", exception);
+        }
+    }
+
+    /**
+     * The module is built for Java 8, therefore the cleaner is looked up reflectively:
+     * Unsafe#invokeCleaner from Java 9, the cleaner of the direct buffer on Java 8.
+     */
+    private static Unmapper unmapper() {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            Object unsafe = theUnsafe.get(null);
+            return buffer -> invokeCleaner.invoke(unsafe, buffer);
+        } catch (ReflectiveOperationException | RuntimeException notJava9) {
+            // Java 8.
+        }
+        try {
+            Method cleaner = Class.forName("sun.nio.ch.DirectBuffer").getMethod("cleaner");
+            Method clean = Class.forName("sun.misc.Cleaner").getMethod("clean");
+            return buffer -> clean.invoke(cleaner.invoke(buffer));
+        } catch (ReflectiveOperationException | RuntimeException exception) {
+            logger.warn("Mapped buffers can not be unmapped on this JVM: they are unmapped once garbage collected.");
+            return null;
+        }
+    }
+
+    private interface Unmapper {
+
+        void unmap(MappedByteBuffer buffer) throws Exception;
+    }
+}
@@ -12,7 +12,12 @@ public class Messages {
         FILE_NAME_ERROR("Could not evaluate file with with name=[%s]"),
         FILE_IS_DIRECTORY("Could not read file=[%s]: is a directory"),
         FILE_LOCK_ERROR("Could not acquire lock on file=[%s]: %s"),
-        FILE_READ_ERROR("Could not read file=[%s]: %s");
+        FILE_TOO_LARGE("Could not read file=[%s]: the size to be read (%d bytes) exceeds the max size (%d bytes) which can be loaded into memory, use the 'Stream' read mode instead"),
+        FILE_READ_ERROR("Could not read file=[%s]: %s"),
+        CHARSET_NOT_VALID("Could not read file=[%s]: the charset=[%s] is not supported"),
+        COMPRESSED_RANGE_NOT_SUPPORTED("Could not read file: offset, length and tail cannot be used with compression=[%s]"),
+        RANGE_NOT_VALID("Could not read file=[%s]: offset, length and tail must not be negative (offset=[%s], length=[%s], tail=[%s])"),
+        CHECKSUM_ALGORITHM_NOT_SET("Could not read file: the expected checksum=[%s] requires a checksum algorithm, but none is selected");
 
         private String message;
 
@@ -31,7 +36,10 @@ public class Messages {
         ERROR_FILE_NOT_FOUND("Could not find file=[%s]. Check that all the directories in the path exist already or enable the option 'Create directories' in the File Write component"),
         ERROR_FILE_WRITE_ALREADY_EXISTS("Could not write file=[%s]: the file already exists"),
         ERROR_FILE_WRITE_WITH_PATH("Could not write file with path=[%s]: %s"),
-        ERROR_FILE_WRITE("Could not write file: %s");
+        ERROR_FILE_WRITE("Could not write file: %s"),
+        ERROR_APPENDER_CONFIGURATION("Could not append to file=[%s]: the file is being appended to with a different configuration (write mode, lock, durability, lock retry, idle timeout or rolling max file size) by another File Write component"),
+        CHECKSUM_ALGORITHM_NOT_SET("The expected checksum=[%s] requires a checksum algorithm, but none is selected"),
+        CHECKSUM_APPEND_NOT_VERIFIABLE("The expected checksum=[%s] can not be verified before appending: enable the option 'Shared appender' in the File Write configuration, or remove the expected checksum");
 
         private String message;
 
@@ -62,11 +70,105 @@ public class Messages {
         }
     }
 
+    public enum FileExists implements FormattedMessage {
+
+        ERROR_FILE_EXISTS("Could not check if file=[%s] exists: %s");
+
+        private String message;
+
+        FileExists(String message) {
+            this.message = message;
+        }
+
+        @Override
+        public String template() {
+            return message;
+        }
+    }
+
+    public enum FileCopy implements FormattedMessage {
+
+        SOURCE_FILE_NAME_ERROR("Could not evaluate source file with name=[%s]"),
+        TARGET_FILE_NAME_ERROR("Could not evaluate target file with name=[%s]"),
+        ERROR_FILE_COPY("Could not copy file=[%s] to=[%s]: %s"),
+        TARGET_FILE_EXISTS("Could not copy file=[%s] to=[%s]: the target file exists already and replace existing is false");
+
+        private String message;
+
+        FileCopy(String message) {
+            this.message = message;
+        }
+
+        @Override
+        public String template() {
+            return message;
+        }
+    }
+
+    public enum FileMove implements FormattedMessage {
+
+        SOURCE_FILE_NAME_ERROR("Could not evaluate source file with name=[%s]"),
+        TARGET_FILE_NAME_ERROR("Could not evaluate target file with name=[%s]"),
+        ERROR_FILE_MOVE("Could not move file=[%s] to=[%s]: %s"),
+        TARGET_FILE_EXISTS("Could not move file=[%s] to=[%s]: the target file exists already and replace existing is false");
+
+        private String message;
+
+        FileMove(String message) {
+            this.message = message;
+        }
+
+        @Override
+        public String template() {
+            return message;
+        }
+    }
+
+    public enum FileTail implements FormattedMessage {
+
+        FILE_NAME_ERROR("Could not evaluate file with with name=[%s]"),
+        CHECKPOINT_NOT_VALID("The checkpoint file=[%s] is not valid: a checkpoint file must be given"),
+        CHECKPOINT_LOAD_ERROR("Could not load checkpoint file=[%s]: %s"),
+        CHECKPOINT_SAVE_ERROR("Could not save checkpoint file=[%s]: %s");
+
+        private String message;
+
+        FileTail(String message) {
+            this.message = message;
+        }
+
+        @Override
+        public String template() {
+            return message;
+        }
+    }
+
+    public enum FileListener implements FormattedMessage {
+
+        DIRECTORY_NOT_VALID("Could not listen on directory=[%s]: it does not exist or it is not a directory"),
+        WATCH_NOT_AVAILABLE("Could not watch directory=[%s], falling back to polling: %s"),
+        SCAN_ERROR("Could not scan directory=[%s]: %s"),
+        ERROR_FILE_DISPATCH("Could not dispatch file=[%s]: %s");
+
+        private String message;
+
+        FileListener(String message) {
+            this.message = message;
+        }
+
+        @Override
+        public String template() {
+            return message;
+        }
+    }
+
     public enum Misc implements FormattedMessage {
 
         FILE_NOT_FOUND("Could not find file=[%s]"),
         FILE_LOCK_MAX_RETRY_ERROR("Could not acquire lock on file=[%s]: %s"),
-        MAX_ATTEMPTS_EXCEEDED("Max retry attempts (%d) exceeded");
+        MAX_ATTEMPTS_EXCEEDED("Gave up after %d retry attempts within %d ms"),
+        LOCK_HELD_IN_JVM("Lock held by another flow for more than %d ms"),
+        CHECKSUM_MISMATCH("Checksum mismatch: expected %s checksum=[%s] but was=[%s]");
 
         private String message;
 
@@ -3,80 +3,168 @@ package de.codecentric.reedelk.file.internal.commons;
 import de.codecentric.reedelk.file.internal.commons.Messages.Misc;
 import de.codecentric.reedelk.file.internal.exception.MaxRetriesExceeded;
 import de.codecentric.reedelk.runtime.api.exception.PlatformException;
-
-import java.util.function.Supplier;
-
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Executes an operation and retries it when it fails with the given exception type,
+ * waiting before each retry as per the retry policy. The operation is given up once
+ * the max retries have been made or the deadline (the longest total wait time of the max
+ * retries as per the retry policy, see {@link #deadline()}) has passed,
+ * with a MaxRetriesExceeded exception. Any other exception is propagated unchanged.
+ * The asynchronous execution waits on the timer, therefore no thread is blocked between
+ * the attempts, and it stops retrying as soon as it is cancelled. The attempts and the retried
+ * operations are counted and timed by the given retry metrics.
+ */
 public class RetryCommand {
 
+    private static final long MAX_TIMEOUT = Long.MAX_VALUE / 4;
+
     private final long waitTime;
     private final int maxRetries;
-    private final Supplier<?> function;
+    private final RetryPolicy policy;
+    private final RetryMetrics metrics;
     private final Class<? extends Exception> retryOnException;
 
     public static Builder builder() {
         return new Builder();
     }
 
-    private RetryCommand(Supplier<?> function, int maxRetries, long waitTime, Class<? extends Exception> retryOnException) {
+    private RetryCommand(RetryPolicy policy, int maxRetries, long waitTime, Class<? extends Exception> retryOnException, RetryMetrics metrics) {
+        this.policy = policy;
         this.waitTime = waitTime;
-        this.function = function;
         this.maxRetries = maxRetries;
+        this.metrics = metrics;
         this.retryOnException = retryOnException;
-
     }
 
-    public void execute() {
-        try {
-            function.get();
-        } catch (Exception exception) {
-
-            if (retryOnException.isAssignableFrom(exception.getClass())) {
-                // We only retry if the exception thrown is expected
-                // and eligible for the retry.
-                retry();
-
-            } else {
-                throw exception;
-            }
-        }
+    /**
+     * The operation is subscribed again at each retry, from the module I/O scheduler.
+     */
+    public <T> Mono<T> execute(Mono<T> operation) {
+        return Mono.defer(() -> attempt(operation, new Retries(deadline())));
     }
 
-    private void retry() {
-
-        int attempt = 0;
+    /**
+     * As {@link #execute(Mono)}, but the operation is given up at the given deadline (see {@link #deadline()})
+     * instead of its own: the deadline is shared with the steps preceding the operation.
+     */
+    public <T> Mono<T> execute(Mono<T> operation, long deadline) {
+        return Mono.defer(() -> attempt(operation, new Retries(deadline)));
+    }
 
-        while (attempt < maxRetries) {
+    /**
+     * The calling thread sleeps between the attempts: it must only
+     * be used by callers which need the result synchronously.
+     */
+    public <T> T executeSync(Callable<T> operation) throws Exception {
+        return executeSync(operation, deadline());
+    }
 
+    /**
+     * As {@link #executeSync(Callable)}, but the operation is given up at the given deadline.
+     */
+    public <T> T executeSync(Callable<T> operation, long deadline) throws Exception {
+        Retries retries = new Retries(deadline);
+        while (true) {
             try {
+                long attemptStart = System.nanoTime();
+                metrics.attempt();
+                T result;
+                try {
+                    result = operation.call();
+                } finally {
+                    metrics.attempted(attemptStart);
+                }
+                metrics.success(retries.start, retries.count > 0);
+                return result;
 
-                Thread.sleep(waitTime);
-
-                function.get();
+            } catch (Exception exception) {
+                if (!isRetryable(exception)) throw exception;
 
-            } catch (InterruptedException exception) {
+                long delay = retries.nextDelay();
+                if (delay < 0) throw retries.exhausted();
 
-                throw new PlatformException(exception);
+                try {
+                    Thread.sleep(delay);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw new PlatformException(interrupted);
+                }
+            }
+        }
+    }
 
-            } catch (Exception exception) {
+    private <T> Mono<T> attempt(Mono<T> operation, Retries retries) {
+        long attemptStart = System.nanoTime();
+        metrics.attempt();
+        return operation
+                .doOnTerminate(() -> metrics.attempted(attemptStart))
+                .doOnSuccess(result -> metrics.success(retries.start, retries.count > 0))
+                .onErrorResume(this::isRetryable, exception -> {
+
+                    long delay = retries.nextDelay();
+                    if (delay < 0) return Mono.error(retries.exhausted());
+
+                    return Mono.delay(Duration.ofMillis(delay))
+                            .publishOn(IOScheduler.get())
+                            .then(Mono.defer(() -> attempt(operation, retries)));
+                });
+    }
 
-                if (retryOnException.isAssignableFrom(exception.getClass())) {
+    /**
+     * Returns the deadline (as per {@link System#nanoTime()}) of an operation starting now: the longest
+     * total wait time of the max retries from now, which leaves room for all the retries of any policy,
+     * including the growing wait times of the exponential and jittered policies up to their max backoff,
+     * plus one more wait time for the attempts themselves.
+     */
+    public long deadline() {
+        long maxTotalDelay = policy.maxTotalDelay(waitTime, maxRetries);
+        long timeoutMillis = maxTotalDelay > Long.MAX_VALUE - waitTime ? Long.MAX_VALUE : maxTotalDelay + waitTime;
+        long timeout = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        // Far enough in the future, without overflowing the difference with the current time.
+        return System.nanoTime() + Math.min(timeout, MAX_TIMEOUT);
+    }
 
-                    attempt++;
+    private boolean isRetryable(Throwable exception) {
+        return retryOnException.isAssignableFrom(exception.getClass());
+    }
 
-                    if (attempt >= maxRetries) {
+    private class Retries {
 
-                        throw new MaxRetriesExceeded(Misc.MAX_ATTEMPTS_EXCEEDED.format(maxRetries));
+        final long start = System.nanoTime();
+        final long deadline;
 
-                    }
+        int count;
+        long previousDelay;
 
-                    // Otherwise we keep attempting the retry ...
+        Retries(long deadline) {
+            this.deadline = deadline;
+        }
 
-                } else {
+        /**
+         * Returns the delay in milliseconds before the next retry, or -1 if the operation must be given up.
+         */
+        long nextDelay() {
+            long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (count >= maxRetries || remaining <= 0) {
+                metrics.exhausted(start);
+                return -1;
+            }
 
-                    throw new PlatformException(exception);
+            long delay = Math.min(policy.delay(waitTime, previousDelay, count), remaining);
+            previousDelay = delay;
+            count++;
+            metrics.retry();
+            return delay;
+        }
 
-                }
-            }
+        MaxRetriesExceeded exhausted() {
+            long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            return new MaxRetriesExceeded(Misc.MAX_ATTEMPTS_EXCEEDED.format(count, elapsed));
         }
     }
 
@@ -84,11 +172,12 @@ public class RetryCommand {
 
         private long waitTime;
         private int maxRetries;
-        private Supplier<?> function;
+        private RetryPolicy policy = RetryPolicy.FIXED;
+        private RetryMetrics metrics = RetryMetrics.of("default");
         private Class<? extends Exception> retryOnException;
 
-        public Builder function(Supplier<?> function) {
-            this.function = function;
+        public Builder policy(RetryPolicy policy) {
+            this.policy = policy;
             return this;
         }
 
@@ -107,8 +196,13 @@ public class RetryCommand {
             return this;
         }
 
+        public Builder metrics(RetryMetrics metrics) {
+            this.metrics = metrics;
+            return this;
+        }
+
         public RetryCommand build() {
-            return new RetryCommand(function, maxRetries, waitTime, retryOnException);
+            return new RetryCommand(policy, maxRetries, waitTime, retryOnException, metrics);
         }
     }
 }
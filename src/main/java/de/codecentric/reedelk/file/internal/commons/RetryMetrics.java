@@ -0,0 +1,119 @@
+package de.codecentric.reedelk.file.internal.commons;
+
+import de.codecentric.reedelk.file.internal.metrics.LatencyHistogram;
+import de.codecentric.reedelk.file.internal.metrics.MetricsMBeans;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Module wide counters of the retried operations, grouped by operation name.
+ * An attempt is any execution of the operation (the first one included), a success
+ * is an operation which eventually succeeded, exhausted is an operation given up
+ * after the max retry attempts or the deadline. Besides the counters, the duration of each attempt
+ * and the total time of the retried operations (from the first attempt until the operation succeeded
+ * or was given up) are measured. The metrics of each operation are registered as an MBean
+ * named 'de.codecentric.reedelk.file:type=Retry,name=[operation name]'.
+ */
+public class RetryMetrics implements RetryMetricsMXBean {
+
+    public static final String FILE_LOCK = "file-lock";
+
+    private static final Map<String, RetryMetrics> METRICS = new ConcurrentHashMap<>();
+
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    private final LongAdder attempts = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder successes = new LongAdder();
+    private final LongAdder exhausted = new LongAdder();
+    private final LatencyHistogram attemptLatency = new LatencyHistogram();
+    private final LatencyHistogram retriedTime = new LatencyHistogram();
+
+    public static RetryMetrics of(String name) {
+        return METRICS.computeIfAbsent(name, key -> {
+            RetryMetrics metrics = new RetryMetrics();
+            MetricsMBeans.register("Retry", key, metrics);
+            return metrics;
+        });
+    }
+
+    @Override
+    public long getAttempts() {
+        return attempts.sum();
+    }
+
+    @Override
+    public long getRetries() {
+        return retries.sum();
+    }
+
+    @Override
+    public long getSuccesses() {
+        return successes.sum();
+    }
+
+    @Override
+    public long getExhausted() {
+        return exhausted.sum();
+    }
+
+    @Override
+    public double getAttemptLatencyMean() {
+        return attemptLatency.getMean() / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double getAttemptLatencyP99() {
+        return attemptLatency.getPercentile(99) / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double getAttemptLatencyMax() {
+        return attemptLatency.getMax() / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double getRetriedTimeMean() {
+        return retriedTime.getMean() / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double getRetriedTimeP99() {
+        return retriedTime.getPercentile(99) / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double getRetriedTimeMax() {
+        return retriedTime.getMax() / NANOS_PER_MILLI;
+    }
+
+    void attempt() {
+        attempts.increment();
+    }
+
+    /**
+     * Records the duration of an attempt started at the given time (see {@link System#nanoTime()}).
+     */
+    void attempted(long start) {
+        attemptLatency.record(System.nanoTime() - start);
+    }
+
+    void retry() {
+        retries.increment();
+    }
+
+    /**
+     * The total time is recorded only for the operations which have been retried at least once.
+     */
+    void success(long start, boolean retried) {
+        successes.increment();
+        if (retried) retriedTime.record(System.nanoTime() - start);
+    }
+
+    void exhausted(long start) {
+        exhausted.increment();
+        retriedTime.record(System.nanoTime() - start);
+    }
+}
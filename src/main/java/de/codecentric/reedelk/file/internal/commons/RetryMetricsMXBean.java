@@ -0,0 +1,29 @@
+package de.codecentric.reedelk.file.internal.commons;
+
+/**
+ * The counters and timings of a retried operation as exposed through JMX.
+ * The times are in milliseconds.
+ */
+public interface RetryMetricsMXBean {
+
+    long getAttempts();
+
+    long getRetries();
+
+    long getSuccesses();
+
+    long getExhausted();
+
+    double getAttemptLatencyMean();
+
+    double getAttemptLatencyP99();
+
+    double getAttemptLatencyMax();
+
+    double getRetriedTimeMean();
+
+    double getRetriedTimeP99();
+
+    double getRetriedTimeMax();
+
+}
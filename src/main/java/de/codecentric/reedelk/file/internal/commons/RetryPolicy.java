@@ -0,0 +1,97 @@
+package de.codecentric.reedelk.file.internal.commons;
+
+import de.codecentric.reedelk.runtime.api.annotation.DisplayName;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import static de.codecentric.reedelk.file.internal.commons.Defaults.FileLock.MAX_BACKOFF;
+
+/**
+ * The wait time before each retry, given the configured retry wait time,
+ * the previous wait time and the number of retries made so far. The wait time
+ * is picked (at random, except for FIXED) up to the max delay of the retry.
+ */
+public enum RetryPolicy {
+
+    @DisplayName("Fixed")
+    FIXED {
+        @Override
+        long delay(long waitTime, long previousDelay, int retries) {
+            return waitTime;
+        }
+
+        @Override
+        long maxDelay(long waitTime, long previousDelay, int retries) {
+            return waitTime;
+        }
+    },
+
+    /**
+     * The wait time doubles at each retry (up to MAX_BACKOFF) and it is picked at random
+     * between half and the whole backoff, so that contending callers do not retry at the same time.
+     */
+    @DisplayName("Exponential")
+    EXPONENTIAL {
+        @Override
+        long delay(long waitTime, long previousDelay, int retries) {
+            long backoff = maxDelay(waitTime, previousDelay, retries);
+            return backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+        }
+
+        @Override
+        long maxDelay(long waitTime, long previousDelay, int retries) {
+            return Math.min(MAX_BACKOFF, waitTime << Math.min(retries, 20));
+        }
+    },
+
+    /**
+     * The wait time is picked at random between the retry wait time and three times
+     * the previous wait time (up to MAX_BACKOFF), which spreads the retries of contending
+     * callers better than an exponential backoff, at the cost of less predictable wait times.
+     */
+    @DisplayName("Decorrelated jitter")
+    DECORRELATED_JITTER {
+        @Override
+        long delay(long waitTime, long previousDelay, int retries) {
+            long upperBound = maxDelay(waitTime, previousDelay, retries);
+            return waitTime + ThreadLocalRandom.current().nextLong(upperBound - waitTime + 1);
+        }
+
+        @Override
+        long maxDelay(long waitTime, long previousDelay, int retries) {
+            return Math.max(waitTime, Math.min(MAX_BACKOFF, previousDelay * 3));
+        }
+    };
+
+    abstract long delay(long waitTime, long previousDelay, int retries);
+
+    abstract long maxDelay(long waitTime, long previousDelay, int retries);
+
+    /**
+     * Returns the longest total wait time (in milliseconds) of the given number of retries,
+     * that is the sum of the max delays of the retries, each following the max delay of the previous one.
+     */
+    long maxTotalDelay(long waitTime, int maxRetries) {
+        long total = 0;
+        long previousDelay = 0;
+        for (int retries = 0; retries < maxRetries; retries++) {
+            long delay = maxDelay(waitTime, previousDelay, retries);
+            if (retries > 0 && delay == previousDelay) {
+                // The max delay does not grow any more: all the remaining retries wait as long.
+                return saturatedAdd(total, saturatedMultiply(delay, maxRetries - retries));
+            }
+            total = saturatedAdd(total, delay);
+            previousDelay = delay;
+        }
+        return total;
+    }
+
+    private static long saturatedAdd(long first, long second) {
+        long sum = first + second;
+        return sum < 0 ? Long.MAX_VALUE : sum;
+    }
+
+    private static long saturatedMultiply(long value, long times) {
+        return times != 0 && value > Long.MAX_VALUE / times ? Long.MAX_VALUE : value * times;
+    }
+}
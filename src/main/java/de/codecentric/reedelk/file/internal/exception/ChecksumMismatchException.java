@@ -0,0 +1,10 @@
+package de.codecentric.reedelk.file.internal.exception;
+
+import de.codecentric.reedelk.runtime.api.exception.PlatformException;
+
+public class ChecksumMismatchException extends PlatformException {
+
+    public ChecksumMismatchException(String message) {
+        super(message);
+    }
+}
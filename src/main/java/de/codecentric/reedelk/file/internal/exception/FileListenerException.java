@@ -0,0 +1,10 @@
+package de.codecentric.reedelk.file.internal.exception;
+
+import de.codecentric.reedelk.runtime.api.exception.PlatformException;
+
+public class FileListenerException extends PlatformException {
+
+    public FileListenerException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,10 @@
+package de.codecentric.reedelk.file.internal.exception;
+
+import de.codecentric.reedelk.runtime.api.exception.PlatformException;
+
+public class FileMoveException extends PlatformException {
+
+    public FileMoveException(String message, Throwable exception) {
+        super(message, exception);
+    }
+}
@@ -4,6 +4,10 @@ import de.codecentric.reedelk.runtime.api.exception.PlatformException;
 
 public class FileReadException extends PlatformException {
 
+    public FileReadException(String message) {
+        super(message);
+    }
+
     public FileReadException(String message, Throwable exception) {
         super(message, exception);
     }
@@ -4,6 +4,10 @@ import de.codecentric.reedelk.runtime.api.exception.PlatformException;
 
 public class FileWriteException extends PlatformException {
 
+    public FileWriteException(String message) {
+        super(message);
+    }
+
     public FileWriteException(String message, Throwable exception) {
         super(message, exception);
     }
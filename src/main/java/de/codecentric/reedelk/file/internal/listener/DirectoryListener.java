@@ -0,0 +1,309 @@
+package de.codecentric.reedelk.file.internal.listener;
+
+import de.codecentric.reedelk.file.internal.commons.IOScheduler;
+import de.codecentric.reedelk.file.internal.commons.Messages;
+import de.codecentric.reedelk.runtime.api.message.Message;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static de.codecentric.reedelk.runtime.api.commons.StackTraceUtils.rootCauseMessageOf;
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * Listens for new or changed files in a directory (not recursively) whose name matches
+ * the glob pattern. Changes are notified by the file system WatchService or, when it is
+ * not available or polling is configured, found by listing the directory at every poll
+ * interval and comparing size and last modified time of each file with the last seen ones.
+ * A changed file is handed over only once it is stable, i.e. its size and last modified
+ * time have not changed for the stability interval, and only while fewer than max concurrent
+ * files are being processed: the other stable files wait for a file to be done.
+ * All the listener state is confined to a single scheduler thread, the watch service
+ * (if any) is taken from a dedicated thread, the files are read on the module I/O scheduler and
+ * handed over to the flow from the bounded elastic scheduler.
+ */
+public class DirectoryListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(DirectoryListener.class);
+
+    private final Path directory;
+    private final FileHandler handler;
+    private final PathMatcher matcher;
+    private final ListenerConfiguration config;
+
+    private final ScheduledExecutorService scheduler;
+
+    // Confined to the scheduler thread.
+    private final Map<Path, FileState> handled = new HashMap<>();
+    private final Map<Path, Candidate> candidates = new LinkedHashMap<>();
+    private int inFlight;
+
+    private volatile boolean stopped;
+    private WatchService watchService;
+    private Thread watchThread;
+
+    public DirectoryListener(Path directory, ListenerConfiguration config, FileHandler handler) {
+        this.config = config;
+        this.handler = handler;
+        this.directory = directory;
+        this.matcher = directory.getFileSystem().getPathMatcher("glob:" + config.getPattern());
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "file-listener-" + directory);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void start() {
+        scheduler.execute(() -> scan(config.isProcessExisting()));
+
+        if (!ListenerMode.WATCH.equals(config.getMode()) || !watch()) {
+            schedulePolling();
+        }
+
+        long checkInterval = Math.max(10, Math.min(config.getStabilityInterval() / 4, 250));
+        scheduler.scheduleWithFixedDelay(this::check, checkInterval, checkInterval, TimeUnit.MILLISECONDS);
+    }
+
+    public void stop() {
+        stopped = true;
+        scheduler.shutdownNow();
+        if (watchService != null) {
+            try {
+                // Wakes up the watch thread.
+                watchService.close();
+            } catch (IOException exception) {
+                logger.warn("Could not close watch service", exception);
+            }
+        }
+    }
+
+    private boolean watch() {
+        try {
+            watchService = directory.getFileSystem().newWatchService();
+            directory.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+        } catch (IOException | UnsupportedOperationException exception) {
+            logger.warn(Messages.FileListener.WATCH_NOT_AVAILABLE.format(directory, rootCauseMessageOf(exception)));
+            return false;
+        }
+
+        watchThread = new Thread(this::takeEvents, "file-listener-watch-" + directory);
+        watchThread.setDaemon(true);
+        watchThread.start();
+        return true;
+    }
+
+    private void takeEvents() {
+        try {
+            while (!stopped) {
+                WatchKey key = watchService.take();
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (OVERFLOW.equals(event.kind())) {
+                        // Some events have been lost: the whole directory must be scanned.
+                        execute(() -> scan(true));
+                    } else {
+                        Path path = directory.resolve((Path) event.context());
+                        if (matcher.matches(path.getFileName())) {
+                            execute(() -> changed(path));
+                        }
+                    }
+                }
+                if (!key.reset()) {
+                    // The directory is not accessible anymore.
+                    logger.warn(Messages.FileListener.WATCH_NOT_AVAILABLE.format(directory, "watch key not valid"));
+                    schedulePolling();
+                    return;
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException | RejectedExecutionException exception) {
+            // The listener has been stopped (the polling can not be scheduled anymore).
+        }
+    }
+
+    private void schedulePolling() {
+        long pollInterval = config.getPollInterval();
+        scheduler.scheduleWithFixedDelay(() -> scan(true), pollInterval, pollInterval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Lists the directory and compares each file with the last handed over state:
+     * only new or changed files become candidates, files deleted in the meantime are forgotten.
+     * When 'notify' is false, the files found are recorded as handled (e.g. files existing on start).
+     */
+    private void scan(boolean notify) {
+        Set<Path> found = new HashSet<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, entry -> matcher.matches(entry.getFileName()))) {
+            for (Path path : stream) {
+                FileState state = FileState.of(path);
+                if (state == null) continue;
+
+                found.add(path);
+                if (!notify) handled.put(path, state);
+                else if (!state.equals(handled.get(path))) changed(path);
+            }
+        } catch (IOException | DirectoryIteratorException exception) {
+            logger.warn(Messages.FileListener.SCAN_ERROR.format(directory, rootCauseMessageOf(exception)));
+            return;
+        }
+        handled.keySet().retainAll(found);
+    }
+
+    private void changed(Path path) {
+        candidates.computeIfAbsent(path, key -> new Candidate());
+    }
+
+    /**
+     * Hands over the candidates which are stable, in the order they were found, as long as
+     * there are fewer than max concurrent files in flight.
+     */
+    private void check() {
+        long now = System.currentTimeMillis();
+        Iterator<Map.Entry<Path, Candidate>> iterator = candidates.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Path, Candidate> entry = iterator.next();
+            Path path = entry.getKey();
+            Candidate candidate = entry.getValue();
+
+            FileState state = FileState.of(path);
+            if (state == null) {
+                // The file has been deleted (or it is not a regular file).
+                iterator.remove();
+                handled.remove(path);
+
+            } else if (!state.equals(candidate.state)) {
+                candidate.state = state;
+                candidate.stableSince = now;
+
+            } else if (state.equals(handled.get(path))) {
+                // Not changed since handed over (e.g. only its access time changed).
+                iterator.remove();
+
+            } else if (now - candidate.stableSince >= config.getStabilityInterval() &&
+                    inFlight < config.getMaxConcurrentFiles()) {
+                iterator.remove();
+                handled.put(path, state);
+                dispatch(path);
+            }
+        }
+    }
+
+    /**
+     * The file is read on the module I/O scheduler, while the message is handed over to the flow from
+     * the bounded elastic scheduler, as for the asynchronous operations (see AsyncOperation): the rest of
+     * the flow must not take the I/O threads (and their queue) away from the file operations.
+     */
+    private void dispatch(Path path) {
+        inFlight++;
+
+        Runnable done = () -> execute(() -> {
+            inFlight--;
+            check();
+        });
+
+        Mono.fromCallable(() -> handler.read(path))
+
+                .subscribeOn(IOScheduler.get())
+
+                .publishOn(Schedulers.boundedElastic())
+
+                .subscribe(message -> {
+                    try {
+                        handler.onFile(message, done);
+                    } catch (Exception exception) {
+                        logger.warn(Messages.FileListener.ERROR_FILE_DISPATCH.format(path, rootCauseMessageOf(exception)), exception);
+                        done.run();
+                    }
+                }, throwable -> {
+                    if (throwable instanceof RejectedExecutionException) {
+                        // The scheduler is saturated: the file becomes a candidate again once the
+                        // current check is over, and it is handed over once found stable again.
+                        execute(() -> {
+                            inFlight--;
+                            handled.remove(path);
+                            changed(path);
+                        });
+                    } else {
+                        logger.warn(Messages.FileListener.ERROR_FILE_DISPATCH.format(path, rootCauseMessageOf(throwable)), throwable);
+                        done.run();
+                    }
+                });
+    }
+
+    private void execute(Runnable task) {
+        if (!stopped) {
+            try {
+                scheduler.execute(task);
+            } catch (RuntimeException exception) {
+                // Rejected: the listener has been stopped in the meantime.
+            }
+        }
+    }
+
+    /**
+     * Handles a stable file: the file is read from the module I/O scheduler and the
+     * resulting message is handed over from the bounded elastic scheduler.
+     */
+    public interface FileHandler {
+
+        Message read(Path path) throws Exception;
+
+        /**
+         * 'done' must be called once the message has been processed.
+         */
+        void onFile(Message message, Runnable done);
+    }
+
+    private static class Candidate {
+
+        FileState state;
+        long stableSince;
+    }
+
+    private static class FileState {
+
+        final long size;
+        final long lastModified;
+
+        FileState(long size, long lastModified) {
+            this.size = size;
+            this.lastModified = lastModified;
+        }
+
+        /**
+         * Returns null if the file does not exist or it is not a regular file.
+         */
+        static FileState of(Path path) {
+            try {
+                BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                return attributes.isRegularFile() ?
+                        new FileState(attributes.size(), attributes.lastModifiedTime().toMillis()) :
+                        null;
+            } catch (IOException exception) {
+                return null;
+            }
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            FileState fileState = (FileState) o;
+            return size == fileState.size && lastModified == fileState.lastModified;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(size, lastModified);
+        }
+    }
+}
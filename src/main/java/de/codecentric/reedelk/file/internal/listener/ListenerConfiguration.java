@@ -0,0 +1,49 @@
+package de.codecentric.reedelk.file.internal.listener;
+
+import java.util.Optional;
+
+import static de.codecentric.reedelk.file.internal.commons.Defaults.FileListener.*;
+
+public class ListenerConfiguration {
+
+    private final String pattern;
+    private final ListenerMode mode;
+    private final long pollInterval;
+    private final long stabilityInterval;
+    private final int maxConcurrentFiles;
+    private final boolean processExisting;
+
+    public ListenerConfiguration(String pattern, ListenerMode mode, Long pollInterval, Long stabilityInterval,
+                                 Integer maxConcurrentFiles, Boolean processExisting) {
+        this.pattern = Optional.ofNullable(pattern).filter(value -> !value.trim().isEmpty()).orElse(PATTERN);
+        this.mode = Optional.ofNullable(mode).orElse(ListenerMode.WATCH);
+        this.pollInterval = Optional.ofNullable(pollInterval).filter(value -> value > 0).orElse(POLL_INTERVAL);
+        this.stabilityInterval = Optional.ofNullable(stabilityInterval).filter(value -> value >= 0).orElse(STABILITY_INTERVAL);
+        this.maxConcurrentFiles = Optional.ofNullable(maxConcurrentFiles).filter(value -> value > 0).orElse(MAX_CONCURRENT_FILES);
+        this.processExisting = Optional.ofNullable(processExisting).orElse(false);
+    }
+
+    String getPattern() {
+        return pattern;
+    }
+
+    ListenerMode getMode() {
+        return mode;
+    }
+
+    long getPollInterval() {
+        return pollInterval;
+    }
+
+    long getStabilityInterval() {
+        return stabilityInterval;
+    }
+
+    int getMaxConcurrentFiles() {
+        return maxConcurrentFiles;
+    }
+
+    boolean isProcessExisting() {
+        return processExisting;
+    }
+}
@@ -0,0 +1,12 @@
+package de.codecentric.reedelk.file.internal.listener;
+
+import de.codecentric.reedelk.runtime.api.annotation.DisplayName;
+
+public enum ListenerMode {
+
+    @DisplayName("Watch service")
+    WATCH,
+
+    @DisplayName("Polling")
+    POLLING
+}
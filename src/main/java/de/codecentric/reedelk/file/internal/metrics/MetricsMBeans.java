@@ -0,0 +1,88 @@
+package de.codecentric.reedelk.file.internal.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.InstanceNotFoundException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registers the module metrics in the platform MBean server. The registered MBeans are tracked,
+ * so that they are unregistered when the module is stopped (see {@link MetricsMBeansLifecycle})
+ * and registered again if the module is started again.
+ */
+public class MetricsMBeans {
+
+    private static final Logger logger = LoggerFactory.getLogger(MetricsMBeans.class);
+
+    private static final String DOMAIN = "de.codecentric.reedelk.file";
+
+    private static final Map<ObjectName, Object> MBEANS = new ConcurrentHashMap<>();
+
+    private MetricsMBeans() {
+    }
+
+    public static void register(String type, String name, Object mbean) {
+        register(DOMAIN + ":type=" + type + ",name=" + name, mbean);
+    }
+
+    public static void register(String type, String component, String name, Object mbean) {
+        register(DOMAIN + ":type=" + type + ",component=" + component + ",name=" + name, mbean);
+    }
+
+    /**
+     * Registers again all the MBeans registered since the module was loaded.
+     */
+    static void registerAll() {
+        MBEANS.forEach(MetricsMBeans::register);
+    }
+
+    /**
+     * Unregisters all the MBeans of the module: the metrics are still collected.
+     */
+    static void unregisterAll() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        MBEANS.keySet().forEach(objectName -> {
+            try {
+                server.unregisterMBean(objectName);
+            } catch (InstanceNotFoundException exception) {
+                // Not registered (anymore).
+            } catch (Exception exception) {
+                logger.warn(String.format("Could not unregister metrics MBean=[%s]", objectName), exception);
+            }
+        });
+    }
+
+    private static void register(String objectName, Object mbean) {
+        try {
+            ObjectName name = new ObjectName(objectName);
+            MBEANS.put(name, mbean);
+            register(name, mbean);
+        } catch (Exception exception) {
+            logger.warn(String.format("Could not register metrics MBean=[%s]", objectName), exception);
+        }
+    }
+
+    /**
+     * The metrics are still collected if they could not be registered. If the module has been
+     * reloaded, the MBean registered by the previous instance of the module is replaced.
+     */
+    private static void register(ObjectName objectName, Object mbean) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            try {
+                server.registerMBean(mbean, objectName);
+            } catch (InstanceAlreadyExistsException exception) {
+                server.unregisterMBean(objectName);
+                server.registerMBean(mbean, objectName);
+            }
+        } catch (Exception exception) {
+            logger.warn(String.format("Could not register metrics MBean=[%s]", objectName), exception);
+        }
+    }
+}
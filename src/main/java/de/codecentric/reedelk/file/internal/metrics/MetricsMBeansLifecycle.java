@@ -0,0 +1,23 @@
+package de.codecentric.reedelk.file.internal.metrics;
+
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
+
+/**
+ * Activated when the module starts and deactivated when it stops: the metrics MBeans
+ * must not outlive the module, whose classes they reference, in the platform MBean server.
+ */
+@Component(immediate = true)
+public class MetricsMBeansLifecycle {
+
+    @Activate
+    public void activate() {
+        MetricsMBeans.registerAll();
+    }
+
+    @Deactivate
+    public void deactivate() {
+        MetricsMBeans.unregisterAll();
+    }
+}
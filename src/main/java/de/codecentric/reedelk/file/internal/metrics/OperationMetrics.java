@@ -0,0 +1,153 @@
+package de.codecentric.reedelk.file.internal.metrics;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.SignalType;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+
+/**
+ * Module wide metrics of the file operations, grouped by component and operation name: the number
+ * of operations, of the failed ones, of the bytes read or written and the latency histogram.
+ * Each operation is measured by a sample, started when the operation starts and recorded
+ * once when it completes or fails. The metrics of each operation are registered as an MBean named
+ * 'de.codecentric.reedelk.file:type=Operation,component=[component name],name=[operation name]',
+ * or 'de.codecentric.reedelk.file:type=Operation,name=[operation name]' for the operations shared
+ * by all the components (e.g. the file locks).
+ */
+public class OperationMetrics implements OperationMetricsMXBean {
+
+    public static final String FILE_READ = "file-read";
+    public static final String FILE_WRITE = "file-write";
+    public static final String FILE_DELETE = "file-delete";
+    public static final String FILE_EXISTS = "file-exists";
+    public static final String FILE_LOCK = "file-lock";
+
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    private static final Map<String, OperationMetrics> METRICS = new ConcurrentHashMap<>();
+
+    private final LongAdder operations = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    public static OperationMetrics of(String name) {
+        return METRICS.computeIfAbsent(name, key -> {
+            OperationMetrics metrics = new OperationMetrics();
+            MetricsMBeans.register("Operation", key, metrics);
+            return metrics;
+        });
+    }
+
+    public static OperationMetrics of(Class<?> component, String name) {
+        String componentName = component.getSimpleName();
+        return METRICS.computeIfAbsent(componentName + "/" + name, key -> {
+            OperationMetrics metrics = new OperationMetrics();
+            MetricsMBeans.register("Operation", componentName, name, metrics);
+            return metrics;
+        });
+    }
+
+    public Sample start() {
+        return new Sample();
+    }
+
+    /**
+     * Measures each subscription to the given stream, from the subscription until the stream
+     * completes, errors or it is cancelled, counting the bytes of the elements emitted.
+     */
+    public <T> Flux<T> measure(Flux<T> stream, ToLongFunction<T> sizeOf) {
+        return Flux.defer(() -> {
+            Sample sample = start();
+            return stream
+                    .doOnNext(element -> sample.bytes(sizeOf.applyAsLong(element)))
+                    .doFinally(signal -> {
+                        if (SignalType.ON_ERROR.equals(signal)) sample.error();
+                        else sample.success();
+                    });
+        });
+    }
+
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    @Override
+    public long getOperations() {
+        return operations.sum();
+    }
+
+    @Override
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    @Override
+    public long getBytes() {
+        return bytes.sum();
+    }
+
+    @Override
+    public double getLatencyMean() {
+        return latency.getMean() / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double getLatencyP50() {
+        return latency.getPercentile(50) / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double getLatencyP90() {
+        return latency.getPercentile(90) / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double getLatencyP99() {
+        return latency.getPercentile(99) / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double getLatencyP999() {
+        return latency.getPercentile(99.9) / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double getLatencyMax() {
+        return latency.getMax() / NANOS_PER_MILLI;
+    }
+
+    /**
+     * A single operation being measured: only the first success or error is recorded.
+     */
+    public class Sample {
+
+        private final long start = System.nanoTime();
+        private long sampleBytes;
+        private boolean recorded;
+
+        public void bytes(long length) {
+            sampleBytes += length;
+        }
+
+        public void success() {
+            record(false);
+        }
+
+        public void error() {
+            record(true);
+        }
+
+        private void record(boolean failed) {
+            if (recorded) return;
+            recorded = true;
+            latency.record(System.nanoTime() - start);
+            operations.increment();
+            bytes.add(sampleBytes);
+            if (failed) errors.increment();
+        }
+    }
+}
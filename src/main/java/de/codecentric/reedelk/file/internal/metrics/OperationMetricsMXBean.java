@@ -0,0 +1,26 @@
+package de.codecentric.reedelk.file.internal.metrics;
+
+/**
+ * The metrics of a file operation as exposed through JMX. Latencies are in milliseconds.
+ */
+public interface OperationMetricsMXBean {
+
+    long getOperations();
+
+    long getErrors();
+
+    long getBytes();
+
+    double getLatencyMean();
+
+    double getLatencyP50();
+
+    double getLatencyP90();
+
+    double getLatencyP99();
+
+    double getLatencyP999();
+
+    double getLatencyMax();
+
+}
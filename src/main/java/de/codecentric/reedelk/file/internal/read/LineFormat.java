@@ -0,0 +1,10 @@
+package de.codecentric.reedelk.file.internal.read;
+
+import de.codecentric.reedelk.runtime.api.annotation.DisplayName;
+
+public enum LineFormat {
+    @DisplayName("String")
+    STRING,
+    @DisplayName("Bytes")
+    BYTES
+}
@@ -0,0 +1,214 @@
+package de.codecentric.reedelk.file.internal.read;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+
+/**
+ * Splits the content of a channel into elements of 'lines per element' lines, working on the
+ * raw bytes of the read buffer: the content is never decoded to find the line terminators.
+ * The line terminator is the encoding of '\n' in the given charset, which is searched only at
+ * the code unit boundaries of the charset (e.g. every 2 bytes for UTF-16), so that it cannot be
+ * mistaken for part of another character. A '\r' before the terminator is removed as well.
+ * Each element is a slice of the read buffer, spanning its lines without the terminator of the
+ * last line: the lines of an element are separated by their original terminators.
+ * An element which does not fit in the read buffer (e.g. a line longer than the buffer) is
+ * accumulated into a larger heap buffer, so that lines straddling reads are never split.
+ * At most 'length' bytes are read from the channel. If the content starts or ends in the middle of
+ * a line (e.g. a range of the file), its first line or its last line without terminator is skipped.
+ */
+class LineSplitter {
+
+    private final ReadableByteChannel channel;
+    private final int linesPerElement;
+    private final byte[] lineFeed;
+    private final byte[] carriageReturn;
+
+    private ByteBuffer buffer;
+    private long remaining;
+    private boolean endOfStream;
+    private boolean done;
+    private boolean skipFirstLine;
+    private final boolean skipLastLine;
+
+    // Absolute indexes in the buffer: the buffer position is the start of the current element.
+    private int lineStart;
+    private int lastLineStart;
+    private int scanPosition;
+    private int lines;
+
+    LineSplitter(ReadableByteChannel channel, long length, ByteBuffer buffer, Charset charset, int linesPerElement) {
+        this(channel, length, buffer, charset, linesPerElement, false, false);
+    }
+
+    LineSplitter(ReadableByteChannel channel, long length, ByteBuffer buffer, Charset charset, int linesPerElement,
+                 boolean skipFirstLine, boolean skipLastLine) {
+        this.channel = channel;
+        this.skipFirstLine = skipFirstLine;
+        this.skipLastLine = skipLastLine;
+        this.remaining = length;
+        this.linesPerElement = linesPerElement;
+        this.lineFeed = encode(charset, '\n');
+        this.carriageReturn = encode(charset, '\r');
+        this.buffer = buffer;
+        this.buffer.clear().limit(0);
+    }
+
+    /**
+     * Returns the next element as a slice of the read buffer, which is only valid
+     * until the next call, or null if there are no more elements.
+     */
+    ByteBuffer next() throws IOException {
+        while (!done) {
+
+            int terminator = findTerminator();
+
+            if (terminator >= 0 && skipFirstLine) {
+                skipFirstLine = false;
+                lastLineStart = lineStart = scanPosition = terminator + lineFeed.length;
+                buffer.position(lineStart);
+
+            } else if (terminator >= 0) {
+                lines++;
+                lastLineStart = lineStart;
+                lineStart = scanPosition = terminator + lineFeed.length;
+                if (lines == linesPerElement) {
+                    return element(withoutCarriageReturn(terminator), lineStart);
+                }
+
+            } else if (endOfStream) {
+                done = true;
+                if (skipFirstLine) {
+                    // The content is made of the end of the skipped line only.
+                    return null;
+                } else if (lineStart < buffer.limit() && !skipLastLine) {
+                    // The last line has no terminator.
+                    return element(buffer.limit(), buffer.limit());
+                } else if (lines > 0) {
+                    // The element is not complete, but its last line has a terminator.
+                    return element(withoutCarriageReturn(lineStart - lineFeed.length), lineStart);
+                }
+
+            } else {
+                fill();
+            }
+        }
+        return null;
+    }
+
+    private ByteBuffer element(int end, int next) {
+        ByteBuffer element = buffer.duplicate();
+        element.limit(end);
+        buffer.position(next);
+        lines = 0;
+        return element;
+    }
+
+    /**
+     * Returns the index of the next line terminator after the scan position or -1 if
+     * there are no more terminators in the buffer: in this case the scan position is the
+     * index from which the search must be resumed once more bytes have been read.
+     */
+    private int findTerminator() {
+        int unit = lineFeed.length;
+        int limit = buffer.limit() - unit;
+        int index = scanPosition;
+        if (unit == 1) {
+            byte lf = lineFeed[0];
+            for (; index <= limit; index++) {
+                if (buffer.get(index) == lf) return index;
+            }
+        } else {
+            for (; index <= limit; index += unit) {
+                if (matches(index, lineFeed)) return index;
+            }
+        }
+        scanPosition = index;
+        return -1;
+    }
+
+    private int withoutCarriageReturn(int terminator) {
+        int index = terminator - carriageReturn.length;
+        return index >= lastLineStart && matches(index, carriageReturn) ? index : terminator;
+    }
+
+    private boolean matches(int index, byte[] bytes) {
+        for (int i = 0; i < bytes.length; i++) {
+            if (buffer.get(index + i) != bytes[i]) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Reads more bytes after the ones not consumed yet. The unconsumed bytes are first
+     * moved to the beginning of the buffer and, if they already fill it, into a buffer
+     * twice as large.
+     */
+    private void fill() throws IOException {
+        int offset = buffer.position();
+        if (offset > 0) {
+            buffer.compact().flip();
+            lineStart -= offset;
+            lastLineStart -= offset;
+            scanPosition -= offset;
+        }
+
+        if (buffer.limit() == buffer.capacity()) {
+            ByteBuffer larger = ByteBuffer.allocate(buffer.capacity() * 2);
+            larger.put(buffer).flip();
+            buffer = larger;
+        }
+
+        int consumed = buffer.position();
+        int length = (int) Math.min(buffer.capacity() - buffer.limit(), remaining);
+        buffer.position(buffer.limit()).limit(buffer.limit() + length);
+
+        int read = length > 0 ? channel.read(buffer) : -1;
+        if (read < 0) {
+            endOfStream = true;
+        } else {
+            remaining -= read;
+        }
+
+        buffer.limit(buffer.position()).position(consumed);
+    }
+
+    /**
+     * Returns the length of the code units of the given charset, e.g. 2 bytes for UTF-16:
+     * the lines (and the characters) can only start at the code unit boundaries.
+     */
+    static int codeUnitOf(Charset charset) {
+        return encode(charset, '\n').length;
+    }
+
+    /**
+     * Returns the length of the byte order mark written by the given charset, e.g. 2 bytes for UTF-16.
+     */
+    static int byteOrderMarkOf(Charset charset) {
+        try {
+            return charset.newEncoder().encode(CharBuffer.wrap(new char[]{'\n'})).remaining() - codeUnitOf(charset);
+        } catch (CharacterCodingException exception) {
+            throw new IllegalArgumentException(exception);
+        }
+    }
+
+    private static byte[] encode(Charset charset, char character) {
+        try {
+            // The encoding of two characters minus the encoding of one character
+            // gives the encoding of the character without any byte order mark.
+            CharsetEncoder encoder = charset.newEncoder();
+            int single = encoder.encode(CharBuffer.wrap(new char[]{character})).remaining();
+            ByteBuffer twice = encoder.reset().encode(CharBuffer.wrap(new char[]{character, character}));
+            byte[] bytes = new byte[twice.remaining() - single];
+            twice.position(twice.limit() - bytes.length);
+            twice.get(bytes);
+            return bytes;
+        } catch (CharacterCodingException exception) {
+            throw new IllegalArgumentException(exception);
+        }
+    }
+}
@@ -1,30 +1,92 @@
 package de.codecentric.reedelk.file.internal.read;
 
+import de.codecentric.reedelk.file.component.FileRead;
 import de.codecentric.reedelk.file.component.FileReadConfiguration;
+import de.codecentric.reedelk.file.internal.checksum.Checksum;
+import de.codecentric.reedelk.file.internal.checksum.ChecksumAlgorithm;
+import de.codecentric.reedelk.file.internal.codec.Codec;
+import de.codecentric.reedelk.file.internal.codec.Compression;
+import de.codecentric.reedelk.file.internal.exception.FileReadException;
 import de.codecentric.reedelk.file.internal.commons.LockType;
+import de.codecentric.reedelk.file.internal.commons.RetryPolicy;
+import de.codecentric.reedelk.file.internal.metrics.OperationMetrics;
+import de.codecentric.reedelk.runtime.api.message.MessageAttributes;
 
 import java.util.Optional;
 
 import static de.codecentric.reedelk.file.internal.commons.Defaults.FileRead.*;
+import static de.codecentric.reedelk.file.internal.commons.Messages.FileRead.CHECKSUM_ALGORITHM_NOT_SET;
+import static de.codecentric.reedelk.file.internal.commons.Messages.FileRead.COMPRESSED_RANGE_NOT_SUPPORTED;
 
 public class ReadConfigurationDecorator {
 
     private final LockType lockType;
     private final int readByfferSizeInKb;
     private final long retryWaitTime;
+    private final RetryPolicy retryPolicy;
     private final int retryMaxAttempts;
+    private final String lineCharset;
+    private final LineFormat lineFormat;
+    private final int linesPerElement;
+    private final int parallelReads;
+    private final ReadRange range;
+    private final Compression compression;
+    private final Checksum checksum;
+    private final OperationMetrics metrics;
 
     public ReadConfigurationDecorator(FileReadConfiguration configuration) {
+        this(configuration, ReadRange.ALL);
+    }
+
+    public ReadConfigurationDecorator(FileReadConfiguration configuration, ReadRange range) {
+        this(configuration, range, null, null);
+    }
+
+    public ReadConfigurationDecorator(FileReadConfiguration configuration, ReadRange range,
+                                      String expectedChecksum, MessageAttributes attributes) {
+        this(FileRead.class, configuration, range, expectedChecksum, attributes);
+    }
+
+    /**
+     * The checksum (if any) is put into the given attributes once the content has been completely read.
+     * The reads are measured by the 'file-read' metrics of the given component.
+     */
+    public ReadConfigurationDecorator(Class<?> component, FileReadConfiguration configuration, ReadRange range,
+                                      String expectedChecksum, MessageAttributes attributes) {
+        this.metrics = OperationMetrics.of(component, OperationMetrics.FILE_READ);
         this.lockType = getLockType(configuration);
         this.readByfferSizeInKb = getReadBufferSizeInKb(configuration);
+        this.retryPolicy = getRetryPolicy(configuration);
         this.retryMaxAttempts = getRetryMaxAttempts(configuration);
         this.retryWaitTime = getRetryWaitTime(configuration);
+        this.lineCharset = getLineCharset(configuration);
+        this.lineFormat = getLineFormat(configuration);
+        this.linesPerElement = getLinesPerElement(configuration);
+        this.parallelReads = getParallelReads(configuration);
+        this.range = range;
+        this.compression = getCompression(configuration);
+        ChecksumAlgorithm checksumAlgorithm = getChecksumAlgorithm(configuration);
+        if (Checksum.isMissingAlgorithm(checksumAlgorithm, expectedChecksum)) {
+            throw new FileReadException(CHECKSUM_ALGORITHM_NOT_SET.format(expectedChecksum.trim()));
+        }
+        this.checksum = attributes == null ? null :
+                Checksum.of(checksumAlgorithm, expectedChecksum, attributes);
+
+        // The offsets of a range refer to the decompressed content,
+        // which can only be found by decompressing the file from the beginning.
+        if (range != ReadRange.ALL && compression != Compression.NONE) {
+            throw new FileReadException(COMPRESSED_RANGE_NOT_SUPPORTED.format(compression));
+        }
     }
 
     LockType getLockType() {
         return lockType;
     }
 
+    RetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
     int getRetryMaxAttempts() {
         return retryMaxAttempts;
     }
@@ -37,6 +99,38 @@ public class ReadConfigurationDecorator {
         return readByfferSizeInKb;
     }
 
+    String getLineCharset() {
+        return lineCharset;
+    }
+
+    LineFormat getLineFormat() {
+        return lineFormat;
+    }
+
+    int getLinesPerElement() {
+        return linesPerElement;
+    }
+
+    int getParallelReads() {
+        return parallelReads;
+    }
+
+    ReadRange getRange() {
+        return range;
+    }
+
+    Codec getCodec() {
+        return compression.codec();
+    }
+
+    Checksum getChecksum() {
+        return checksum;
+    }
+
+    OperationMetrics getMetrics() {
+        return metrics;
+    }
+
     private int getReadBufferSizeInKb(FileReadConfiguration configuration) {
         Integer kiloBytes = Optional.ofNullable(configuration)
                 .flatMap(config -> Optional.ofNullable(config.getReadBufferSize()))
@@ -51,6 +145,12 @@ public class ReadConfigurationDecorator {
                 .orElse(LockType.NONE);
     }
 
+    private RetryPolicy getRetryPolicy(FileReadConfiguration configuration) {
+        return Optional.ofNullable(configuration)
+                .flatMap(config -> Optional.ofNullable(config.getLockRetryPolicy()))
+                .orElse(RETRY_POLICY);
+    }
+
     private int getRetryMaxAttempts(FileReadConfiguration configuration) {
         return Optional.ofNullable(configuration)
                 .flatMap(config -> Optional.ofNullable(config.getLockRetryMaxAttempts()))
@@ -63,6 +163,45 @@ public class ReadConfigurationDecorator {
                 .orElse(RETRY_WAIT_TIME);
     }
 
+    private String getLineCharset(FileReadConfiguration configuration) {
+        return Optional.ofNullable(configuration)
+                .flatMap(config -> Optional.ofNullable(config.getLineCharset()))
+                .filter(charset -> !charset.trim().isEmpty())
+                .orElse(LINE_CHARSET);
+    }
+
+    private LineFormat getLineFormat(FileReadConfiguration configuration) {
+        return Optional.ofNullable(configuration)
+                .flatMap(config -> Optional.ofNullable(config.getLineFormat()))
+                .orElse(LineFormat.STRING);
+    }
+
+    private int getLinesPerElement(FileReadConfiguration configuration) {
+        return Optional.ofNullable(configuration)
+                .flatMap(config -> Optional.ofNullable(config.getLinesPerElement()))
+                .filter(lines -> lines > 0)
+                .orElse(LINES_PER_ELEMENT);
+    }
+
+    private int getParallelReads(FileReadConfiguration configuration) {
+        return Optional.ofNullable(configuration)
+                .flatMap(config -> Optional.ofNullable(config.getParallelReads()))
+                .filter(reads -> reads > 0)
+                .orElse(PARALLEL_READS);
+    }
+
+    private Compression getCompression(FileReadConfiguration configuration) {
+        return Optional.ofNullable(configuration)
+                .flatMap(config -> Optional.ofNullable(config.getCompression()))
+                .orElse(Compression.NONE);
+    }
+
+    private ChecksumAlgorithm getChecksumAlgorithm(FileReadConfiguration configuration) {
+        return Optional.ofNullable(configuration)
+                .flatMap(config -> Optional.ofNullable(config.getChecksum()))
+                .orElse(ChecksumAlgorithm.NONE);
+    }
+
     private static int bytesFrom(int kilobytes) {
         // calculates Bytes
         // 1 KB = 1024 bytes
@@ -0,0 +1,208 @@
+package de.codecentric.reedelk.file.internal.read;
+
+import de.codecentric.reedelk.file.component.FileReadConfiguration;
+import de.codecentric.reedelk.file.internal.attribute.FileAttribute;
+import de.codecentric.reedelk.file.internal.exception.NotValidFileException;
+import de.codecentric.reedelk.runtime.api.commons.MimeTypeUtils;
+import de.codecentric.reedelk.runtime.api.component.Component;
+import de.codecentric.reedelk.runtime.api.flow.FlowContext;
+import de.codecentric.reedelk.runtime.api.message.Message;
+import de.codecentric.reedelk.runtime.api.message.MessageBuilder;
+import de.codecentric.reedelk.runtime.api.message.content.MimeType;
+import de.codecentric.reedelk.runtime.api.script.ScriptEngineService;
+import de.codecentric.reedelk.runtime.api.script.dynamicvalue.DynamicLong;
+import de.codecentric.reedelk.runtime.api.script.dynamicvalue.DynamicString;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static de.codecentric.reedelk.file.internal.commons.Messages.FileRead.FILE_NAME_ERROR;
+import static de.codecentric.reedelk.runtime.api.commons.StringUtils.isBlank;
+
+/**
+ * Evaluates the properties of the File Read components (File Read and File Read Async) against
+ * the message being processed: the path of the file, the mime type, the range and the expected
+ * checksum. The dynamic values are evaluated by the calling thread, while the returned read
+ * can be executed by any thread.
+ */
+public class ReadEvaluator {
+
+    private final Class<? extends Component> component;
+    private final ScriptEngineService service;
+    private final DynamicString fileName;
+    private final String basePath;
+    private final boolean autoMimeType;
+    private final String mimeType;
+    private final DynamicLong offset;
+    private final DynamicLong length;
+    private final DynamicLong tail;
+    private final DynamicString expectedChecksum;
+    private final FileReadConfiguration configuration;
+    private final ReadStrategy strategy;
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    private ReadEvaluator(Builder builder) {
+        this.component = builder.component;
+        this.service = builder.service;
+        this.fileName = builder.fileName;
+        this.basePath = builder.basePath;
+        this.autoMimeType = builder.autoMimeType;
+        this.mimeType = builder.mimeType;
+        this.offset = builder.offset;
+        this.length = builder.length;
+        this.tail = builder.tail;
+        this.expectedChecksum = builder.expectedChecksum;
+        this.configuration = builder.configuration;
+        this.strategy = ReadStrategy.of(builder.mode);
+    }
+
+    /**
+     * Throws a NotValidFileException if the file name could not be evaluated,
+     * a FileReadException if the range or the expected checksum are not valid.
+     */
+    public Read evaluate(FlowContext flowContext, Message message) {
+        String filePath = service.evaluate(fileName, flowContext, message)
+                .orElseThrow(() -> new NotValidFileException(FILE_NAME_ERROR.format(fileName.toString())));
+
+        MimeType actualMimeType = MimeTypeUtils.fromFileExtensionOrParse(autoMimeType, filePath, mimeType, MimeType.APPLICATION_BINARY);
+
+        Path path = isBlank(basePath) ? Paths.get(filePath) : Paths.get(basePath, filePath);
+
+        Long offsetValue = evaluate(offset, flowContext, message);
+        Long lengthValue = evaluate(length, flowContext, message);
+        Long tailValue = evaluate(tail, flowContext, message);
+        ReadRange range = ReadRange.of(path, offsetValue, lengthValue, tailValue);
+
+        FileAttribute attributes = new FileAttribute(path.toString());
+
+        String expected = expectedChecksum == null ? null :
+                service.evaluate(expectedChecksum, flowContext, message).orElse(null);
+
+        ReadConfigurationDecorator config = new ReadConfigurationDecorator(component, configuration, range, expected, attributes);
+
+        return new Read(path, actualMimeType, config, attributes);
+    }
+
+    private Long evaluate(DynamicLong value, FlowContext flowContext, Message message) {
+        return value == null ? null : service.evaluate(value, flowContext, message).orElse(null);
+    }
+
+    /**
+     * A read of the evaluated file with the read strategy of the component.
+     */
+    public class Read {
+
+        private final Path path;
+        private final MimeType mimeType;
+        private final ReadConfigurationDecorator config;
+        private final FileAttribute attributes;
+
+        private Read(Path path, MimeType mimeType, ReadConfigurationDecorator config, FileAttribute attributes) {
+            this.path = path;
+            this.mimeType = mimeType;
+            this.config = config;
+            this.attributes = attributes;
+        }
+
+        public Path path() {
+            return path;
+        }
+
+        /**
+         * Returns the message with the content of the file: for the lazy read modes
+         * the file is only read when the payload of the message is consumed.
+         */
+        public Message execute() {
+            MessageBuilder messageBuilder = MessageBuilder.get(component);
+
+            strategy.read(path, config, messageBuilder, mimeType);
+
+            return messageBuilder
+                    .attributes(attributes)
+                    .build();
+        }
+    }
+
+    public static class Builder {
+
+        private Class<? extends Component> component;
+        private ScriptEngineService service;
+        private DynamicString fileName;
+        private String basePath;
+        private boolean autoMimeType;
+        private String mimeType;
+        private ReadMode mode;
+        private DynamicLong offset;
+        private DynamicLong length;
+        private DynamicLong tail;
+        private DynamicString expectedChecksum;
+        private FileReadConfiguration configuration;
+
+        public Builder component(Class<? extends Component> component) {
+            this.component = component;
+            return this;
+        }
+
+        public Builder service(ScriptEngineService service) {
+            this.service = service;
+            return this;
+        }
+
+        public Builder fileName(DynamicString fileName) {
+            this.fileName = fileName;
+            return this;
+        }
+
+        public Builder basePath(String basePath) {
+            this.basePath = basePath;
+            return this;
+        }
+
+        public Builder autoMimeType(boolean autoMimeType) {
+            this.autoMimeType = autoMimeType;
+            return this;
+        }
+
+        public Builder mimeType(String mimeType) {
+            this.mimeType = mimeType;
+            return this;
+        }
+
+        public Builder mode(ReadMode mode) {
+            this.mode = mode;
+            return this;
+        }
+
+        public Builder offset(DynamicLong offset) {
+            this.offset = offset;
+            return this;
+        }
+
+        public Builder length(DynamicLong length) {
+            this.length = length;
+            return this;
+        }
+
+        public Builder tail(DynamicLong tail) {
+            this.tail = tail;
+            return this;
+        }
+
+        public Builder expectedChecksum(DynamicString expectedChecksum) {
+            this.expectedChecksum = expectedChecksum;
+            return this;
+        }
+
+        public Builder configuration(FileReadConfiguration configuration) {
+            this.configuration = configuration;
+            return this;
+        }
+
+        public ReadEvaluator build() {
+            return new ReadEvaluator(this);
+        }
+    }
+}
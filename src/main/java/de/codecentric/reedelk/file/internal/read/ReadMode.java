@@ -6,5 +6,11 @@ public enum ReadMode {
     @DisplayName("Default")
     DEFAULT,
     @DisplayName("Stream")
-    STREAM
+    STREAM,
+    @DisplayName("Mapped")
+    MAPPED,
+    @DisplayName("Lines")
+    LINES,
+    @DisplayName("Parallel")
+    PARALLEL
 }
@@ -0,0 +1,80 @@
+package de.codecentric.reedelk.file.internal.read;
+
+import de.codecentric.reedelk.file.internal.exception.FileReadException;
+
+import java.nio.file.Path;
+
+import static de.codecentric.reedelk.file.internal.commons.Messages.FileRead.RANGE_NOT_VALID;
+
+/**
+ * The region of a file to be read: either 'length' bytes starting from 'offset'
+ * (up to the end of the file if the length is not given) or the last 'tail' bytes of the file.
+ * The region is resolved against the size of the file only when the file is read, and it is
+ * always clamped to the file: a region past the end of the file is empty.
+ */
+public class ReadRange {
+
+    public static final ReadRange ALL = new ReadRange(0, null, null);
+
+    private final long offset;
+    private final Long length;
+    private final Long tail;
+
+    private ReadRange(long offset, Long length, Long tail) {
+        this.offset = offset;
+        this.length = length;
+        this.tail = tail;
+    }
+
+    public static ReadRange of(long offset, Long length) {
+        return new ReadRange(offset, length, null);
+    }
+
+    public static ReadRange tail(long tail) {
+        return new ReadRange(0, null, tail);
+    }
+
+    /**
+     * Returns the range of the file with the given path from the (optional) offset, length and tail:
+     * the tail takes precedence over the offset and the length, and the whole file is read if none is given.
+     */
+    public static ReadRange of(Path path, Long offset, Long length, Long tail) {
+        if ((offset != null && offset < 0) ||
+                (length != null && length < 0) ||
+                (tail != null && tail < 0)) {
+            String error = RANGE_NOT_VALID.format(path.toString(), offset, length, tail);
+            throw new FileReadException(error);
+        }
+
+        if (tail != null) {
+            return ReadRange.tail(tail);
+        } else if (offset != null || length != null) {
+            return ReadRange.of(offset != null ? offset : 0, length);
+        } else {
+            return ReadRange.ALL;
+        }
+    }
+
+    /**
+     * Returns true if the range extends to the end of the file, wherever the end is when read.
+     */
+    boolean isOpenEnded() {
+        return tail == null && length == null;
+    }
+
+    long start(long fileSize) {
+        if (tail != null) {
+            return Math.max(0, fileSize - tail);
+        }
+        return Math.min(offset, fileSize);
+    }
+
+    long end(long fileSize) {
+        if (tail != null || length == null) {
+            return fileSize;
+        }
+        long start = start(fileSize);
+        // The end is clamped to the file size, also when offset + length would overflow.
+        return length > fileSize - start ? fileSize : start + length;
+    }
+}
@@ -9,4 +9,17 @@ public interface ReadStrategy {
 
     void read(Path path, ReadConfigurationDecorator decorator, MessageBuilder messageBuilder, MimeType actualMimeType);
 
+    static ReadStrategy of(ReadMode mode) {
+        if (ReadMode.STREAM.equals(mode)) {
+            return new ReadStrategyStream();
+        } else if (ReadMode.MAPPED.equals(mode)) {
+            return new ReadStrategyMapped();
+        } else if (ReadMode.LINES.equals(mode)) {
+            return new ReadStrategyLines();
+        } else if (ReadMode.PARALLEL.equals(mode)) {
+            return new ReadStrategyParallel();
+        } else {
+            return new ReadStrategyDefault();
+        }
+    }
 }
@@ -1,86 +1,145 @@
 package de.codecentric.reedelk.file.internal.read;
 
-import de.codecentric.reedelk.file.internal.commons.LockType;
+import de.codecentric.reedelk.file.internal.checksum.Checksum;
+import de.codecentric.reedelk.file.internal.commons.CloseableUtils;
+import de.codecentric.reedelk.file.internal.commons.FileChannelProvider;
+import de.codecentric.reedelk.file.internal.commons.FileOpenOptions;
+import de.codecentric.reedelk.file.internal.commons.FileOperation;
 import de.codecentric.reedelk.file.internal.exception.FileReadException;
+import de.codecentric.reedelk.file.internal.metrics.OperationMetrics;
 import de.codecentric.reedelk.runtime.api.message.MessageBuilder;
 import de.codecentric.reedelk.runtime.api.message.content.MimeType;
-import de.codecentric.reedelk.file.internal.commons.Messages;
 
-import java.io.File;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.RandomAccessFile;
+import java.io.InputStream;
 import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
 import java.nio.channels.FileChannel;
-import java.nio.channels.FileLock;
+import java.nio.file.OpenOption;
 import java.nio.file.Path;
+import java.util.Arrays;
+
+import static de.codecentric.reedelk.file.internal.commons.Messages.FileRead.FILE_TOO_LARGE;
 
 public class ReadStrategyDefault implements ReadStrategy {
 
-    private static final String LOCK_MODE = "rw";
-    private static final String READ_MODE = "r";
+    // Some VMs reserve header words in an array, therefore
+    // the max array size is slightly smaller than Integer.MAX_VALUE.
+    private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
 
     @Override
     public void read(Path path, ReadConfigurationDecorator decorator, MessageBuilder messageBuilder, MimeType actualMimeType) {
 
+        OperationMetrics.Sample sample = decorator.getMetrics().start();
+
         FileChannel channel = null;
-        FileLock lock = null;
         try {
-            LockType lockType = decorator.getLockType();
 
-            // If we want to acquire a lock on the file we must open it using read/write.
-            String openMode = LockType.LOCK.equals(lockType) ? LOCK_MODE : READ_MODE;
+            OpenOption[] openOptions = FileOpenOptions.from(FileOperation.READ);
+
+            // The lock (if any) is released when the channel is closed.
+            channel = FileChannelProvider.from(
+                    path,
+                    decorator.getLockType(),
+                    decorator.getRetryPolicy(),
+                    decorator.getRetryMaxAttempts(),
+                    decorator.getRetryWaitTime(),
+                    openOptions);
+
+            byte[] bytes = decorator.getCodec() == null ?
+                    read(path, channel, decorator) :
+                    decompress(path, channel, decorator);
+
+            Checksum checksum = decorator.getChecksum();
+            if (checksum != null) {
+                Checksum.Calculation calculation = checksum.start();
+                calculation.update(bytes);
+                calculation.complete();
+            }
 
-            // Get a file channel for the file
-            File file = new File(path.toString());
-            channel = new RandomAccessFile(file, openMode).getChannel();
+            messageBuilder.withBinary(bytes, actualMimeType);
 
-            // Use the file channel to create a lock on the file.
-            // This method blocks until it can retrieve the lock.
-            if (LockType.LOCK.equals(lockType)) {
-                lock = channel.lock();
-            }
+            sample.bytes(bytes.length);
+            sample.success();
 
-            int fileSize = (int) channel.size();
+        } catch (Exception exception) {
+            sample.error();
+            throw ReadStrategySupport.mapException(path, exception);
 
-            // We directly allocate a buffer with the entire file size.
-            // We won't use ByteBuffer do avoid creating new byte arrays
-            // in order to grow capacity when new buffer data is read.
-            ByteBuffer byteBuffer = ByteBuffer.allocate(fileSize);
+        } finally {
+            CloseableUtils.closeSilently(channel);
+        }
+    }
 
-            channel.read(byteBuffer);
+    private static byte[] read(Path path, FileChannel channel, ReadConfigurationDecorator decorator) throws IOException {
+        // Only the given range of the file is read (by default the whole file).
+        long fileSize = channel.size();
+        long start = decorator.getRange().start(fileSize);
+        long readSize = decorator.getRange().end(fileSize) - start;
 
-            byteBuffer.flip();
+        if (readSize > MAX_ARRAY_SIZE) {
+            String message = FILE_TOO_LARGE.format(path.toString(), readSize, MAX_ARRAY_SIZE);
+            throw new FileReadException(message);
+        }
 
-            byte[] bytes = byteBuffer.array();
+        channel.position(start);
 
-            byteBuffer.clear();
+        // We directly allocate a byte array with the entire size to be read
+        // to avoid creating new byte arrays in order to grow capacity
+        // when new data is read.
+        byte[] bytes = new byte[(int) readSize];
 
-            messageBuilder.withBinary(bytes, actualMimeType);
+        ByteBuffer byteBuffer = ByteBuffer.wrap(bytes);
 
-        } catch (IOException exception) {
+        // The channel copies the data into a heap buffer through a temporary direct
+        // buffer as big as the remaining bytes of the heap buffer: reading in steps of
+        // 'read buffer size' bytes keeps the temporary direct buffer small and cached.
+        // A single read might also return fewer bytes than requested, therefore
+        // we keep reading until the buffer is full or the end of the file is reached.
+        int readStepSize = decorator.getReadBufferSizeInKb();
 
-            String message = Messages.FileRead.FILE_READ_ERROR.format(path, exception.getMessage());
+        while (byteBuffer.position() < byteBuffer.capacity()) {
 
-            throw new FileReadException(message, exception);
+            long nextLimit = (long) byteBuffer.position() + readStepSize;
 
-        } finally {
+            byteBuffer.limit((int) Math.min(nextLimit, byteBuffer.capacity()));
 
-            // Release the lock - if it is not null!
-            if (lock != null) {
-                try {
-                    lock.release();
-                } catch (IOException e) {
-                    // nothing we can do here
-                }
-            }
+            if (channel.read(byteBuffer) < 0) break;
+
+        }
 
-            if (channel != null) {
-                try {
-                    channel.close();
-                } catch (IOException e) {
-                    // nothing we can do here
+        // The file might have been truncated while it was being read.
+        if (byteBuffer.position() < bytes.length) {
+            bytes = Arrays.copyOf(bytes, byteBuffer.position());
+        }
+
+        return bytes;
+    }
+
+    /**
+     * The decompressed size is not known in advance: the content is decompressed
+     * in steps of 'read buffer size' bytes into a growing buffer.
+     */
+    private static byte[] decompress(Path path, FileChannel channel, ReadConfigurationDecorator decorator) throws IOException {
+        int readStepSize = decorator.getReadBufferSizeInKb();
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream(readStepSize);
+
+        // Closing the decompressing stream frees its native memory (and it closes the channel as well).
+        try (InputStream input = decorator.getCodec().decompress(Channels.newInputStream(channel), readStepSize)) {
+
+            byte[] step = new byte[readStepSize];
+            int read;
+            while ((read = input.read(step)) >= 0) {
+                if (output.size() > MAX_ARRAY_SIZE - read) {
+                    String message = FILE_TOO_LARGE.format(path.toString(), (long) output.size() + read, MAX_ARRAY_SIZE);
+                    throw new FileReadException(message);
                 }
+                output.write(step, 0, read);
             }
         }
+
+        return output.toByteArray();
     }
 }
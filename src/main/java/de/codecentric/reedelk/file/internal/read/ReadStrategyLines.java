@@ -0,0 +1,244 @@
+package de.codecentric.reedelk.file.internal.read;
+
+import de.codecentric.reedelk.file.internal.codec.Codec;
+import de.codecentric.reedelk.file.internal.checksum.Checksum;
+import de.codecentric.reedelk.file.internal.commons.ByteBufferPool;
+import de.codecentric.reedelk.file.internal.commons.CloseableUtils;
+import de.codecentric.reedelk.file.internal.commons.FileChannelProvider;
+import de.codecentric.reedelk.file.internal.commons.FileOpenOptions;
+import de.codecentric.reedelk.file.internal.commons.FileOperation;
+import de.codecentric.reedelk.file.internal.commons.IOScheduler;
+import de.codecentric.reedelk.file.internal.exception.FileReadException;
+import de.codecentric.reedelk.runtime.api.message.MessageBuilder;
+import de.codecentric.reedelk.runtime.api.message.content.MimeType;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.util.function.Function;
+
+import static de.codecentric.reedelk.file.internal.commons.Messages.FileRead.CHARSET_NOT_VALID;
+
+/**
+ * Streams the file line by line: each element of the stream is made of 'lines per element'
+ * lines, either as a string or as bytes. The file is read as with the 'Stream' read mode,
+ * and the lines are split directly on the bytes of the read buffer by the {@link LineSplitter}:
+ * each element is copied (or decoded) once, straight from the read buffer.
+ */
+public class ReadStrategyLines implements ReadStrategy {
+
+    @Override
+    public void read(Path path, ReadConfigurationDecorator config, MessageBuilder messageBuilder, MimeType actualMimeType) {
+
+        ReadStrategySupport.checkIsRegularFile(path);
+
+        Charset charset = charsetOf(path, config.getLineCharset());
+
+        OpenOption[] openOptions = FileOpenOptions.from(FileOperation.READ);
+
+        if (LineFormat.BYTES.equals(config.getLineFormat())) {
+            Flux<byte[]> stream = lines(path, config, openOptions, charset, element -> {
+                byte[] bytes = new byte[element.remaining()];
+                element.get(bytes);
+                return bytes;
+            });
+            messageBuilder.withBinary(stream, actualMimeType);
+
+        } else {
+            Flux<String> stream = lines(path, config, openOptions, charset,
+                    element -> charset.decode(element).toString());
+            messageBuilder.withString(stream, actualMimeType);
+        }
+    }
+
+    private static <T> Flux<T> lines(Path path, ReadConfigurationDecorator config, OpenOption[] openOptions,
+                                     Charset charset, Function<ByteBuffer, T> mapper) {
+        // The channel is opened only when a consumer subscribes to the payload stream
+        // and it is closed when the stream completes, errors or it is cancelled.
+        Flux<ByteBuffer> elements = Flux.usingWhen(FileChannelProvider.open(
+                path,
+                config.getLockType(),
+                config.getRetryPolicy(),
+                config.getRetryMaxAttempts(),
+                config.getRetryWaitTime(),
+                openOptions),
+
+                channel -> elements(channel, config, charset),
+
+                channel -> Mono.fromRunnable(() -> CloseableUtils.closeSilently(channel)))
+
+                // The file is opened and read from the module I/O scheduler, never from the
+                // thread of the consumer, which might be a non-blocking (e.g. NIO) thread.
+                .subscribeOn(IOScheduler.get());
+
+        // The elements are views of the read buffer: they are measured and mapped
+        // synchronously, before the next element is read into the buffer.
+        return config.getMetrics().measure(elements, ByteBuffer::remaining)
+                .map(mapper)
+                .onErrorMap(exception -> ReadStrategySupport.mapException(path, exception));
+    }
+
+    /**
+     * As for the 'Stream' read mode, the generator reads only as many lines as requested by
+     * the downstream consumer and the read buffer is leased from the module wide pool.
+     * Only the lines of the given range of the file are read, while the lines of a
+     * compressed file are split on its content, decompressed while it is being read.
+     */
+    private static Flux<ByteBuffer> elements(FileChannel channel, ReadConfigurationDecorator config, Charset charset) {
+        ByteBufferPool pool = ByteBufferPool.get();
+        int readBufferSize = config.getReadBufferSizeInKb();
+        int linesPerElement = config.getLinesPerElement();
+
+        ReadRange range = config.getRange();
+        Codec codec = config.getCodec();
+
+        return Flux.<ByteBuffer, Splitter>generate(() -> {
+
+            ReadableByteChannel source;
+            long length;
+            boolean skipFirstLine = false;
+            boolean skipLastLine = false;
+            if (codec != null) {
+                source = Channels.newChannel(codec.decompress(Channels.newInputStream(channel), readBufferSize));
+                length = Long.MAX_VALUE;
+
+            } else {
+                // As for the 'Stream' read mode, an open ended range is read until the end of the file.
+                long size = channel.size();
+                long start = range.start(size);
+                long end = range.isOpenEnded() ? Long.MAX_VALUE : range.end(size);
+
+                // A range might start or end in the middle of a line, or of a character: its lines are the
+                // lines starting at or after the start of the range, and ending within the range. The start
+                // is aligned to the code units of the charset, and the code unit before it is read as well:
+                // the first line read, which started before the range, is skipped. A last line without
+                // terminator is skipped as well, unless the range ends at the end of the file.
+                if (start > 0) {
+                    int unit = LineSplitter.codeUnitOf(charset);
+                    start = (start + unit - 1) / unit * unit - unit;
+                    // The code units before the first line of the file are its byte order mark (if any).
+                    skipFirstLine = start >= LineSplitter.byteOrderMarkOf(charset);
+                    if (!skipFirstLine) start = 0;
+                }
+                skipLastLine = end < size;
+
+                channel.position(start);
+                source = channel;
+                length = end == Long.MAX_VALUE ? Long.MAX_VALUE : end - start;
+            }
+
+            // The checksum (if any) is computed on the bytes read by the splitter, line terminators included.
+            Checksum.Calculation calculation = null;
+            if (config.getChecksum() != null) {
+                calculation = config.getChecksum().start();
+                source = new ChecksumChannel(source, calculation);
+            }
+
+            ByteBuffer buffer = pool.acquire(readBufferSize);
+            return new Splitter(source, buffer, new LineSplitter(source, length, buffer, charset, linesPerElement, skipFirstLine, skipLastLine), calculation);
+
+        }, (state, sink) -> {
+
+            try {
+
+                ByteBuffer element = state.splitter.next();
+
+                if (element != null) {
+                    sink.next(element);
+                } else {
+                    if (state.calculation != null) state.calculation.complete();
+                    sink.complete();
+                }
+
+            } catch (IOException exception) {
+                sink.error(exception);
+            }
+
+            return state;
+
+        }, state -> {
+            CloseableUtils.closeSilently(state.source);
+            pool.release(state.buffer);
+        });
+    }
+
+    private static Charset charsetOf(Path path, String charsetName) {
+        Charset charset;
+        try {
+            charset = Charset.forName(charsetName);
+        } catch (IllegalArgumentException exception) {
+            String message = CHARSET_NOT_VALID.format(path.toString(), charsetName);
+            throw new FileReadException(message, exception);
+        }
+        // The line terminators are found by their encoding in the charset.
+        if (!charset.canEncode()) {
+            String message = CHARSET_NOT_VALID.format(path.toString(), charsetName);
+            throw new FileReadException(message);
+        }
+        return charset;
+    }
+
+    /**
+     * The generator state: the channel the lines are read from, the pooled read buffer,
+     * which must be released even if the splitter has grown it, the splitter using it
+     * and the checksum calculation (if any).
+     */
+    static class Splitter {
+
+        final ReadableByteChannel source;
+        final ByteBuffer buffer;
+        final LineSplitter splitter;
+        final Checksum.Calculation calculation;
+
+        Splitter(ReadableByteChannel source, ByteBuffer buffer, LineSplitter splitter, Checksum.Calculation calculation) {
+            this.source = source;
+            this.buffer = buffer;
+            this.splitter = splitter;
+            this.calculation = calculation;
+        }
+    }
+
+    /**
+     * Updates the checksum calculation with the bytes read from the wrapped channel.
+     */
+    static class ChecksumChannel implements ReadableByteChannel {
+
+        private final ReadableByteChannel channel;
+        private final Checksum.Calculation calculation;
+
+        ChecksumChannel(ReadableByteChannel channel, Checksum.Calculation calculation) {
+            this.channel = channel;
+            this.calculation = calculation;
+        }
+
+        @Override
+        public int read(ByteBuffer destination) throws IOException {
+            int start = destination.position();
+            int read = channel.read(destination);
+            if (read > 0) {
+                ByteBuffer bytesRead = destination.duplicate();
+                bytesRead.limit(start + read);
+                bytesRead.position(start);
+                calculation.update(bytesRead);
+            }
+            return read;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return channel.isOpen();
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
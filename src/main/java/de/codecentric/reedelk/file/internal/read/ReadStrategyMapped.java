@@ -0,0 +1,134 @@
+package de.codecentric.reedelk.file.internal.read;
+
+import de.codecentric.reedelk.file.internal.checksum.Checksum;
+import de.codecentric.reedelk.file.internal.commons.CloseableUtils;
+import de.codecentric.reedelk.file.internal.commons.FileChannelProvider;
+import de.codecentric.reedelk.file.internal.commons.FileOpenOptions;
+import de.codecentric.reedelk.file.internal.commons.FileOperation;
+import de.codecentric.reedelk.file.internal.commons.IOScheduler;
+import de.codecentric.reedelk.file.internal.commons.MappedBufferUtils;
+import de.codecentric.reedelk.runtime.api.message.MessageBuilder;
+import de.codecentric.reedelk.runtime.api.message.content.MimeType;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+
+import static de.codecentric.reedelk.file.internal.commons.Defaults.FileRead.MAPPED_REGION_SIZE;
+
+/**
+ * Reads the file through a memory mapping of the file channel. The file is mapped
+ * region by region (each region at most MAPPED_REGION_SIZE bytes, which also removes
+ * the 2GB limit of a single mapping) and each region is emitted in chunks of
+ * 'read buffer size' bytes. The content is copied straight from the page cache into
+ * the emitted chunks, without any intermediate read buffer. Each region is unmapped
+ * as soon as it has been read, rather than when it is garbage collected.
+ */
+public class ReadStrategyMapped implements ReadStrategy {
+
+    @Override
+    public void read(Path path, ReadConfigurationDecorator config, MessageBuilder messageBuilder, MimeType actualMimeType) {
+
+        ReadStrategySupport.checkIsRegularFile(path);
+
+        if (config.getCodec() != null) {
+            // A compressed file can only be decompressed sequentially.
+            messageBuilder.withBinary(ReadStrategyStream.stream(path, config), actualMimeType);
+            return;
+        }
+
+        int readBufferSize = config.getReadBufferSizeInKb();
+
+        OpenOption[] openOptions = FileOpenOptions.from(FileOperation.READ);
+
+        // The channel is opened only when a consumer subscribes to the payload stream
+        // and it is closed when the stream completes, errors or it is cancelled.
+        Flux<byte[]> content = Flux.usingWhen(FileChannelProvider.open(
+                path,
+                config.getLockType(),
+                config.getRetryPolicy(),
+                config.getRetryMaxAttempts(),
+                config.getRetryWaitTime(),
+                openOptions),
+
+                channel -> chunks(channel, config.getRange(), readBufferSize),
+
+                channel -> Mono.fromRunnable(() -> CloseableUtils.closeSilently(channel)))
+
+                // The file is opened and read from the module I/O scheduler, never from the
+                // thread of the consumer, which might be a non-blocking (e.g. NIO) thread.
+                .subscribeOn(IOScheduler.get());
+
+        // The checksum (if any) is computed on the chunks as they are emitted.
+        Flux<byte[]> stream = ReadStrategySupport.measure(Checksum.computeOn(content, config.getChecksum()), config)
+                .onErrorMap(exception -> ReadStrategySupport.mapException(path, exception));
+
+        messageBuilder.withBinary(stream, actualMimeType);
+    }
+
+    /**
+     * The generator maps the next region only once the current one has been entirely emitted.
+     * Only the given range of the file is mapped. Each region is unmapped as soon as it has been
+     * emitted, or when the stream terminates: the chunks are copies, which never refer to the region.
+     */
+    private static Flux<byte[]> chunks(FileChannel channel, ReadRange range, int readBufferSize) {
+        return Flux.<byte[], Mapping>generate(() -> new Mapping(channel.size(), range), (mapping, sink) -> {
+
+            try {
+
+                if (mapping.region == null || !mapping.region.hasRemaining()) {
+
+                    // The region has been entirely copied into the emitted chunks.
+                    mapping.unmap();
+
+                    if (mapping.position >= mapping.end) {
+                        sink.complete();
+                        return mapping;
+                    }
+
+                    long regionSize = Math.min(MAPPED_REGION_SIZE, mapping.end - mapping.position);
+                    mapping.region = channel.map(FileChannel.MapMode.READ_ONLY, mapping.position, regionSize);
+                    mapping.position += regionSize;
+                }
+
+                byte[] chunk = new byte[Math.min(readBufferSize, mapping.region.remaining())];
+
+                mapping.region.get(chunk);
+
+                sink.next(chunk);
+
+            } catch (IOException exception) {
+                sink.error(exception);
+            }
+
+            return mapping;
+
+        }, Mapping::unmap);
+    }
+
+    /**
+     * The generator state: the end of the range to be mapped, resolved against the size of the
+     * file when the stream was subscribed, the position of the next region to be mapped and the
+     * current mapped region.
+     */
+    static class Mapping {
+
+        final long end;
+        long position;
+        MappedByteBuffer region;
+
+        Mapping(long size, ReadRange range) {
+            this.position = range.start(size);
+            this.end = range.end(size);
+        }
+
+        void unmap() {
+            MappedBufferUtils.unmap(region);
+            region = null;
+        }
+    }
+}
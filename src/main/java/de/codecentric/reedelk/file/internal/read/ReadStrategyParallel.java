@@ -0,0 +1,125 @@
+package de.codecentric.reedelk.file.internal.read;
+
+import de.codecentric.reedelk.file.internal.checksum.Checksum;
+import de.codecentric.reedelk.file.internal.commons.ByteBufferPool;
+import de.codecentric.reedelk.file.internal.commons.CloseableUtils;
+import de.codecentric.reedelk.file.internal.commons.FileChannelProvider;
+import de.codecentric.reedelk.file.internal.commons.FileOpenOptions;
+import de.codecentric.reedelk.file.internal.commons.FileOperation;
+import de.codecentric.reedelk.file.internal.commons.IOScheduler;
+import de.codecentric.reedelk.runtime.api.message.MessageBuilder;
+import de.codecentric.reedelk.runtime.api.message.content.MimeType;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Reads the file splitting it into chunks of 'read buffer size' bytes, which are read
+ * concurrently with positional reads on the same channel by up to 'parallel reads' workers
+ * and emitted in file order. A chunk is read only when there is room for it: at most
+ * 'parallel reads' chunks are read ahead of the consumer, waiting to be emitted in order.
+ * The workers are taken from the module I/O scheduler.
+ */
+public class ReadStrategyParallel implements ReadStrategy {
+
+    @Override
+    public void read(Path path, ReadConfigurationDecorator config, MessageBuilder messageBuilder, MimeType actualMimeType) {
+
+        ReadStrategySupport.checkIsRegularFile(path);
+
+        if (config.getCodec() != null) {
+            // A compressed file can only be decompressed sequentially.
+            messageBuilder.withBinary(ReadStrategyStream.stream(path, config), actualMimeType);
+            return;
+        }
+
+        OpenOption[] openOptions = FileOpenOptions.from(FileOperation.READ);
+
+        // The channel is opened only when a consumer subscribes to the payload stream
+        // and it is closed when the stream completes, errors or it is cancelled.
+        Flux<byte[]> content = Flux.usingWhen(FileChannelProvider.open(
+                path,
+                config.getLockType(),
+                config.getRetryPolicy(),
+                config.getRetryMaxAttempts(),
+                config.getRetryWaitTime(),
+                openOptions),
+
+                channel -> chunks(channel, config.getRange(), config.getReadBufferSizeInKb(), config.getParallelReads()),
+
+                channel -> Mono.fromRunnable(() -> CloseableUtils.closeSilently(channel)));
+
+        // The checksum (if any) is computed on the chunks once they are back in file order.
+        Flux<byte[]> stream = ReadStrategySupport.measure(Checksum.computeOn(content, config.getChecksum()), config)
+                .onErrorMap(exception -> ReadStrategySupport.mapException(path, exception));
+
+        messageBuilder.withBinary(stream, actualMimeType);
+    }
+
+    /**
+     * The range is resolved against the size of the file when the stream is subscribed.
+     * Flux.flatMapSequential subscribes to at most 'parallel reads' chunk reads at a time and
+     * it emits their results in subscription order, buffering the chunks read out of order.
+     */
+    private static Flux<byte[]> chunks(FileChannel channel, ReadRange range, int chunkSize, int parallelReads) {
+        return Flux.defer(() -> {
+
+            long size;
+            try {
+                size = channel.size();
+            } catch (IOException exception) {
+                return Flux.error(exception);
+            }
+
+            long start = range.start(size);
+            long end = range.end(size);
+
+            return Flux.<Long, Long>generate(() -> start, (position, sink) -> {
+                if (position < end) {
+                    sink.next(position);
+                } else {
+                    sink.complete();
+                }
+                return position + chunkSize;
+
+            }).flatMapSequential(position -> Mono.fromCallable(() -> {
+
+                int length = (int) Math.min(chunkSize, end - position);
+                return chunk(channel, position, chunkSize, length);
+
+            }).subscribeOn(IOScheduler.get()), parallelReads, 1);
+        });
+    }
+
+    private static byte[] chunk(FileChannel channel, long position, int chunkSize, int length) throws IOException {
+        // The buffer is always acquired with the chunk size, so that the pool can reuse it for any chunk:
+        // the last chunk, shorter than the others, only reads up to its length.
+        ByteBuffer byteBuffer = ByteBufferPool.get().acquire(chunkSize);
+        try {
+
+            byteBuffer.limit(length);
+
+            // A single read might return fewer bytes than requested.
+            while (byteBuffer.hasRemaining()) {
+                if (channel.read(byteBuffer, position + byteBuffer.position()) < 0) break;
+            }
+
+            byteBuffer.flip();
+
+            byte[] chunk = new byte[byteBuffer.remaining()];
+
+            byteBuffer.get(chunk);
+
+            return chunk;
+
+        } finally {
+            ByteBufferPool.get().release(byteBuffer);
+        }
+    }
+}
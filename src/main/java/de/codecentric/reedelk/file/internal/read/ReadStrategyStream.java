@@ -1,61 +1,95 @@
 package de.codecentric.reedelk.file.internal.read;
 
+import de.codecentric.reedelk.file.internal.codec.Codec;
+import de.codecentric.reedelk.file.internal.checksum.Checksum;
+import de.codecentric.reedelk.file.internal.commons.ByteBufferPool;
+import de.codecentric.reedelk.file.internal.commons.CloseableUtils;
 import de.codecentric.reedelk.file.internal.commons.FileChannelProvider;
 import de.codecentric.reedelk.file.internal.commons.FileOpenOptions;
 import de.codecentric.reedelk.file.internal.commons.FileOperation;
-import de.codecentric.reedelk.file.internal.exception.FileReadException;
-import de.codecentric.reedelk.file.internal.exception.MaxRetriesExceeded;
-import de.codecentric.reedelk.file.internal.exception.NotValidFileException;
+import de.codecentric.reedelk.file.internal.commons.IOScheduler;
 import de.codecentric.reedelk.runtime.api.message.MessageBuilder;
 import de.codecentric.reedelk.runtime.api.message.content.MimeType;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
 import java.nio.channels.FileChannel;
-import java.nio.file.Files;
-import java.nio.file.NoSuchFileException;
 import java.nio.file.OpenOption;
 import java.nio.file.Path;
-
-import static de.codecentric.reedelk.file.internal.commons.Messages.FileRead.FILE_IS_DIRECTORY;
-import static de.codecentric.reedelk.file.internal.commons.Messages.FileRead.FILE_READ_ERROR;
-import static de.codecentric.reedelk.file.internal.commons.Messages.Misc.FILE_LOCK_MAX_RETRY_ERROR;
-import static de.codecentric.reedelk.file.internal.commons.Messages.Misc.FILE_NOT_FOUND;
-import static de.codecentric.reedelk.runtime.api.commons.StackTraceUtils.rootCauseMessageOf;
+import java.util.Arrays;
 
 public class ReadStrategyStream implements ReadStrategy {
 
     public void read(Path path, ReadConfigurationDecorator config, MessageBuilder messageBuilder, MimeType actualMimeType) {
 
-        if (Files.isDirectory(path)) {
-            String message = FILE_IS_DIRECTORY.format(path.toString());
-            throw new NotValidFileException(message);
-        }
+        ReadStrategySupport.checkIsRegularFile(path);
 
-        if (!Files.isRegularFile(path)) {
-            String message = FILE_NOT_FOUND.format(path.toString());
-            throw new NotValidFileException(message);
-        }
+        messageBuilder.withBinary(stream(path, config), actualMimeType);
+    }
+
+    /**
+     * Returns the stream of the chunks of the given range of the file,
+     * or of the decompressed content if the file is compressed.
+     */
+    public static Flux<byte[]> stream(Path path, ReadConfigurationDecorator config) {
+
+        OpenOption[] openOptions = FileOpenOptions.from(FileOperation.READ);
+
+        // The channel is opened only when a consumer subscribes to the payload stream
+        // and it is closed when the stream completes, errors or it is cancelled.
+        // The checksum (if any) is computed on the chunks as they are emitted.
+        Flux<byte[]> content = Flux.usingWhen(FileChannelProvider.open(
+                path,
+                config.getLockType(),
+                config.getRetryPolicy(),
+                config.getRetryMaxAttempts(),
+                config.getRetryWaitTime(),
+                openOptions),
+
+                channel -> config.getCodec() == null ?
+                        chunks(channel, config.getRange(), config.getReadBufferSizeInKb()) :
+                        decompressedChunks(channel, config.getCodec(), config.getReadBufferSizeInKb()),
+
+                channel -> Mono.fromRunnable(() -> CloseableUtils.closeSilently(channel)))
+
+                // The file is opened and read from the module I/O scheduler, never from the
+                // thread of the consumer, which might be a non-blocking (e.g. NIO) thread.
+                .subscribeOn(IOScheduler.get());
+
+        return ReadStrategySupport.measure(Checksum.computeOn(content, config.getChecksum()), config)
+                .onErrorMap(exception -> ReadStrategySupport.mapException(path, exception));
+    }
 
-        Flux<byte[]> stream = Flux.create(sink -> {
+    /**
+     * The generator reads one chunk for each chunk requested by the downstream consumer,
+     * therefore no matter how slow the consumer is, there is at most one read buffer in flight.
+     * The read buffer is a direct buffer leased from the module wide pool: the channel reads
+     * directly into it without an intermediate copy. The buffer is returned to the pool
+     * when the stream completes, errors or it is cancelled. Only the given range of the file
+     * is read, resolved against the size of the file when the stream is subscribed.
+     */
+    private static Flux<byte[]> chunks(FileChannel channel, ReadRange range, int readBufferSize) {
+        return Flux.<byte[], Region>generate(() -> new Region(channel, range, readBufferSize), (region, sink) -> {
 
-            // This consumer is created only when a consumer
-            // subscribes to the payload stream.
+            try {
 
-            OpenOption[] openOptions = FileOpenOptions.from(FileOperation.READ, config.getLockType());
+                ByteBuffer byteBuffer = region.buffer;
 
-            try (FileChannel channel = FileChannelProvider.from(
-                    path,
-                    config.getLockType(),
-                    config.getRetryMaxAttempts(),
-                    config.getRetryWaitTime(),
-                    openOptions)) {
+                long remaining = region.end - region.position;
 
-                int readBufferSize = config.getReadBufferSizeInKb();
+                if (remaining < byteBuffer.capacity()) {
+                    byteBuffer.limit((int) remaining);
+                }
+
+                int read = remaining > 0 ? channel.read(byteBuffer, region.position) : -1;
 
-                ByteBuffer byteBuffer = ByteBuffer.allocate(readBufferSize);
+                if (read > 0) {
 
-                while (channel.read(byteBuffer) > 0) {
+                    region.position += read;
 
                     byteBuffer.flip();
 
@@ -63,33 +97,74 @@ public class ReadStrategyStream implements ReadStrategy {
 
                     byteBuffer.get(chunk);
 
+                    byteBuffer.clear();
+
                     sink.next(chunk);
 
-                    byteBuffer.clear();
+                } else {
+                    sink.complete();
                 }
 
-                byteBuffer.clear();
+            } catch (IOException exception) {
+                sink.error(exception);
+            }
+
+            return region;
+
+        }, region -> ByteBufferPool.get().release(region.buffer));
+    }
+
+    /**
+     * The compressed content is read and decompressed only as requested by the downstream consumer:
+     * each chunk is made of 'read buffer size' decompressed bytes (or less for the last chunk).
+     * The decompressing stream is closed, freeing its native memory, when the stream completes,
+     * errors or it is cancelled.
+     */
+    private static Flux<byte[]> decompressedChunks(FileChannel channel, Codec codec, int readBufferSize) {
+        return Flux.<byte[], InputStream>generate(() -> codec.decompress(Channels.newInputStream(channel), readBufferSize), (input, sink) -> {
 
-                sink.complete();
+            try {
 
-            } catch (NoSuchFileException exception) {
-                String message = FILE_NOT_FOUND.format(path.toString());
-                sink.error(new NotValidFileException(message));
+                byte[] chunk = new byte[readBufferSize];
 
-            } catch (Throwable exception) {
+                // A single read might return fewer bytes than requested.
+                int length = 0;
+                int read;
+                while (length < chunk.length && (read = input.read(chunk, length, chunk.length - length)) >= 0) {
+                    length += read;
+                }
 
-                if (exception instanceof FileReadException) {
-                    sink.error(exception);
-                } else if (exception instanceof MaxRetriesExceeded) {
-                    String message = FILE_LOCK_MAX_RETRY_ERROR.format(path.toString(), rootCauseMessageOf(exception));
-                    sink.error(new FileReadException(message, exception));
+                if (length > 0) {
+                    sink.next(length < chunk.length ? Arrays.copyOf(chunk, length) : chunk);
                 } else {
-                    String message = FILE_READ_ERROR.format(path.toString(), rootCauseMessageOf(exception));
-                    sink.error(new FileReadException(message, exception));
+                    sink.complete();
                 }
+
+            } catch (IOException exception) {
+                sink.error(exception);
             }
-        });
 
-        messageBuilder.withBinary(stream, actualMimeType);
+            return input;
+
+        }, CloseableUtils::closeSilently);
+    }
+
+    /**
+     * The generator state: the read buffer, the position of the next read and the end of the range.
+     */
+    static class Region {
+
+        final ByteBuffer buffer;
+        final long end;
+        long position;
+
+        Region(FileChannel channel, ReadRange range, int readBufferSize) throws IOException {
+            long size = channel.size();
+            this.position = range.start(size);
+            // An open ended range is read until the end of the file, even if the file grows while being read.
+            this.end = range.isOpenEnded() ? Long.MAX_VALUE : range.end(size);
+            // Leased last: if the range could not be resolved, there is no buffer to be returned.
+            this.buffer = ByteBufferPool.get().acquire(readBufferSize);
+        }
     }
 }
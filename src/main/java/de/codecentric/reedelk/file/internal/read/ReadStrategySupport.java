@@ -0,0 +1,68 @@
+package de.codecentric.reedelk.file.internal.read;
+
+import de.codecentric.reedelk.file.internal.exception.ChecksumMismatchException;
+import de.codecentric.reedelk.file.internal.exception.FileReadException;
+import de.codecentric.reedelk.file.internal.exception.MaxRetriesExceeded;
+import de.codecentric.reedelk.file.internal.exception.NotValidFileException;
+import de.codecentric.reedelk.runtime.api.exception.PlatformException;
+import reactor.core.publisher.Flux;
+
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+
+import static de.codecentric.reedelk.file.internal.commons.Messages.FileRead.FILE_IS_DIRECTORY;
+import static de.codecentric.reedelk.file.internal.commons.Messages.FileRead.FILE_READ_ERROR;
+import static de.codecentric.reedelk.file.internal.commons.Messages.Misc.FILE_LOCK_MAX_RETRY_ERROR;
+import static de.codecentric.reedelk.file.internal.commons.Messages.Misc.FILE_NOT_FOUND;
+import static de.codecentric.reedelk.runtime.api.commons.StackTraceUtils.rootCauseMessageOf;
+
+/**
+ * Checks, error mapping and metrics shared by the lazy (stream based) read strategies.
+ */
+class ReadStrategySupport {
+
+    private ReadStrategySupport() {
+    }
+
+    static void checkIsRegularFile(Path path) {
+        if (Files.isDirectory(path)) {
+            String message = FILE_IS_DIRECTORY.format(path.toString());
+            throw new NotValidFileException(message);
+        }
+
+        if (!Files.isRegularFile(path)) {
+            String message = FILE_NOT_FOUND.format(path.toString());
+            throw new NotValidFileException(message);
+        }
+    }
+
+    /**
+     * Each read of the content is measured from the subscription until the content
+     * has been completely consumed, it errors or it is cancelled.
+     */
+    static Flux<byte[]> measure(Flux<byte[]> content, ReadConfigurationDecorator config) {
+        return config.getMetrics().measure(content, chunk -> chunk.length);
+    }
+
+    static PlatformException mapException(Path path, Throwable exception) {
+        if (exception instanceof NoSuchFileException) {
+            String message = FILE_NOT_FOUND.format(path.toString());
+            return new NotValidFileException(message);
+
+        } else if (exception instanceof FileReadException) {
+            return (FileReadException) exception;
+
+        } else if (exception instanceof ChecksumMismatchException) {
+            return (ChecksumMismatchException) exception;
+
+        } else if (exception instanceof MaxRetriesExceeded) {
+            String message = FILE_LOCK_MAX_RETRY_ERROR.format(path.toString(), rootCauseMessageOf(exception));
+            return new FileReadException(message, exception);
+
+        } else {
+            String message = FILE_READ_ERROR.format(path.toString(), rootCauseMessageOf(exception));
+            return new FileReadException(message, exception);
+        }
+    }
+}
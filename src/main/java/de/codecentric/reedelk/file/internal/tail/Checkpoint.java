@@ -0,0 +1,52 @@
+package de.codecentric.reedelk.file.internal.tail;
+
+import java.util.Objects;
+
+/**
+ * The offset up to which a file has been read, together with the key identifying
+ * the file on the file system (e.g. the inode on Unix systems, which changes when
+ * the file is rotated). The file key is null if the file system does not provide one.
+ */
+class Checkpoint {
+
+    private static final char SEPARATOR = ':';
+
+    final long offset;
+    final String fileKey;
+
+    Checkpoint(long offset, String fileKey) {
+        this.offset = offset;
+        this.fileKey = fileKey;
+    }
+
+    /**
+     * Returns true if the checkpoint refers to a different file than the given file key.
+     */
+    boolean isOtherFile(String currentFileKey) {
+        return fileKey != null && currentFileKey != null && !fileKey.equals(currentFileKey);
+    }
+
+    String serialize() {
+        return fileKey == null ? String.valueOf(offset) : offset + String.valueOf(SEPARATOR) + fileKey;
+    }
+
+    static Checkpoint deserialize(String value) {
+        int separator = value.indexOf(SEPARATOR);
+        return separator < 0 ?
+                new Checkpoint(Long.parseLong(value.trim()), null) :
+                new Checkpoint(Long.parseLong(value.substring(0, separator).trim()), value.substring(separator + 1));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Checkpoint that = (Checkpoint) o;
+        return offset == that.offset && Objects.equals(fileKey, that.fileKey);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(offset, fileKey);
+    }
+}
@@ -0,0 +1,117 @@
+package de.codecentric.reedelk.file.internal.tail;
+
+import de.codecentric.reedelk.file.internal.commons.FileSyncUtils;
+import de.codecentric.reedelk.file.internal.exception.FileReadException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static de.codecentric.reedelk.file.internal.commons.Messages.FileTail.CHECKPOINT_LOAD_ERROR;
+import static de.codecentric.reedelk.file.internal.commons.Messages.FileTail.CHECKPOINT_SAVE_ERROR;
+import static de.codecentric.reedelk.runtime.api.commons.StackTraceUtils.rootCauseMessageOf;
+
+/**
+ * The checkpoints of the tailed files, keyed by absolute file path, persisted in a
+ * properties file. The checkpoint file is loaded once and it is replaced with an atomic
+ * move at every change, so that it is never left partially written. Stores are shared
+ * module wide by checkpoint file, therefore many components can use the same checkpoint file:
+ * a store is kept as long as at least one component has acquired it and not released it yet.
+ */
+class CheckpointStore {
+
+    private static final Map<Path, CheckpointStore> STORES = new ConcurrentHashMap<>();
+
+    private final Path checkpointFile;
+    private final Properties checkpoints = new Properties();
+
+    // Only accessed while computing the store in the stores map.
+    private int users;
+
+    private CheckpointStore(Path checkpointFile) {
+        this.checkpointFile = checkpointFile;
+        load();
+    }
+
+    static CheckpointStore acquire(Path checkpointFile) {
+        return STORES.compute(checkpointFile.toAbsolutePath().normalize(), (key, store) -> {
+            CheckpointStore acquired = store == null ? new CheckpointStore(key) : store;
+            acquired.users++;
+            return acquired;
+        });
+    }
+
+    /**
+     * Once released by all the components which acquired it, the store is removed:
+     * the checkpoint file is loaded again by the next component acquiring it.
+     */
+    void release() {
+        STORES.computeIfPresent(checkpointFile, (key, store) ->
+                store == this && --store.users == 0 ? null : store);
+    }
+
+    synchronized Checkpoint get(Path path) {
+        String value = checkpoints.getProperty(keyOf(path));
+        return value == null ? null : Checkpoint.deserialize(value);
+    }
+
+    /**
+     * Records the checkpoint reached by a read which started from the given checkpoint (null if there was none).
+     * Reads of the same file might overlap and complete in any order, therefore the checkpoint of the same file
+     * only ever advances: it moves back (or to another file) only if it has not changed since the read started,
+     * i.e. when the read found the file rotated or truncated.
+     */
+    synchronized void advance(Path path, Checkpoint from, Checkpoint to) {
+        Checkpoint current = get(path);
+        boolean unchanged = current == null || current.equals(from);
+        boolean advanced = current != null && !current.isOtherFile(to.fileKey) && to.offset > current.offset;
+        if (unchanged || advanced) {
+            String previous = (String) checkpoints.setProperty(keyOf(path), to.serialize());
+            if (!to.serialize().equals(previous)) {
+                save();
+            }
+        }
+    }
+
+    private void load() {
+        if (!Files.exists(checkpointFile)) return;
+        try (InputStream input = Files.newInputStream(checkpointFile)) {
+            checkpoints.load(input);
+        } catch (IOException | IllegalArgumentException exception) {
+            String message = CHECKPOINT_LOAD_ERROR.format(checkpointFile.toString(), rootCauseMessageOf(exception));
+            throw new FileReadException(message, exception);
+        }
+    }
+
+    private void save() {
+        Path temporaryFile = checkpointFile.resolveSibling("." + checkpointFile.getFileName() + "." + UUID.randomUUID() + ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temporaryFile, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                checkpoints.store(Channels.newOutputStream(channel), null);
+                // The content must be on disk before the move: otherwise after
+                // a crash the checkpoint file could be found empty or partially written.
+                channel.force(true);
+            }
+            Files.move(temporaryFile, checkpointFile, StandardCopyOption.ATOMIC_MOVE);
+            FileSyncUtils.syncDirectory(checkpointFile.getParent());
+        } catch (IOException exception) {
+            try {
+                Files.deleteIfExists(temporaryFile);
+            } catch (IOException ignored) {
+                // Nothing we can do here.
+            }
+            String message = CHECKPOINT_SAVE_ERROR.format(checkpointFile.toString(), rootCauseMessageOf(exception));
+            throw new FileReadException(message, exception);
+        }
+    }
+
+    private static String keyOf(Path path) {
+        return path.toAbsolutePath().normalize().toString();
+    }
+}
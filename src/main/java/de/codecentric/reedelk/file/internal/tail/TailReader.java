@@ -0,0 +1,131 @@
+package de.codecentric.reedelk.file.internal.tail;
+
+import de.codecentric.reedelk.file.component.FileReadConfiguration;
+import de.codecentric.reedelk.file.component.FileTail;
+import de.codecentric.reedelk.file.internal.attribute.FileTailAttribute;
+import de.codecentric.reedelk.file.internal.exception.FileReadException;
+import de.codecentric.reedelk.file.internal.exception.NotValidFileException;
+import de.codecentric.reedelk.file.internal.read.ReadConfigurationDecorator;
+import de.codecentric.reedelk.file.internal.read.ReadRange;
+import de.codecentric.reedelk.file.internal.read.ReadStrategyStream;
+import de.codecentric.reedelk.runtime.api.message.MessageBuilder;
+import de.codecentric.reedelk.runtime.api.message.content.MimeType;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Objects;
+
+import static de.codecentric.reedelk.file.internal.commons.Messages.FileRead.FILE_IS_DIRECTORY;
+import static de.codecentric.reedelk.file.internal.commons.Messages.FileRead.FILE_READ_ERROR;
+import static de.codecentric.reedelk.file.internal.commons.Messages.Misc.FILE_NOT_FOUND;
+import static de.codecentric.reedelk.runtime.api.commons.StackTraceUtils.rootCauseMessageOf;
+
+/**
+ * Reads only the bytes appended to a file since the last read, as recorded by the checkpoint
+ * of the file. The file is considered rotated (and read again from the beginning) if its file key
+ * (e.g. the inode) has changed or if it is smaller than the checkpoint offset (i.e. it has been truncated).
+ * The new bytes are streamed as with the 'Stream' read mode and the checkpoint is advanced by the bytes
+ * actually streamed only once the stream completes: if the stream is not consumed, it errors or it is
+ * cancelled, the same bytes are read again by the next read (at least once delivery). Reads of the same
+ * file might overlap: the checkpoint only ever moves forward, whichever read completes first.
+ */
+public class TailReader {
+
+    private final CheckpointStore store;
+    private final boolean readExisting;
+
+    public TailReader(Path checkpointFile, boolean readExisting) {
+        this.store = CheckpointStore.acquire(checkpointFile);
+        this.readExisting = readExisting;
+    }
+
+    /**
+     * Releases the checkpoint store: the reader must not be used anymore.
+     */
+    public void dispose() {
+        store.release();
+    }
+
+    public void read(Path path, FileReadConfiguration configuration, MessageBuilder messageBuilder, MimeType actualMimeType) {
+        Tail tail = tail(path, configuration);
+        messageBuilder
+                .withBinary(tail.stream, actualMimeType)
+                .attributes(tail.attributes);
+    }
+
+    Tail tail(Path path, FileReadConfiguration configuration) {
+
+        BasicFileAttributes attributes = attributesOf(path);
+        String fileKey = Objects.toString(attributes.fileKey(), null);
+        long size = attributes.size();
+
+        Checkpoint checkpoint = store.get(path);
+
+        long start;
+        boolean rotated = false;
+        if (checkpoint == null) {
+            // The file is tailed for the first time.
+            start = readExisting ? 0 : size;
+        } else if (checkpoint.isOtherFile(fileKey) || size < checkpoint.offset) {
+            start = 0;
+            rotated = true;
+        } else {
+            start = checkpoint.offset;
+        }
+
+        long length = size - start;
+
+        Flux<byte[]> stream;
+        if (length == 0) {
+            // Nothing new: the file is not opened at all.
+            store.advance(path, checkpoint, new Checkpoint(start, fileKey));
+            stream = Flux.empty();
+
+        } else {
+            // Only the bytes up to the current size are read: bytes appended
+            // in the meantime are read by the next read. Overlapping reads
+            // might stream the same bytes, but the checkpoint never moves back.
+            ReadConfigurationDecorator config = new ReadConfigurationDecorator(FileTail.class, configuration, ReadRange.of(start, length), null, null);
+            stream = Flux.defer(() -> {
+                long[] streamed = new long[1];
+                return ReadStrategyStream.stream(path, config)
+                        .doOnNext(chunk -> streamed[0] += chunk.length)
+                        .doOnComplete(() -> store.advance(path, checkpoint, new Checkpoint(start + streamed[0], fileKey)));
+            });
+        }
+
+        return new Tail(stream, new FileTailAttribute(path.toString(), start, length, rotated));
+    }
+
+    private static BasicFileAttributes attributesOf(Path path) {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            if (attributes.isDirectory()) {
+                throw new NotValidFileException(FILE_IS_DIRECTORY.format(path.toString()));
+            }
+            return attributes;
+
+        } catch (NoSuchFileException exception) {
+            throw new NotValidFileException(FILE_NOT_FOUND.format(path.toString()));
+
+        } catch (IOException exception) {
+            String message = FILE_READ_ERROR.format(path.toString(), rootCauseMessageOf(exception));
+            throw new FileReadException(message, exception);
+        }
+    }
+
+    static class Tail {
+
+        final Flux<byte[]> stream;
+        final FileTailAttribute attributes;
+
+        Tail(Flux<byte[]> stream, FileTailAttribute attributes) {
+            this.stream = stream;
+            this.attributes = attributes;
+        }
+    }
+}
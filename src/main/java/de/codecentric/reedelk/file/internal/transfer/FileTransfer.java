@@ -0,0 +1,127 @@
+package de.codecentric.reedelk.file.internal.transfer;
+
+import de.codecentric.reedelk.file.internal.commons.FileChannelProvider;
+import de.codecentric.reedelk.file.internal.commons.FileOpenOptions;
+import de.codecentric.reedelk.file.internal.commons.FileOperation;
+import de.codecentric.reedelk.file.internal.commons.LockType;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+
+import static java.nio.file.StandardOpenOption.*;
+
+/**
+ * Copies and moves files without moving the content through the JVM heap.
+ * The content is copied with FileChannel#transferTo, which on most operating
+ * systems is delegated to the kernel (e.g. sendfile/copy_file_range on Linux).
+ * Moves within the same file system are atomic renames: the content is copied
+ * (and the source deleted) only when source and target are on different file systems.
+ * If the target must not be replaced, whether it exists is never checked beforehand: the rename
+ * or the creation of the target fails with FileAlreadyExistsException if it exists.
+ */
+public class FileTransfer {
+
+    public void copy(Path source, Path target, TransferConfiguration config) throws IOException {
+        if (Files.exists(target) && Files.isSameFile(source, target)) {
+            // Nothing to copy: opening the target would truncate the source.
+            return;
+        }
+
+        try (FileChannel sourceChannel = openSource(source, config)) {
+            transfer(sourceChannel, target, config);
+        }
+    }
+
+    public void move(Path source, Path target, TransferConfiguration config) throws IOException {
+        boolean renamed;
+
+        // If the lock is required, the source file is kept locked while it is moved,
+        // so that it is not moved while another process holds a lock on it.
+        try (FileChannel lockedSource = LockType.LOCK.equals(config.getLockType()) ? openSource(source, config) : null) {
+
+            renamed = rename(source, target, config);
+
+            if (!renamed) {
+                if (lockedSource != null) {
+                    transfer(lockedSource, target, config);
+                } else {
+                    try (FileChannel sourceChannel = openSource(source, config)) {
+                        transfer(sourceChannel, target, config);
+                    }
+                }
+            }
+        }
+
+        // The source is deleted only after its channel has been closed.
+        if (!renamed) Files.delete(source);
+    }
+
+    private boolean rename(Path source, Path target, TransferConfiguration config) throws IOException {
+        if (!config.isReplaceExisting()) {
+            // An atomic move replaces an existing target on most platforms, while a move without
+            // options fails if the target exists. It is only a rename within the same file system:
+            // otherwise it would copy the content itself, and the content is transferred instead.
+            if (!isSameFileStore(source, target)) return false;
+            Files.move(source, target);
+            return true;
+        }
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        } catch (AtomicMoveNotSupportedException exception) {
+            // Source and target are on different file systems.
+            return false;
+        }
+    }
+
+    private boolean isSameFileStore(Path source, Path target) throws IOException {
+        Path targetDirectory = target.toAbsolutePath().getParent();
+        return Files.getFileStore(source).equals(Files.getFileStore(targetDirectory));
+    }
+
+    private void transfer(FileChannel sourceChannel, Path target, TransferConfiguration config) throws IOException {
+        OpenOption[] targetOptions = config.isReplaceExisting() ?
+                new OpenOption[]{WRITE, CREATE, TRUNCATE_EXISTING} :
+                new OpenOption[]{WRITE, CREATE_NEW};
+
+        try (FileChannel targetChannel = FileChannelProvider.from(
+                target,
+                config.getLockType(),
+                config.getRetryPolicy(),
+                config.getRetryMaxAttempts(),
+                config.getRetryWaitTime(),
+                targetOptions)) {
+
+            try {
+                long position = 0;
+                long size = sourceChannel.size();
+
+                // A single transferTo call might transfer fewer bytes than
+                // requested (e.g. sendfile transfers at most 2GB per call).
+                while (position < size) {
+                    long transferred = sourceChannel.transferTo(position, size - position, targetChannel);
+                    // The source has been truncated while being copied.
+                    if (transferred <= 0) break;
+                    position += transferred;
+                }
+
+            } catch (IOException exception) {
+                // The target content is incomplete: it must not be left on the file system.
+                Files.deleteIfExists(target);
+                throw exception;
+            }
+        }
+    }
+
+    private FileChannel openSource(Path source, TransferConfiguration config) throws IOException {
+        OpenOption[] openOptions = FileOpenOptions.from(FileOperation.READ);
+        return FileChannelProvider.from(
+                source,
+                config.getLockType(),
+                config.getRetryPolicy(),
+                config.getRetryMaxAttempts(),
+                config.getRetryWaitTime(),
+                openOptions);
+    }
+}
@@ -0,0 +1,83 @@
+package de.codecentric.reedelk.file.internal.transfer;
+
+import de.codecentric.reedelk.file.component.FileTransferConfiguration;
+import de.codecentric.reedelk.file.internal.commons.LockType;
+import de.codecentric.reedelk.file.internal.commons.RetryPolicy;
+
+import java.util.Optional;
+
+import static de.codecentric.reedelk.file.internal.commons.Defaults.FileTransfer.*;
+
+public class TransferConfiguration {
+
+    private final LockType lockType;
+    private final RetryPolicy retryPolicy;
+    private final int retryMaxAttempts;
+    private final long retryWaitTime;
+    private final boolean replaceExisting;
+    private final boolean createParentDirectory;
+
+    public TransferConfiguration(FileTransferConfiguration configuration, Boolean replaceExisting) {
+        this.lockType = getLockType(configuration);
+        this.retryPolicy = getRetryPolicy(configuration);
+        this.retryMaxAttempts = getRetryMaxAttempts(configuration);
+        this.retryWaitTime = getRetryWaitTime(configuration);
+        this.createParentDirectory = getCreateParentDirectory(configuration);
+        this.replaceExisting = Optional.ofNullable(replaceExisting).orElse(false);
+    }
+
+    LockType getLockType() {
+        return lockType;
+    }
+
+    RetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
+    int getRetryMaxAttempts() {
+        return retryMaxAttempts;
+    }
+
+    long getRetryWaitTime() {
+        return retryWaitTime;
+    }
+
+    boolean isReplaceExisting() {
+        return replaceExisting;
+    }
+
+    public boolean isCreateParentDirectory() {
+        return createParentDirectory;
+    }
+
+    private LockType getLockType(FileTransferConfiguration configuration) {
+        return Optional.ofNullable(configuration)
+                .flatMap(config -> Optional.ofNullable(config.getLockFile()))
+                .map(shouldLock -> shouldLock ? LockType.LOCK : LockType.NONE)
+                .orElse(LockType.NONE);
+    }
+
+    private RetryPolicy getRetryPolicy(FileTransferConfiguration configuration) {
+        return Optional.ofNullable(configuration)
+                .flatMap(config -> Optional.ofNullable(config.getLockRetryPolicy()))
+                .orElse(RETRY_POLICY);
+    }
+
+    private int getRetryMaxAttempts(FileTransferConfiguration configuration) {
+        return Optional.ofNullable(configuration)
+                .flatMap(config -> Optional.ofNullable(config.getLockRetryMaxAttempts()))
+                .orElse(RETRY_MAX_ATTEMPTS);
+    }
+
+    private long getRetryWaitTime(FileTransferConfiguration configuration) {
+        return Optional.ofNullable(configuration)
+                .flatMap(config -> Optional.ofNullable(config.getLockRetryWaitTime()))
+                .orElse(RETRY_WAIT_TIME);
+    }
+
+    private boolean getCreateParentDirectory(FileTransferConfiguration configuration) {
+        return Optional.ofNullable(configuration)
+                .flatMap(config -> Optional.ofNullable(config.getCreateParentDirectory()))
+                .orElse(false);
+    }
+}
@@ -0,0 +1,153 @@
+package de.codecentric.reedelk.file.internal.transfer;
+
+import de.codecentric.reedelk.file.component.FileTransferConfiguration;
+import de.codecentric.reedelk.file.internal.attribute.FileAttribute;
+import de.codecentric.reedelk.file.internal.exception.NotValidFileException;
+import de.codecentric.reedelk.runtime.api.component.Component;
+import de.codecentric.reedelk.runtime.api.flow.FlowContext;
+import de.codecentric.reedelk.runtime.api.message.Message;
+import de.codecentric.reedelk.runtime.api.message.MessageBuilder;
+import de.codecentric.reedelk.runtime.api.message.content.MimeType;
+import de.codecentric.reedelk.runtime.api.script.ScriptEngineService;
+import de.codecentric.reedelk.runtime.api.script.dynamicvalue.DynamicString;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Evaluates the properties of the File Copy and File Move components against the message being
+ * processed: the source and the target files. The components only differ in the transfer operation,
+ * which also determines the error messages and the exception raised when the transfer fails.
+ */
+public class TransferEvaluator {
+
+    private final Class<? extends Component> component;
+    private final ScriptEngineService service;
+    private final DynamicString sourceFileName;
+    private final DynamicString targetFileName;
+    private final Boolean replaceExisting;
+    private final FileTransferConfiguration configuration;
+    private final TransferOperation operation;
+    private final FileTransfer transfer = new FileTransfer();
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    private TransferEvaluator(Builder builder) {
+        this.component = builder.component;
+        this.service = builder.service;
+        this.sourceFileName = builder.sourceFileName;
+        this.targetFileName = builder.targetFileName;
+        this.replaceExisting = builder.replaceExisting;
+        this.configuration = builder.configuration;
+        this.operation = builder.operation;
+    }
+
+    /**
+     * Throws a NotValidFileException if the source or the target file name could not be evaluated.
+     */
+    public Transfer evaluate(FlowContext flowContext, Message message) {
+        String source = service.evaluate(sourceFileName, flowContext, message)
+                .orElseThrow(() -> new NotValidFileException(operation.sourceFileNameError(sourceFileName.toString())));
+
+        String target = service.evaluate(targetFileName, flowContext, message)
+                .orElseThrow(() -> new NotValidFileException(operation.targetFileNameError(targetFileName.toString())));
+
+        return new Transfer(source, target);
+    }
+
+    /**
+     * A transfer of the evaluated source file to the evaluated target file.
+     */
+    public class Transfer {
+
+        private final String source;
+        private final String target;
+
+        private Transfer(String source, String target) {
+            this.source = source;
+            this.target = target;
+        }
+
+        /**
+         * Returns the message with the path of the target file, or it throws the
+         * exception of the component operation if the transfer failed.
+         */
+        public Message execute() {
+            Path targetPath = Paths.get(target);
+
+            try {
+
+                TransferConfiguration config = new TransferConfiguration(configuration, replaceExisting);
+
+                if (config.isCreateParentDirectory()) {
+                    Files.createDirectories(targetPath.toAbsolutePath().getParent());
+                }
+
+                operation.transfer(transfer, Paths.get(source), targetPath, config);
+
+            } catch (Exception exception) {
+                throw operation.error(source, target, exception);
+            }
+
+            FileAttribute attributes = new FileAttribute(targetPath.toString());
+
+            return MessageBuilder.get(component)
+                    .attributes(attributes)
+                    .withString(targetPath.toString(), MimeType.TEXT_PLAIN)
+                    .build();
+        }
+    }
+
+    public static class Builder {
+
+        private Class<? extends Component> component;
+        private ScriptEngineService service;
+        private DynamicString sourceFileName;
+        private DynamicString targetFileName;
+        private Boolean replaceExisting;
+        private FileTransferConfiguration configuration;
+        private TransferOperation operation;
+
+        public Builder component(Class<? extends Component> component) {
+            this.component = component;
+            return this;
+        }
+
+        public Builder service(ScriptEngineService service) {
+            this.service = service;
+            return this;
+        }
+
+        public Builder sourceFileName(DynamicString sourceFileName) {
+            this.sourceFileName = sourceFileName;
+            return this;
+        }
+
+        public Builder targetFileName(DynamicString targetFileName) {
+            this.targetFileName = targetFileName;
+            return this;
+        }
+
+        public Builder replaceExisting(Boolean replaceExisting) {
+            this.replaceExisting = replaceExisting;
+            return this;
+        }
+
+        public Builder configuration(FileTransferConfiguration configuration) {
+            this.configuration = configuration;
+            return this;
+        }
+
+        public Builder operation(TransferOperation operation) {
+            this.operation = operation;
+            return this;
+        }
+
+        public TransferEvaluator build() {
+            return new TransferEvaluator(this);
+        }
+    }
+}
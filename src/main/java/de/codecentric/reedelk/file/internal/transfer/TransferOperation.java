@@ -0,0 +1,79 @@
+package de.codecentric.reedelk.file.internal.transfer;
+
+import de.codecentric.reedelk.file.internal.commons.Messages;
+import de.codecentric.reedelk.file.internal.exception.FileCopyException;
+import de.codecentric.reedelk.file.internal.exception.FileMoveException;
+import de.codecentric.reedelk.runtime.api.exception.PlatformException;
+
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Path;
+
+import static de.codecentric.reedelk.runtime.api.commons.StackTraceUtils.rootCauseMessageOf;
+
+/**
+ * The operation of the File Copy and File Move components, together with its error messages and exception type.
+ */
+public enum TransferOperation {
+
+    COPY {
+        @Override
+        void transfer(FileTransfer transfer, Path source, Path target, TransferConfiguration config) throws IOException {
+            transfer.copy(source, target, config);
+        }
+
+        @Override
+        String sourceFileNameError(String sourceFileName) {
+            return Messages.FileCopy.SOURCE_FILE_NAME_ERROR.format(sourceFileName);
+        }
+
+        @Override
+        String targetFileNameError(String targetFileName) {
+            return Messages.FileCopy.TARGET_FILE_NAME_ERROR.format(targetFileName);
+        }
+
+        @Override
+        PlatformException error(String source, String target, Exception exception) {
+            String message = exception instanceof FileAlreadyExistsException ?
+                    Messages.FileCopy.TARGET_FILE_EXISTS.format(source, target) :
+                    Messages.FileCopy.ERROR_FILE_COPY.format(source, target, rootCauseMessageOf(exception));
+            return new FileCopyException(message, exception);
+        }
+    },
+
+    MOVE {
+        @Override
+        void transfer(FileTransfer transfer, Path source, Path target, TransferConfiguration config) throws IOException {
+            transfer.move(source, target, config);
+        }
+
+        @Override
+        String sourceFileNameError(String sourceFileName) {
+            return Messages.FileMove.SOURCE_FILE_NAME_ERROR.format(sourceFileName);
+        }
+
+        @Override
+        String targetFileNameError(String targetFileName) {
+            return Messages.FileMove.TARGET_FILE_NAME_ERROR.format(targetFileName);
+        }
+
+        @Override
+        PlatformException error(String source, String target, Exception exception) {
+            String message = exception instanceof FileAlreadyExistsException ?
+                    Messages.FileMove.TARGET_FILE_EXISTS.format(source, target) :
+                    Messages.FileMove.ERROR_FILE_MOVE.format(source, target, rootCauseMessageOf(exception));
+            return new FileMoveException(message, exception);
+        }
+    };
+
+    abstract void transfer(FileTransfer transfer, Path source, Path target, TransferConfiguration config) throws IOException;
+
+    abstract String sourceFileNameError(String sourceFileName);
+
+    abstract String targetFileNameError(String targetFileName);
+
+    /**
+     * Maps the error of the transfer of the given source file to the given target file.
+     */
+    abstract PlatformException error(String source, String target, Exception exception);
+}
@@ -0,0 +1,242 @@
+package de.codecentric.reedelk.file.internal.write;
+
+import de.codecentric.reedelk.file.internal.commons.CloseableUtils;
+import de.codecentric.reedelk.file.internal.commons.FileChannelProvider;
+import de.codecentric.reedelk.file.internal.commons.IOScheduler;
+import de.codecentric.reedelk.file.internal.commons.LockType;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Appends the content of many messages to the same file through a single channel,
+ * which is kept open until the appender has been idle for the configured idle timeout.
+ * If the file must be locked, the channel (and therefore the lock) is instead closed as soon
+ * as all the queued appends have been written: the lock is only held while appends are pending.
+ * Appends are queued in a lock-free queue by any number of threads, and they are written
+ * by a single drain loop at a time, which batches all the queued appends into gathering writes.
+ * The 'work in progress' counter is the number of queued appends which the drain loop
+ * has not accounted for yet, or CLOSED once the appender has been closed.
+ * Each append is completed with the path of the file it has been written into.
+ */
+class Appender {
+
+    private static final int CLOSED = Integer.MIN_VALUE;
+    private static final int MAX_BATCH_SIZE = 256;
+
+    final Path path;
+    final WriteConfiguration config;
+    private final AppenderRegistry registry;
+
+    private final Queue<Append> appends = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger wip = new AtomicInteger();
+
+    private volatile long lastWriteTime = System.currentTimeMillis();
+
+    // Only accessed by the drain loop or when the appender is closed.
+    FileChannel channel;
+
+    Appender(Path path, WriteConfiguration config, AppenderRegistry registry) {
+        this.path = path;
+        this.config = config;
+        this.registry = registry;
+    }
+
+    /**
+     * Must be called once the appender has been completely constructed (including
+     * its subclass): the idle check must not run on a partially constructed appender.
+     */
+    void start() {
+        scheduleIdleCheck(config.getAppenderIdleTimeout());
+    }
+
+    /**
+     * Returns false if the appender has been closed in the meantime,
+     * in which case the append must be offered to a new appender.
+     */
+    boolean offer(Append append) {
+        appends.offer(append);
+        for (;;) {
+            int current = wip.get();
+            if (current == CLOSED) {
+                // The appender has been closed after the append was queued: the append is taken
+                // back (it cannot have been drained, since the drain loop is not running).
+                return !appends.remove(append);
+            }
+            if (wip.compareAndSet(current, current + 1)) {
+                if (current == 0) scheduleDrain();
+                return true;
+            }
+        }
+    }
+
+    private void scheduleDrain() {
+        try {
+            IOScheduler.get().schedule(this::drain);
+        } catch (RejectedExecutionException exception) {
+            // The queued appends must be written anyway: the calling
+            // (I/O) thread drains them if the scheduler is saturated.
+            drain();
+        }
+    }
+
+    private void drain() {
+        int missed = 1;
+        do {
+            List<Append> batch = new ArrayList<>();
+            Append append;
+            while ((append = appends.poll()) != null) {
+                batch.add(append);
+                if (batch.size() == MAX_BATCH_SIZE) {
+                    write(batch);
+                    batch = new ArrayList<>();
+                }
+            }
+            if (!batch.isEmpty()) write(batch);
+
+            // No appends pending: the lock is released until the next append. The drain loop
+            // still owns the channel here, since the work in progress counter is not zero yet.
+            if (LockType.LOCK.equals(config.getLockType()) && appends.isEmpty()) closeChannel();
+
+            missed = wip.addAndGet(-missed);
+
+        } while (missed != 0);
+    }
+
+    private void write(List<Append> batch) {
+        try {
+            openChannel();
+
+            long length = 0;
+            List<ByteBuffer> buffers = new ArrayList<>();
+            for (Append append : batch) {
+
+                if (mustRoll(length, append.length)) {
+                    writeFully(buffers, length);
+                    sync();
+                    buffers.clear();
+                    length = 0;
+                    roll();
+                }
+
+                append.target = currentPath();
+                for (byte[] chunk : append.chunks) {
+                    buffers.add(ByteBuffer.wrap(chunk));
+                }
+                length += append.length;
+            }
+
+            writeFully(buffers, length);
+            sync();
+
+            batch.forEach(append -> append.result.complete(append.target));
+
+        } catch (Exception exception) {
+            // The channel is re-opened by the next batch.
+            closeChannel();
+            batch.forEach(append -> append.result.completeExceptionally(exception));
+
+        } finally {
+            lastWriteTime = System.currentTimeMillis();
+        }
+    }
+
+    void closeChannel() {
+        CloseableUtils.closeSilently(channel);
+        channel = null;
+    }
+
+    void openChannel() throws IOException {
+        if (channel == null) {
+            channel = open(path);
+        }
+    }
+
+    /**
+     * Returns true if the given number of bytes must not be written on the current
+     * file after the pending bytes, but a new file must be started (rolled) instead.
+     */
+    boolean mustRoll(long pending, long length) throws IOException {
+        return false;
+    }
+
+    void roll() throws IOException {
+        // Not a rolling file.
+    }
+
+    /**
+     * The path of the file the channel is currently open on.
+     */
+    Path currentPath() {
+        return path;
+    }
+
+    FileChannel open(Path target) throws IOException {
+        return FileChannelProvider.from(target,
+                config.getLockType(),
+                config.getRetryPolicy(),
+                config.getRetryMaxAttempts(),
+                config.getRetryWaitTime(),
+                WriteMode.APPEND.options());
+    }
+
+    private void writeFully(List<ByteBuffer> buffers, long remaining) throws IOException {
+        ByteBuffer[] buffersArray = buffers.toArray(new ByteBuffer[0]);
+        // A single write call might not write all the remaining bytes.
+        while (remaining > 0) {
+            remaining -= channel.write(buffersArray);
+        }
+    }
+
+    private void sync() throws IOException {
+        if (Durability.SYNC_DATA.equals(config.getDurability())) {
+            channel.force(false);
+        } else if (Durability.SYNC_ALL.equals(config.getDurability())) {
+            channel.force(true);
+        }
+    }
+
+    private void scheduleIdleCheck(long delay) {
+        // If the scheduler is saturated, the idle check is retried after the same delay.
+        IOScheduler.get().schedule(this::closeIfIdle, delay, TimeUnit.MILLISECONDS,
+                exception -> scheduleIdleCheck(delay));
+    }
+
+    private void closeIfIdle() {
+        long idleTimeout = config.getAppenderIdleTimeout();
+        long idleTime = System.currentTimeMillis() - lastWriteTime;
+
+        if (idleTime >= idleTimeout && appends.isEmpty() && wip.compareAndSet(0, CLOSED)) {
+            registry.remove(path, this);
+            closeChannel();
+
+        } else {
+            scheduleIdleCheck(Math.max(idleTimeout - idleTime, 1));
+        }
+    }
+
+    static class Append {
+
+        final long length;
+        final List<byte[]> chunks;
+        final CompletableFuture<Path> result = new CompletableFuture<>();
+
+        // Only accessed by the drain loop, before the result is completed.
+        Path target;
+
+        Append(List<byte[]> chunks) {
+            this.chunks = chunks;
+            this.length = chunks.stream().mapToLong(chunk -> chunk.length).sum();
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package de.codecentric.reedelk.file.internal.write;
+
+import de.codecentric.reedelk.file.internal.exception.FileWriteException;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static de.codecentric.reedelk.file.internal.commons.Messages.FileWrite.ERROR_APPENDER_CONFIGURATION;
+
+/**
+ * Module wide registry of the shared appenders, keyed by normalised file path
+ * (or file name pattern for rolling files).
+ * An appender is created by the first append to its file, using the configuration
+ * of the File Write component which appended first, and it is removed once it has been idle
+ * for longer than its idle timeout. Appends with a configuration which would configure
+ * the appender differently are rejected as long as the appender exists.
+ */
+class AppenderRegistry {
+
+    private static final AppenderRegistry INSTANCE = new AppenderRegistry();
+
+    private final Map<Path, Appender> appenders = new ConcurrentHashMap<>();
+
+    static AppenderRegistry get() {
+        return INSTANCE;
+    }
+
+    /**
+     * The result is completed with the path of the file the content has been appended to.
+     */
+    CompletableFuture<Path> append(Path path, WriteConfiguration config, List<byte[]> chunks) {
+        Path key = path.toAbsolutePath().normalize();
+        Appender.Append append = new Appender.Append(chunks);
+
+        for (;;) {
+            Appender appender = appenders.computeIfAbsent(key, newKey -> create(newKey, config));
+
+            if (!appender.config.hasSameAppenderSettings(config)) {
+                String message = ERROR_APPENDER_CONFIGURATION.format(key.toString());
+                append.result.completeExceptionally(new FileWriteException(message));
+                return append.result;
+            }
+
+            if (appender.offer(append)) return append.result;
+
+            // The appender has been closed in the meantime.
+            appenders.remove(key, appender);
+        }
+    }
+
+    private Appender create(Path key, WriteConfiguration config) {
+        Appender appender = WriteMode.ROLLING.equals(config.getWriteMode()) ?
+                new RollingAppender(key, config, this) :
+                new Appender(key, config, this);
+        appender.start();
+        return appender;
+    }
+
+    void remove(Path key, Appender appender) {
+        appenders.remove(key, appender);
+    }
+}
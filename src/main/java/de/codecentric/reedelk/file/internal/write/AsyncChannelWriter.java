@@ -0,0 +1,206 @@
+package de.codecentric.reedelk.file.internal.write;
+
+import de.codecentric.reedelk.file.internal.commons.ByteBufferPool;
+import de.codecentric.reedelk.file.internal.commons.IOScheduler;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.CompletionHandler;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Writes the content with an asynchronous file channel. The content is split into regions of
+ * 'write buffer size' bytes (see {@link Coalescer}), and each region is written at its
+ * position in the file with a positional write. Up to 'max writes in flight' regions are written at
+ * the same time: the next regions are prepared while the previous ones are being written, and no thread
+ * is tied to the file between the writes. The content is requested only as fast as it is written.
+ */
+class AsyncChannelWriter {
+
+    Mono<Void> write(AsynchronousFileChannel channel, Flux<byte[]> dataStream, int bufferLength,
+                     int maxWritesInFlight, Durability durability) {
+
+        return Flux.defer(() -> {
+
+            Coalescer coalescer = new Coalescer(bufferLength);
+
+            return dataStream
+                    .concatMapIterable(coalescer::add, maxWritesInFlight)
+                    // The last buffer is written once the content is complete, even if not full.
+                    .concatWith(Mono.fromSupplier(coalescer::last))
+                    // On cancel the buffer might still be being filled: it is not reused, but left to the garbage collector.
+                    .doFinally(signal -> {
+                        if (SignalType.CANCEL.equals(signal)) coalescer.discard();
+                        else coalescer.release();
+                    });
+
+        }).flatMap(region -> write(channel, region), maxWritesInFlight)
+
+                // The buffers filled but not yet written when the write fails or it is cancelled.
+                .doOnDiscard(Region.class, Region::release)
+
+                .then()
+
+                // The writes complete on the threads of the asynchronous channels, which must only
+                // execute the writes: the sync, the close of the channel and everything following
+                // the write (up to the result callback) continue on the module I/O scheduler.
+                .publishOn(IOScheduler.get())
+
+                .then(Mono.fromRunnable(() -> {
+                    try {
+                        force(channel, durability);
+                    } catch (IOException e) {
+                        throw Exceptions.propagate(e);
+                    }
+                }));
+    }
+
+    private Mono<Void> write(AsynchronousFileChannel channel, Region region) {
+        return Mono.create(sink -> {
+            try {
+                channel.write(region.buffer, region.position, region, new CompletionHandler<Integer, Region>() {
+
+                    @Override
+                    public void completed(Integer written, Region region) {
+                        if (region.buffer.hasRemaining()) {
+                            // A single write might not write all the remaining bytes.
+                            channel.write(region.buffer, region.position + region.buffer.position(), region, this);
+                        } else {
+                            region.release();
+                            sink.success();
+                        }
+                    }
+
+                    @Override
+                    public void failed(Throwable exception, Region region) {
+                        region.release();
+                        sink.error(exception);
+                    }
+                });
+
+            } catch (RuntimeException exception) {
+                region.release();
+                sink.error(exception);
+            }
+        });
+    }
+
+    private void force(AsynchronousFileChannel channel, Durability durability) throws IOException {
+        if (Durability.SYNC_DATA.equals(durability)) {
+            channel.force(false);
+        } else if (Durability.SYNC_ALL.equals(durability)) {
+            channel.force(true);
+        }
+    }
+
+    /**
+     * A buffer to be written at the given position of the file.
+     */
+    static class Region {
+
+        final ByteBuffer buffer;
+        final long position;
+
+        Region(ByteBuffer buffer, long position) {
+            this.buffer = buffer;
+            this.position = position;
+        }
+
+        void release() {
+            // The regions written straight from a chunk are not pooled: the pool ignores them.
+            ByteBufferPool.get().release(buffer);
+        }
+    }
+
+    /**
+     * Splits the content into the regions to be written. The chunks of the content are coalesced into
+     * pooled direct buffers of 'write buffer size' bytes, except the parts of a chunk large enough to fill
+     * a whole buffer, which are written straight from the chunk, as with the gathering write of the
+     * file channel engine. The regions of a chunk are split lazily, only as they are requested: at most
+     * 'max writes in flight' regions are ever prepared ahead of the writes, however large the chunk is.
+     */
+    static class Coalescer {
+
+        private final int bufferLength;
+
+        private ByteBuffer buffer;
+        private long position;
+
+        Coalescer(int bufferLength) {
+            this.bufferLength = bufferLength;
+        }
+
+        Iterable<Region> add(byte[] chunk) {
+            return () -> new Iterator<Region>() {
+
+                private int offset;
+                private Region next;
+
+                @Override
+                public boolean hasNext() {
+                    if (next == null) next = split();
+                    return next != null;
+                }
+
+                @Override
+                public Region next() {
+                    if (!hasNext()) throw new NoSuchElementException();
+                    Region region = next;
+                    next = null;
+                    return region;
+                }
+
+                private Region split() {
+                    while (offset < chunk.length) {
+                        int remaining = chunk.length - offset;
+
+                        if (buffer == null && remaining >= bufferLength) {
+                            // A whole buffer is written straight from the chunk.
+                            ByteBuffer slice = ByteBuffer.wrap(chunk, offset, bufferLength).slice();
+                            offset += bufferLength;
+                            return region(slice);
+                        }
+
+                        if (buffer == null) buffer = ByteBufferPool.get().acquire(bufferLength);
+
+                        int length = Math.min(buffer.remaining(), remaining);
+                        buffer.put(chunk, offset, length);
+                        offset += length;
+
+                        if (!buffer.hasRemaining()) return last();
+                    }
+                    return null;
+                }
+            };
+        }
+
+        Region last() {
+            if (buffer == null) return null;
+            buffer.flip();
+            Region region = region(buffer);
+            buffer = null;
+            return region;
+        }
+
+        void release() {
+            ByteBufferPool.get().release(buffer);
+            buffer = null;
+        }
+
+        void discard() {
+            ByteBufferPool.get().discard(buffer);
+        }
+
+        private Region region(ByteBuffer content) {
+            Region region = new Region(content, position);
+            position += content.remaining();
+            return region;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package de.codecentric.reedelk.file.internal.write;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Writes to a file channel through the given buffer: the bytes written to the stream are
+ * coalesced into the buffer, which is written to the channel only once it is full, or when
+ * the stream is flushed or closed. Closing the stream does not close the channel.
+ */
+class ChannelOutputStream extends OutputStream {
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+
+    ChannelOutputStream(FileChannel channel, ByteBuffer buffer) {
+        this.channel = channel;
+        this.buffer = buffer;
+    }
+
+    @Override
+    public void write(int value) throws IOException {
+        if (!buffer.hasRemaining()) flush();
+        buffer.put((byte) value);
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        while (length > 0) {
+            if (!buffer.hasRemaining()) flush();
+            int put = Math.min(length, buffer.remaining());
+            buffer.put(bytes, offset, put);
+            offset += put;
+            length -= put;
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        buffer.flip();
+        // A single write call might not write all the remaining bytes.
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+    }
+}
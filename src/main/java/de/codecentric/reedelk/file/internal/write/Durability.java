@@ -0,0 +1,18 @@
+package de.codecentric.reedelk.file.internal.write;
+
+import de.codecentric.reedelk.runtime.api.annotation.DisplayName;
+
+public enum Durability {
+
+    @DisplayName("None")
+    NONE,
+
+    @DisplayName("Sync data on close")
+    SYNC_DATA,
+
+    @DisplayName("Sync data and metadata on close")
+    SYNC_ALL,
+
+    @DisplayName("Group commit")
+    GROUP_COMMIT
+}
@@ -0,0 +1,65 @@
+package de.codecentric.reedelk.file.internal.write;
+
+import de.codecentric.reedelk.file.internal.commons.CloseableUtils;
+import de.codecentric.reedelk.file.internal.commons.IOScheduler;
+import reactor.core.publisher.Mono;
+
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shares a single sync of a file among all the writes to the same file completed
+ * within the same time window. The first write completed on a file schedules the
+ * sync of the file at the end of the window; all the writes to the same file
+ * completed before the sync starts are notified once the sync is done.
+ * The sync is executed on a new channel: the data written (and closed) by
+ * other channels on the same file is synced as well.
+ */
+class GroupCommit {
+
+    private static final GroupCommit INSTANCE = new GroupCommit();
+
+    private final Map<Path, CompletableFuture<Void>> pendingSyncs = new ConcurrentHashMap<>();
+
+    static GroupCommit get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Must be called only after the data to be synced has been written.
+     */
+    Mono<Void> sync(Path path, long windowMillis) {
+        Path key = path.toAbsolutePath().normalize();
+        CompletableFuture<Void> pendingSync = pendingSyncs.computeIfAbsent(key, newKey -> {
+            CompletableFuture<Void> newSync = new CompletableFuture<>();
+            IOScheduler.get().schedule(() -> doSync(newKey, newSync), windowMillis, TimeUnit.MILLISECONDS, exception -> {
+                // The writes waiting for the sync fail: their data might not be synced.
+                pendingSyncs.remove(newKey, newSync);
+                newSync.completeExceptionally(exception);
+            });
+            return newSync;
+        });
+        return Mono.fromFuture(pendingSync);
+    }
+
+    private void doSync(Path key, CompletableFuture<Void> pendingSync) {
+        // Writes completed from now on must wait for the next sync.
+        pendingSyncs.remove(key, pendingSync);
+
+        FileChannel channel = null;
+        try {
+            channel = FileChannel.open(key, StandardOpenOption.WRITE);
+            channel.force(false);
+            pendingSync.complete(null);
+        } catch (Exception exception) {
+            pendingSync.completeExceptionally(exception);
+        } finally {
+            CloseableUtils.closeSilently(channel);
+        }
+    }
+}
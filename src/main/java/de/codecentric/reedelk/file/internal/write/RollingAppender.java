@@ -0,0 +1,76 @@
+package de.codecentric.reedelk.file.internal.write;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+
+/**
+ * A shared appender which writes into the current file of a rolling file name pattern.
+ * The file is rolled when the time window of the file name pattern changes, or when
+ * appending a message would exceed the max file size (only if the pattern contains the
+ * %i index). Rolling happens within the drain loop: appends queued in the meantime are not blocked.
+ */
+class RollingAppender extends Appender {
+
+    private final RollingFileName fileName;
+    private final long maxFileSize;
+
+    private String currentTimeKey;
+    private int currentIndex;
+    private Path currentPath;
+
+    RollingAppender(Path pattern, WriteConfiguration config, AppenderRegistry registry) {
+        super(pattern, config, registry);
+        this.fileName = new RollingFileName(pattern.toString());
+        this.maxFileSize = config.getRollingMaxFileSize();
+    }
+
+    @Override
+    void openChannel() throws IOException {
+        LocalDateTime now = LocalDateTime.now();
+
+        String timeKey = fileName.timeKey(now);
+        if (!timeKey.equals(currentTimeKey)) {
+            closeChannel();
+            currentTimeKey = timeKey;
+            currentIndex = 0;
+        }
+
+        if (channel == null) {
+            // Skip the files which are full already, e.g. written before
+            // the appender was closed after being idle or before a restart.
+            Path current = fileName.resolve(now, currentIndex);
+            while (isSizeLimited() && Files.exists(current) && Files.size(current) >= maxFileSize) {
+                current = fileName.resolve(now, ++currentIndex);
+            }
+            channel = open(current);
+            currentPath = current;
+        }
+    }
+
+    @Override
+    boolean mustRoll(long pending, long length) throws IOException {
+        if (!isSizeLimited()) return false;
+        // The channel is in append mode: its size is the size of the file.
+        long size = channel.size() + pending;
+        // A message is always written on an empty file, even if it is bigger than the max file size.
+        return size > 0 && size + length > maxFileSize;
+    }
+
+    @Override
+    void roll() throws IOException {
+        closeChannel();
+        currentIndex++;
+        openChannel();
+    }
+
+    @Override
+    Path currentPath() {
+        return currentPath;
+    }
+
+    private boolean isSizeLimited() {
+        return maxFileSize > 0 && fileName.hasIndex();
+    }
+}
@@ -0,0 +1,87 @@
+package de.codecentric.reedelk.file.internal.write;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiFunction;
+
+/**
+ * A rolling file name pattern, e.g. 'orders-%d{yyyyMMdd-HH}-%i.log', where %d{format}
+ * is replaced with the current date/time formatted with the given date time format
+ * (yyyy-MM-dd if no format is given) and %i is replaced with the index of the file within
+ * the current time window. The time window is determined by the date time format: e.g.
+ * 'yyyyMMdd-HH' rolls the file every hour.
+ */
+class RollingFileName {
+
+    private static final String DEFAULT_DATE_FORMAT = "yyyy-MM-dd";
+
+    private final List<BiFunction<LocalDateTime, Integer, String>> parts = new ArrayList<>();
+    private final List<DateTimeFormatter> dateFormats = new ArrayList<>();
+    private boolean hasIndex;
+
+    RollingFileName(String pattern) {
+        StringBuilder literal = new StringBuilder();
+        int i = 0;
+        while (i < pattern.length()) {
+            char current = pattern.charAt(i);
+            char next = i + 1 < pattern.length() ? pattern.charAt(i + 1) : 0;
+
+            if (current == '%' && next == 'd') {
+                addLiteral(literal);
+                String format = DEFAULT_DATE_FORMAT;
+                i += 2;
+                if (i < pattern.length() && pattern.charAt(i) == '{') {
+                    int end = pattern.indexOf('}', i);
+                    if (end < 0) throw new IllegalArgumentException("Missing '}' in file name pattern=[" + pattern + "]");
+                    format = pattern.substring(i + 1, end);
+                    i = end + 1;
+                }
+                DateTimeFormatter formatter = DateTimeFormatter.ofPattern(format);
+                dateFormats.add(formatter);
+                parts.add((time, index) -> formatter.format(time));
+
+            } else if (current == '%' && next == 'i') {
+                addLiteral(literal);
+                hasIndex = true;
+                parts.add((time, index) -> String.valueOf(index));
+                i += 2;
+
+            } else {
+                literal.append(current);
+                i++;
+            }
+        }
+        addLiteral(literal);
+    }
+
+    boolean hasIndex() {
+        return hasIndex;
+    }
+
+    /**
+     * Two times belong to the same time window if they have the same time key.
+     */
+    String timeKey(LocalDateTime time) {
+        StringBuilder key = new StringBuilder();
+        dateFormats.forEach(format -> key.append(format.format(time)).append('|'));
+        return key.toString();
+    }
+
+    Path resolve(LocalDateTime time, int index) {
+        StringBuilder fileName = new StringBuilder();
+        parts.forEach(part -> fileName.append(part.apply(time, index)));
+        return Paths.get(fileName.toString());
+    }
+
+    private void addLiteral(StringBuilder literal) {
+        if (literal.length() > 0) {
+            String value = literal.toString();
+            parts.add((time, index) -> value);
+            literal.setLength(0);
+        }
+    }
+}
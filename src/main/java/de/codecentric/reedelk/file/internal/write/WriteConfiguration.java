@@ -1,29 +1,73 @@
 package de.codecentric.reedelk.file.internal.write;
 
+import de.codecentric.reedelk.file.internal.checksum.Checksum;
+import de.codecentric.reedelk.file.internal.checksum.ChecksumAlgorithm;
+import de.codecentric.reedelk.file.internal.codec.Codec;
+import de.codecentric.reedelk.file.internal.codec.Compression;
 import de.codecentric.reedelk.file.internal.commons.LockType;
+import de.codecentric.reedelk.file.internal.commons.RetryPolicy;
+import de.codecentric.reedelk.file.internal.exception.FileWriteException;
 import de.codecentric.reedelk.file.component.FileWriteConfiguration;
 
 import java.util.Optional;
 
 import static de.codecentric.reedelk.file.internal.commons.Defaults.FileWrite.*;
+import static de.codecentric.reedelk.file.internal.commons.Messages.FileWrite.CHECKSUM_ALGORITHM_NOT_SET;
+import static de.codecentric.reedelk.file.internal.commons.Messages.FileWrite.CHECKSUM_APPEND_NOT_VERIFIABLE;
+import static de.codecentric.reedelk.runtime.api.commons.StringUtils.isBlank;
 
 public class WriteConfiguration {
 
     private final LockType lockType;
     private final WriteMode writeMode;
+    private final Durability durability;
+    private final WriteEngine writeEngine;
+    private final Compression compression;
+    private final ChecksumAlgorithm checksumAlgorithm;
+    private final String expectedChecksum;
 
     private final int writeBufferSize;
+    private final RetryPolicy retryPolicy;
     private final int retryMaxAttempts;
     private final long retryWaitTime;
+    private final long groupCommitWindow;
+    private final boolean sharedAppender;
+    private final long appenderIdleTimeout;
+    private final long rollingMaxFileSize;
+    private final int maxWritesInFlight;
     private final boolean createParentDirectory;
 
     public WriteConfiguration(FileWriteConfiguration configuration, WriteMode mode) {
-        this.lockType = getLockType(configuration);
+        this(configuration, mode, null);
+    }
+
+    public WriteConfiguration(FileWriteConfiguration configuration, WriteMode mode, String expectedChecksum) {
         this.writeMode = getWriteMode(mode);
+        // With atomic replace the content is written into a new temporary file, which no other
+        // writer can open: it is never locked (and the target file is replaced, not written into).
+        this.lockType = WriteMode.ATOMIC_REPLACE.equals(writeMode) ? LockType.NONE : getLockType(configuration);
+        this.durability = getDurability(configuration);
+        this.writeEngine = getWriteEngine(configuration);
+        this.compression = getCompression(configuration);
+        this.checksumAlgorithm = getChecksumAlgorithm(configuration);
+        this.expectedChecksum = expectedChecksum;
+        if (Checksum.isMissingAlgorithm(checksumAlgorithm, expectedChecksum)) {
+            throw new FileWriteException(CHECKSUM_ALGORITHM_NOT_SET.format(expectedChecksum.trim()));
+        }
 
         this.writeBufferSize = getWriteBufferSize(configuration);
+        this.retryPolicy = getRetryPolicy(configuration);
         this.retryMaxAttempts = getRetryMaxAttempts(configuration);
         this.retryWaitTime = getRetryWaitTime(configuration);
+        this.groupCommitWindow = getGroupCommitWindow(configuration);
+        this.sharedAppender = getSharedAppender(configuration);
+        // Only the shared appender verifies the checksum of the content before appending it.
+        if (!isBlank(expectedChecksum) && WriteMode.APPEND.equals(writeMode) && !sharedAppender) {
+            throw new FileWriteException(CHECKSUM_APPEND_NOT_VERIFIABLE.format(expectedChecksum.trim()));
+        }
+        this.appenderIdleTimeout = getAppenderIdleTimeout(configuration);
+        this.rollingMaxFileSize = getRollingMaxFileSize(configuration);
+        this.maxWritesInFlight = getMaxWritesInFlight(configuration);
         this.createParentDirectory = getCreateParentDirectory(configuration);
     }
 
@@ -31,6 +75,10 @@ public class WriteConfiguration {
         return lockType;
     }
 
+    RetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
     int getRetryMaxAttempts() {
         return retryMaxAttempts;
     }
@@ -47,6 +95,69 @@ public class WriteConfiguration {
         return writeMode;
     }
 
+    Durability getDurability() {
+        return durability;
+    }
+
+    Codec getCodec() {
+        return compression.codec();
+    }
+
+    ChecksumAlgorithm getChecksumAlgorithm() {
+        return checksumAlgorithm;
+    }
+
+    String getExpectedChecksum() {
+        return expectedChecksum;
+    }
+
+    long getGroupCommitWindow() {
+        return groupCommitWindow;
+    }
+
+    boolean isSharedAppender() {
+        // The shared appender can only be used to append,
+        // rolling files are always written through a shared appender.
+        return (sharedAppender && WriteMode.APPEND.equals(writeMode)) ||
+                WriteMode.ROLLING.equals(writeMode);
+    }
+
+    long getRollingMaxFileSize() {
+        return rollingMaxFileSize;
+    }
+
+    boolean isAsyncChannelEngine() {
+        // The asynchronous channel writes each buffer at its position in the file: it can not append,
+        // and the compressed content is written through the compressing stream of the file channel.
+        return WriteEngine.ASYNC_CHANNEL.equals(writeEngine) &&
+                compression.codec() == null &&
+                !WriteMode.APPEND.equals(writeMode) &&
+                !WriteMode.ROLLING.equals(writeMode);
+    }
+
+    int getMaxWritesInFlight() {
+        return maxWritesInFlight;
+    }
+
+    long getAppenderIdleTimeout() {
+        return appenderIdleTimeout;
+    }
+
+    /**
+     * Returns true if the given configuration configures a shared appender the same way as this one.
+     * A shared appender is created with the configuration of the first append to its file.
+     */
+    boolean hasSameAppenderSettings(WriteConfiguration other) {
+        return writeMode == other.writeMode &&
+                lockType == other.lockType &&
+                durability == other.durability &&
+                retryPolicy == other.retryPolicy &&
+                retryMaxAttempts == other.retryMaxAttempts &&
+                retryWaitTime == other.retryWaitTime &&
+                appenderIdleTimeout == other.appenderIdleTimeout &&
+                rollingMaxFileSize == other.rollingMaxFileSize;
+    }
+
     public boolean isCreateParentDirectory() {
         return createParentDirectory;
     }
@@ -64,6 +175,12 @@ public class WriteConfiguration {
                 .orElse(LockType.NONE);
     }
 
+    private RetryPolicy getRetryPolicy(FileWriteConfiguration configuration) {
+        return Optional.ofNullable(configuration)
+                .flatMap(config -> Optional.ofNullable(config.getLockRetryPolicy()))
+                .orElse(RETRY_POLICY);
+    }
+
     private int getRetryMaxAttempts(FileWriteConfiguration configuration) {
         return Optional.ofNullable(configuration)
                 .flatMap(config -> Optional.ofNullable(config.getLockRetryMaxAttempts()))
@@ -76,6 +193,61 @@ public class WriteConfiguration {
                 .orElse(RETRY_WAIT_TIME);
     }
 
+    private Durability getDurability(FileWriteConfiguration configuration) {
+        return Optional.ofNullable(configuration)
+                .flatMap(config -> Optional.ofNullable(config.getDurability()))
+                .orElse(Durability.NONE);
+    }
+
+    private Compression getCompression(FileWriteConfiguration configuration) {
+        return Optional.ofNullable(configuration)
+                .flatMap(config -> Optional.ofNullable(config.getCompression()))
+                .orElse(Compression.NONE);
+    }
+
+    private ChecksumAlgorithm getChecksumAlgorithm(FileWriteConfiguration configuration) {
+        return Optional.ofNullable(configuration)
+                .flatMap(config -> Optional.ofNullable(config.getChecksum()))
+                .orElse(ChecksumAlgorithm.NONE);
+    }
+
+    private WriteEngine getWriteEngine(FileWriteConfiguration configuration) {
+        return Optional.ofNullable(configuration)
+                .flatMap(config -> Optional.ofNullable(config.getWriteEngine()))
+                .orElse(WriteEngine.CHANNEL);
+    }
+
+    private int getMaxWritesInFlight(FileWriteConfiguration configuration) {
+        return Optional.ofNullable(configuration)
+                .flatMap(config -> Optional.ofNullable(config.getMaxWritesInFlight()))
+                .filter(maxWritesInFlight -> maxWritesInFlight > 0)
+                .orElse(MAX_WRITES_IN_FLIGHT);
+    }
+
+    private long getGroupCommitWindow(FileWriteConfiguration configuration) {
+        return Optional.ofNullable(configuration)
+                .flatMap(config -> Optional.ofNullable(config.getGroupCommitWindow()))
+                .orElse(GROUP_COMMIT_WINDOW);
+    }
+
+    private boolean getSharedAppender(FileWriteConfiguration configuration) {
+        return Optional.ofNullable(configuration)
+                .flatMap(config -> Optional.ofNullable(config.getSharedAppender()))
+                .orElse(false);
+    }
+
+    private long getAppenderIdleTimeout(FileWriteConfiguration configuration) {
+        return Optional.ofNullable(configuration)
+                .flatMap(config -> Optional.ofNullable(config.getSharedAppenderIdleTimeout()))
+                .orElse(APPENDER_IDLE_TIMEOUT);
+    }
+
+    private long getRollingMaxFileSize(FileWriteConfiguration configuration) {
+        return Optional.ofNullable(configuration)
+                .flatMap(config -> Optional.ofNullable(config.getRollingMaxFileSize()))
+                .orElse(ROLLING_MAX_FILE_SIZE);
+    }
+
     private boolean getCreateParentDirectory(FileWriteConfiguration configuration) {
         return Optional.ofNullable(configuration)
                 .flatMap(config -> Optional.ofNullable(config.getCreateParentDirectory()))
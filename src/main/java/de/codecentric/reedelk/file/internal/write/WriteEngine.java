@@ -0,0 +1,12 @@
+package de.codecentric.reedelk.file.internal.write;
+
+import de.codecentric.reedelk.runtime.api.annotation.DisplayName;
+
+public enum WriteEngine {
+
+    @DisplayName("File channel")
+    CHANNEL,
+
+    @DisplayName("Asynchronous file channel")
+    ASYNC_CHANNEL
+}
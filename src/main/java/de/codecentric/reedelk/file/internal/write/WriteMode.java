@@ -37,6 +37,26 @@ public enum WriteMode {
                     StandardOpenOption.CREATE,
                     StandardOpenOption.APPEND};
         }
+    },
+
+    @DisplayName("Atomic replace")
+    ATOMIC_REPLACE {
+        @Override
+        public OpenOption[] options() {
+            // Options of the temporary file, which is
+            // moved to the target file once written.
+            return new OpenOption[]{
+                    StandardOpenOption.WRITE,
+                    StandardOpenOption.CREATE_NEW};
+        }
+    },
+
+    @DisplayName("Rolling")
+    ROLLING {
+        @Override
+        public OpenOption[] options() {
+            return APPEND.options();
+        }
     };
 
     abstract OpenOption[] options();
@@ -2,124 +2,382 @@ package de.codecentric.reedelk.file.internal.write;
 
 import de.codecentric.reedelk.file.component.FileWrite;
 import de.codecentric.reedelk.file.internal.attribute.FileAttribute;
+import de.codecentric.reedelk.file.internal.checksum.Checksum;
+import de.codecentric.reedelk.file.internal.codec.Codec;
+import de.codecentric.reedelk.file.internal.codec.CompressingStream;
+import de.codecentric.reedelk.file.internal.commons.ByteBufferPool;
 import de.codecentric.reedelk.file.internal.commons.CloseableUtils;
 import de.codecentric.reedelk.file.internal.commons.FileChannelProvider;
+import de.codecentric.reedelk.file.internal.commons.FileSyncUtils;
+import de.codecentric.reedelk.file.internal.exception.ChecksumMismatchException;
 import de.codecentric.reedelk.file.internal.exception.FileWriteException;
 import de.codecentric.reedelk.file.internal.exception.MaxRetriesExceeded;
 import de.codecentric.reedelk.file.internal.exception.NotValidFileException;
+import de.codecentric.reedelk.file.internal.metrics.OperationMetrics;
 import de.codecentric.reedelk.runtime.api.component.OnResult;
 import de.codecentric.reedelk.runtime.api.flow.FlowContext;
 import de.codecentric.reedelk.runtime.api.message.Message;
 import de.codecentric.reedelk.runtime.api.message.MessageBuilder;
 import de.codecentric.reedelk.runtime.api.message.content.TypedPublisher;
+import de.codecentric.reedelk.file.internal.commons.IOScheduler;
 import de.codecentric.reedelk.file.internal.commons.Messages;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import reactor.core.Exceptions;
 import reactor.core.publisher.Flux;
-import reactor.core.scheduler.Schedulers;
+import reactor.core.publisher.Mono;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
 import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
 
 import static de.codecentric.reedelk.runtime.api.commons.StackTraceUtils.rootCauseMessageOf;
 
 public class Writer {
 
+    private static final Logger logger = LoggerFactory.getLogger(Writer.class);
+
+    private static final OperationMetrics metrics = OperationMetrics.of(FileWrite.class, OperationMetrics.FILE_WRITE);
+
+    private final AsyncChannelWriter asyncChannelWriter = new AsyncChannelWriter();
+
     public void write(WriteConfiguration config, FlowContext flowContext, OnResult callback,
                       Path path, TypedPublisher<byte[]> dataStream) {
 
+        FileAttribute attributes = new FileAttribute(path.toString());
+
+        // Each write is measured from now until its result callback is invoked.
+        OperationMetrics.Sample sample = metrics.start();
+
+        // The checksum (if any) is computed on the content as it flows into the file, and it is
+        // verified once the content is complete: a mismatch fails the write before it completes.
+        Checksum checksum = Checksum.of(config.getChecksumAlgorithm(), config.getExpectedChecksum(), attributes);
+        Flux<byte[]> content = Checksum.computeOn(Flux.from(dataStream), checksum)
+                .doOnNext(chunk -> sample.bytes(chunk.length));
+
+        if (config.isSharedAppender()) {
+            append(config, flowContext, callback, path, content, attributes, sample);
+            return;
+        }
+
         int bufferLength = config.getWriteBufferSize();
 
-        Flux.from(dataStream)
+        // With atomic replace the content is written into a temporary file,
+        // which is moved to the target path only once completely written.
+        boolean atomicReplace = WriteMode.ATOMIC_REPLACE.equals(config.getWriteMode());
+        Path writePath = atomicReplace ? temporaryFileOf(path) : path;
+
+        // The content is written either with an asynchronous file channel or with a file channel.
+        Mono<Void> written = config.isAsyncChannelEngine() ?
+                Mono.usingWhen(FileChannelProvider.openAsynchronous(writePath,
+                        config.getLockType(),
+                        config.getRetryPolicy(),
+                        config.getRetryMaxAttempts(),
+                        config.getRetryWaitTime(),
+                        config.getWriteMode().options()),
+
+                        channel -> deleteOnMismatch(asyncChannelWriter.write(channel, content, bufferLength,
+                                config.getMaxWritesInFlight(), config.getDurability()), writePath, config.getWriteMode()),
+
+                        channel -> Mono.fromRunnable(() -> CloseableUtils.closeSilently(channel))) :
+
+                Mono.usingWhen(FileChannelProvider.open(writePath,
+                        config.getLockType(),
+                        config.getRetryPolicy(),
+                        config.getRetryMaxAttempts(),
+                        config.getRetryWaitTime(),
+                        config.getWriteMode().options()),
+
+                        fileChannel -> deleteOnMismatch(config.getCodec() == null ?
+                                write(fileChannel, content, bufferLength, config.getDurability()) :
+                                writeCompressed(fileChannel, content, bufferLength, config.getDurability(), config.getCodec()),
+                                writePath, config.getWriteMode()),
+
+                        // We must always and in any case (success, error or cancel) close the file channel.
+                        fileChannel -> Mono.fromRunnable(() -> CloseableUtils.closeSilently(fileChannel)));
+
+        written
+                // The channel has been closed: the temporary file can be published.
+                .then(Mono.fromRunnable(() -> {
+                    if (atomicReplace) publish(writePath, path, config.getDurability());
+                }))
+
+                .then(groupCommit(config, path))
+
+                // Subscribed on the module I/O scheduler before the callbacks: a write
+                // rejected by a saturated scheduler fails with the error callback.
+                .subscribeOn(IOScheduler.get())
+
+                .doOnError(throwable -> {
+                    // The temporary file must not be left on the file system.
+                    if (atomicReplace) deleteSilently(writePath);
+                    sample.error();
+                    onError(flowContext, callback, path, throwable);
+                })
+
+                .doOnSuccess(unused -> {
+                    sample.success();
+                    onResult(flowContext, callback, attributes);
+                })
+
+                .subscribe(); // Immediately fire the writing into the buffer
+    }
+
+    private Mono<Void> write(FileChannel fileChannel, Flux<byte[]> dataStream, int bufferLength, Durability durability) {
+        // We only lease the buffer object once the file channel has been correctly opened (and locked).
+        // The buffer is returned to the pool when the stream completes, errors or it is cancelled.
+        return Mono.using(() -> ByteBufferPool.get().acquire(bufferLength), byteBuffer -> dataStream
                 // This data stream is executed from originator Thread (which could be nio Thread or flow thread and so on).
                 // Since we MUST execute this asynchronously (otherwise we might end up blocking a nio Thread - e.g from a rest call -
                 // we must subscribe the stream from an elastic Thread. If we don't do it we might block
-                // the NIO thread indefinitely. Note that the reduceWith is executed within the publishOn thread,
+                // the NIO thread indefinitely. Note that the file channel is opened within the subscribeOn thread,
                 // while the accumulator BiFunction is executed within the source Thread (e.g NIO thread).
                 // The success callback is executed within the source Thread, while the onError from the elastic thread.
 
-                .reduceWith(() -> {
+                .reduce(byteBuffer, (buffer, byteChunk) -> {
+
                     try {
-                        FileChannel fileChannel = FileChannelProvider.from(path,
-                                config.getLockType(),
-                                config.getRetryMaxAttempts(),
-                                config.getRetryWaitTime(),
-                                config.getWriteMode().options());
-
-                        // We only allocate the buffer object if the FileChannel
-                        // has been correctly opened.
-                        ByteBuffer byteBuffer = ByteBuffer.allocate(bufferLength);
-                        return new Initial(byteBuffer, fileChannel);
-
-                    } catch (Exception e) {
+
+                        if (byteChunk.length >= bufferLength) {
+                            // Large chunks are not copied into the buffer: they are written in slices of
+                            // the buffer length, the first one together with the buffered data (if any) with
+                            // a single gathering write. The JDK copies each heap slice into a temporary direct
+                            // buffer, cached by the writing thread: the slices bound its size to the buffer length.
+                            buffer.flip();
+                            int offset = 0;
+                            while (byteChunk.length - offset >= bufferLength) {
+                                writeFully(fileChannel, buffer, ByteBuffer.wrap(byteChunk, offset, bufferLength));
+                                offset += bufferLength;
+                            }
+                            buffer.clear();
+                            // The rest of the chunk is coalesced with the next chunks.
+                            buffer.put(byteChunk, offset, byteChunk.length - offset);
+
+                        } else {
+                            // Small chunks are coalesced into the direct buffer,
+                            // which is written only when the next chunk does not fit.
+                            if (byteChunk.length > buffer.remaining()) {
+                                flush(fileChannel, buffer);
+                            }
+                            buffer.put(byteChunk);
+                        }
+
+                        return buffer;
+
+                    } catch (IOException e) {
                         throw Exceptions.propagate(e);
                     }
 
-                }, (initial, byteChunk) -> {
+                }).doOnNext(buffer -> {
 
+                    // Write the data still in the buffer once the stream is complete.
                     try {
+                        flush(fileChannel, buffer);
+                        force(fileChannel, durability);
+                    } catch (IOException e) {
+                        throw Exceptions.propagate(e);
+                    }
 
-                        // Write it in multiple steps
-                        int remaining;
-                        int offset = 0;
-                        int length = Math.min(byteChunk.length, bufferLength);
+                }).then(), ByteBufferPool.get()::release);
+    }
 
-                        while (length > 0) {
+    private Mono<Void> writeCompressed(FileChannel fileChannel, Flux<byte[]> dataStream, int bufferLength,
+                                       Durability durability, Codec codec) {
+        // As for the plain content, the compressed content is coalesced into the leased direct buffer
+        // before being written. Each chunk is compressed as soon as it is received, therefore neither
+        // the plain nor the compressed content is ever entirely held in memory. The compressing stream
+        // is closed only once all the content has been written: on error or cancel it is aborted, so that
+        // a partially written file is not a valid (but truncated) compressed content. In any case its
+        // native memory is freed before the buffer is released.
+        return Mono.using(() -> ByteBufferPool.get().acquire(bufferLength), byteBuffer -> Mono.using(
+                () -> codec.compress(new ChannelOutputStream(fileChannel, byteBuffer), bufferLength),
+                compressor -> dataStream
+
+                        .reduce(compressor, (output, byteChunk) -> {
+                            try {
+                                output.write(byteChunk);
+                                return output;
+                            } catch (IOException e) {
+                                throw Exceptions.propagate(e);
+                            }
+
+                        }).doOnNext(output -> {
+
+                            // Closing the compressing stream writes the end of the compressed content.
+                            try {
+                                output.close();
+                                force(fileChannel, durability);
+                            } catch (IOException e) {
+                                throw Exceptions.propagate(e);
+                            }
+
+                        }).then(),
+                CompressingStream::abort), ByteBufferPool.get()::release);
+    }
 
-                            initial.buffer.clear();
+    private void append(WriteConfiguration config, FlowContext flowContext, OnResult callback,
+                        Path path, Flux<byte[]> dataStream, FileAttribute attributes, OperationMetrics.Sample sample) {
 
-                            initial.buffer.put(byteChunk, offset, length);
+        dataStream
+                // The whole message is collected before being appended, so that its content
+                // is never interleaved with the content of other messages appended to the same file.
+                .collectList()
 
-                            initial.buffer.flip();
+                // Each message is compressed on its own, since the appender batches the content of many messages.
+                .map(chunks -> config.getCodec() == null ? chunks : compress(chunks, config.getCodec(), config.getWriteBufferSize()))
 
-                            initial.fileChannel.write(initial.buffer);
+                .flatMap(chunks -> Mono.fromFuture(AppenderRegistry.get().append(path, config, chunks)))
 
-                            offset += bufferLength;
+                .flatMap(written -> {
+                    // The path of a rolling file is a pattern: the file written into is the current one.
+                    if (WriteMode.ROLLING.equals(config.getWriteMode())) {
+                        attributes.setFileName(written.toString());
+                    }
+                    return groupCommit(config, written);
+                })
 
-                            remaining = byteChunk.length - offset;
+                .subscribeOn(IOScheduler.get())
 
-                            length = Math.min(remaining, bufferLength);
+                .doOnError(throwable -> {
+                    sample.error();
+                    onError(flowContext, callback, path, throwable);
+                })
 
-                        }
+                .doOnSuccess(unused -> {
+                    sample.success();
+                    onResult(flowContext, callback, attributes);
+                })
 
-                        return initial;
+                .subscribe();
+    }
 
-                    } catch (Exception e) {
-                        // Do on success or error is not called if an exception
-                        // occurred here. Therefore we MUST clean up byte buffer
-                        // AND close file channel here.
-                        cleanUp(initial);
-                        throw Exceptions.propagate(e);
-                    }
+    private List<byte[]> compress(List<byte[]> chunks, Codec codec, int bufferLength) {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (OutputStream compressor = codec.compress(compressed, bufferLength)) {
+            for (byte[] chunk : chunks) {
+                compressor.write(chunk);
+            }
+        } catch (IOException exception) {
+            throw Exceptions.propagate(exception);
+        }
+        return Collections.singletonList(compressed.toByteArray());
+    }
 
+    private Path temporaryFileOf(Path path) {
+        // The temporary file must be in the same directory (hence on the same file system)
+        // as the target file, otherwise it could not be atomically moved.
+        String temporaryFileName = "." + path.getFileName() + "." + UUID.randomUUID() + ".tmp";
+        return path.resolveSibling(temporaryFileName);
+    }
 
-                }).doOnSuccessOrError((initial, throwable) -> {
+    private void publish(Path temporaryFile, Path path, Durability durability) {
+        try {
+            preservePermissions(path, temporaryFile);
 
-            // We must always and in any case (success or error) close the file channel.
-            cleanUp(initial);
+            // An atomic move replaces the target file if it exists.
+            Files.move(temporaryFile, path, StandardCopyOption.ATOMIC_MOVE);
 
-        }).doOnError(throwable -> {
+            // The move is a change of the directory: it is durable only once the directory is synced.
+            if (Durability.SYNC_DATA.equals(durability) || Durability.SYNC_ALL.equals(durability)) {
+                FileSyncUtils.syncDirectory(path.toAbsolutePath().getParent());
+            }
 
-            // On error map the exception and invoke the error callback.
-            Exception realException = mapException(path, throwable);
-            callback.onError(flowContext, realException);
+        } catch (IOException exception) {
+            throw Exceptions.propagate(exception);
+        }
+    }
 
-        }).doOnSuccess(initial -> {
+    private void preservePermissions(Path path, Path temporaryFile) throws IOException {
+        // The file replacing an existing file keeps its permissions, instead of the default ones.
+        if (!Files.exists(path)) return;
+        try {
+            Set<PosixFilePermission> permissions = Files.getPosixFilePermissions(path);
+            Files.setPosixFilePermissions(temporaryFile, permissions);
+        } catch (NoSuchFileException exception) {
+            // The file has been deleted in the meantime: there are no permissions to preserve.
+        } catch (UnsupportedOperationException exception) {
+            // Not a POSIX file system.
+        }
+    }
 
-            // On success build the message and invoke the callback.
-            FileAttribute attributes = new FileAttribute(path.toString());
+    /**
+     * The checksum mismatch is found once all the content has been written: a new or overwritten file
+     * is deleted while the channel (and the lock, if any) is still held, so that a content not matching
+     * the expected checksum is never left on the file system. The temporary file of an atomic replace
+     * is deleted anyway, while the appended content is verified before being appended.
+     */
+    private Mono<Void> deleteOnMismatch(Mono<Void> write, Path path, WriteMode mode) {
+        if (!WriteMode.OVERWRITE.equals(mode) && !WriteMode.CREATE_NEW.equals(mode)) return write;
+        return write.onErrorResume(ChecksumMismatchException.class, exception -> {
+            deleteSilently(path);
+            return Mono.error(exception);
+        });
+    }
 
-            Message outMessage = MessageBuilder.get(FileWrite.class)
-                    .attributes(attributes)
-                    .empty()
-                    .build();
+    private void deleteSilently(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException exception) {
+            logger.warn(String.format("Could not delete file=[%s]", file), exception);
+        }
+    }
 
-            callback.onResult(flowContext, outMessage);
+    private Mono<Void> groupCommit(WriteConfiguration config, Path path) {
+        // With group commit the sync happens after the channel has been closed,
+        // and it is shared with all the writes on the same file completed in the same window.
+        return Mono.defer(() -> Durability.GROUP_COMMIT.equals(config.getDurability()) ?
+                GroupCommit.get().sync(path, config.getGroupCommitWindow()) :
+                Mono.empty());
+    }
 
-        }).subscribeOn(Schedulers.elastic())
-                .subscribe(); // Immediately fire the writing into the buffer
+    private void onError(FlowContext flowContext, OnResult callback, Path path, Throwable throwable) {
+        // On error map the exception and invoke the error callback.
+        Exception realException = mapException(path, throwable);
+        callback.onError(flowContext, realException);
+    }
+
+    private void onResult(FlowContext flowContext, OnResult callback, FileAttribute attributes) {
+        // On success build the message and invoke the callback.
+        Message outMessage = MessageBuilder.get(FileWrite.class)
+                .attributes(attributes)
+                .empty()
+                .build();
+
+        callback.onResult(flowContext, outMessage);
+    }
+
+    private void flush(FileChannel fileChannel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        writeFully(fileChannel, buffer);
+        buffer.clear();
+    }
+
+    private void force(FileChannel fileChannel, Durability durability) throws IOException {
+        if (Durability.SYNC_DATA.equals(durability)) {
+            fileChannel.force(false);
+        } else if (Durability.SYNC_ALL.equals(durability)) {
+            fileChannel.force(true);
+        }
+    }
+
+    private void writeFully(FileChannel fileChannel, ByteBuffer... buffers) throws IOException {
+        // A single write call might not write all the remaining bytes.
+        ByteBuffer last = buffers[buffers.length - 1];
+        while (last.hasRemaining()) {
+            fileChannel.write(buffers);
+        }
     }
 
     private Exception mapException(Path path, Throwable throwable) {
@@ -140,29 +398,4 @@ public class Writer {
             return new FileWriteException(errorMessage, throwable);
         }
     }
-
-    private void cleanUp(Initial initial) {
-        if (initial != null) {
-            if (initial.buffer != null) initial.buffer.clear();
-            initial.buffer = null;
-
-            CloseableUtils.closeSilently(initial.fileChannel);
-            initial.fileChannel = null;
-        }
-    }
-
-    /**
-     * An object keeping a pair of buffer and file channel used in the reduce step
-     * to avoid creating a buffer before knowing if the file channel could be successfully
-     * opened.
-     */
-    static class Initial {
-        ByteBuffer buffer;
-        FileChannel fileChannel;
-
-        Initial(ByteBuffer buffer, FileChannel fileChannel) {
-            this.buffer = buffer;
-            this.fileChannel = fileChannel;
-        }
-    }
 }
@@ -0,0 +1,112 @@
+package de.codecentric.reedelk.file.internal.checksum;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.Checksum;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class Crc32cTest {
+
+    @Test
+    void shouldComputeCheckValue() {
+        // Given
+        byte[] content = "123456789".getBytes(StandardCharsets.US_ASCII);
+
+        // Expect
+        assertThat(crc32cOf(content)).isEqualTo(0xE3069283L);
+    }
+
+    @Test
+    void shouldComputeIscsiTestVectors() {
+        // Given: the test vectors of RFC 3720 (iSCSI), appendix B.4.
+        byte[] zeros = new byte[32];
+        byte[] ones = new byte[32];
+        Arrays.fill(ones, (byte) 0xFF);
+        byte[] incrementing = new byte[32];
+        byte[] decrementing = new byte[32];
+        for (int i = 0; i < 32; i++) {
+            incrementing[i] = (byte) i;
+            decrementing[i] = (byte) (31 - i);
+        }
+
+        // Expect
+        assertThat(crc32cOf(zeros)).isEqualTo(0x8A9136AAL);
+        assertThat(crc32cOf(ones)).isEqualTo(0x62A8AB43L);
+        assertThat(crc32cOf(incrementing)).isEqualTo(0x46DD794EL);
+        assertThat(crc32cOf(decrementing)).isEqualTo(0x113FDB5CL);
+    }
+
+    @Test
+    void shouldComputeSameValueByteByByteAndInBulk() {
+        // Given
+        Random random = new Random(7);
+
+        for (int length = 0; length < 100; length++) {
+            byte[] content = new byte[length];
+            random.nextBytes(content);
+
+            // When
+            Crc32c bytewise = new Crc32c();
+            for (byte value : content) bytewise.update(value);
+
+            Crc32c bulk = new Crc32c();
+            int split = length / 3;
+            bulk.update(content, 0, split);
+            bulk.update(content, split, length - split);
+
+            // Then
+            assertThat(bulk.getValue()).isEqualTo(bytewise.getValue());
+        }
+    }
+
+    @Test
+    void shouldComputeValueOfSubArray() {
+        // Given
+        byte[] content = "xx123456789yy".getBytes(StandardCharsets.US_ASCII);
+        Crc32c crc = new Crc32c();
+
+        // When
+        crc.update(content, 2, 9);
+
+        // Then
+        assertThat(crc.getValue()).isEqualTo(0xE3069283L);
+    }
+
+    @Test
+    void shouldResetValue() {
+        // Given
+        Crc32c crc = new Crc32c();
+        crc.update(new byte[]{1, 2, 3}, 0, 3);
+
+        // When
+        crc.reset();
+        crc.update("123456789".getBytes(StandardCharsets.US_ASCII), 0, 9);
+
+        // Then
+        assertThat(crc.getValue()).isEqualTo(0xE3069283L);
+    }
+
+    @Test
+    void shouldCreateChecksumComputingSameValue() {
+        // Given
+        byte[] content = new byte[4096];
+        new Random(11).nextBytes(content);
+        Checksum created = Crc32c.create();
+
+        // When
+        created.update(content, 0, content.length);
+
+        // Then
+        assertThat(created.getValue()).isEqualTo(crc32cOf(content));
+    }
+
+    private static long crc32cOf(byte[] content) {
+        Crc32c crc = new Crc32c();
+        crc.update(content, 0, content.length);
+        return crc.getValue();
+    }
+}
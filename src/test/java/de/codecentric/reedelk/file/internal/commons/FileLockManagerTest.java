@@ -0,0 +1,166 @@
+package de.codecentric.reedelk.file.internal.commons;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FileLockManagerTest {
+
+    private final FileLockManager manager = FileLockManager.get();
+
+    // Each test locks its own path: the lock manager is module wide.
+    private final Path path = Paths.get("file-lock-manager-test", String.valueOf(System.nanoTime()));
+
+    @Test
+    void shouldGrantExclusivePermitOnlyOnceReleased() {
+        // Given
+        CompletableFuture<FileLockManager.Permit> first = manager.acquire(path, false);
+        CompletableFuture<FileLockManager.Permit> second = manager.acquire(path, false);
+
+        // Expect
+        assertThat(first.isDone()).isTrue();
+        assertThat(second.isDone()).isFalse();
+
+        // When
+        first.join().release();
+
+        // Then
+        assertThat(second.isDone()).isTrue();
+        second.join().release();
+    }
+
+    @Test
+    void shouldGrantSharedPermitsTogether() {
+        // Given
+        CompletableFuture<FileLockManager.Permit> first = manager.acquire(path, true);
+        CompletableFuture<FileLockManager.Permit> second = manager.acquire(path, true);
+        CompletableFuture<FileLockManager.Permit> exclusive = manager.acquire(path, false);
+
+        // Expect
+        assertThat(first.isDone()).isTrue();
+        assertThat(second.isDone()).isTrue();
+        assertThat(exclusive.isDone()).isFalse();
+
+        // When
+        first.join().release();
+
+        // Then
+        assertThat(exclusive.isDone()).isFalse();
+
+        // When
+        second.join().release();
+
+        // Then
+        assertThat(exclusive.isDone()).isTrue();
+        exclusive.join().release();
+    }
+
+    @Test
+    void shouldGrantSharedPermitsWaitingAtTheHeadTogether() {
+        // Given
+        CompletableFuture<FileLockManager.Permit> exclusive = manager.acquire(path, false);
+        CompletableFuture<FileLockManager.Permit> firstShared = manager.acquire(path, true);
+        CompletableFuture<FileLockManager.Permit> secondShared = manager.acquire(path, true);
+        CompletableFuture<FileLockManager.Permit> nextExclusive = manager.acquire(path, false);
+        CompletableFuture<FileLockManager.Permit> lastShared = manager.acquire(path, true);
+
+        // When
+        exclusive.join().release();
+
+        // Then
+        assertThat(firstShared.isDone()).isTrue();
+        assertThat(secondShared.isDone()).isTrue();
+        assertThat(nextExclusive.isDone()).isFalse();
+        assertThat(lastShared.isDone()).isFalse();
+
+        // When
+        firstShared.join().release();
+        secondShared.join().release();
+
+        // Then
+        assertThat(nextExclusive.isDone()).isTrue();
+        assertThat(lastShared.isDone()).isFalse();
+
+        // When
+        nextExclusive.join().release();
+
+        // Then
+        assertThat(lastShared.isDone()).isTrue();
+        lastShared.join().release();
+    }
+
+    @Test
+    void shouldNotGrantSharedPermitAheadOfWaitingExclusivePermit() {
+        // Given
+        CompletableFuture<FileLockManager.Permit> shared = manager.acquire(path, true);
+        CompletableFuture<FileLockManager.Permit> exclusive = manager.acquire(path, false);
+
+        // When
+        CompletableFuture<FileLockManager.Permit> lateShared = manager.acquire(path, true);
+
+        // Then
+        assertThat(lateShared.isDone()).isFalse();
+
+        // When
+        shared.join().release();
+        exclusive.join().release();
+
+        // Then
+        assertThat(lateShared.isDone()).isTrue();
+        lateShared.join().release();
+    }
+
+    @Test
+    void shouldReleasePermitGrantedAfterCancellation() {
+        // Given
+        CompletableFuture<FileLockManager.Permit> first = manager.acquire(path, false);
+        CompletableFuture<FileLockManager.Permit> cancelled = manager.acquire(path, false);
+        CompletableFuture<FileLockManager.Permit> next = manager.acquire(path, false);
+
+        // When
+        cancelled.cancel(false);
+        first.join().release();
+
+        // Then
+        assertThat(next.isDone()).isTrue();
+        next.join().release();
+    }
+
+    @Test
+    void shouldReleasePermitOnlyOnce() {
+        // Given
+        CompletableFuture<FileLockManager.Permit> first = manager.acquire(path, true);
+        CompletableFuture<FileLockManager.Permit> second = manager.acquire(path, true);
+        CompletableFuture<FileLockManager.Permit> exclusive = manager.acquire(path, false);
+
+        // When
+        first.join().release();
+        first.join().release();
+
+        // Then
+        assertThat(exclusive.isDone()).isFalse();
+        second.join().release();
+        assertThat(exclusive.isDone()).isTrue();
+        exclusive.join().release();
+    }
+
+    @Test
+    void shouldLockNormalisedPath() {
+        // Given
+        Path samePath = path.resolve("..").resolve(path.getFileName());
+        CompletableFuture<FileLockManager.Permit> first = manager.acquire(path, false);
+
+        // When
+        CompletableFuture<FileLockManager.Permit> second = manager.acquire(samePath.toAbsolutePath(), false);
+
+        // Then
+        assertThat(second.isDone()).isFalse();
+        first.join().release();
+        assertThat(second.isDone()).isTrue();
+        second.join().release();
+    }
+}
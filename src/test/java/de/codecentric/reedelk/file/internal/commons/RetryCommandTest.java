@@ -0,0 +1,132 @@
+package de.codecentric.reedelk.file.internal.commons;
+
+import de.codecentric.reedelk.file.internal.exception.MaxRetriesExceeded;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RetryCommandTest {
+
+    @Test
+    void shouldMakeAllRetriesBeforeDeadlineSync() {
+        for (RetryPolicy policy : RetryPolicy.values()) {
+            // Given
+            RetryCommand command = retryCommand(policy);
+            AtomicInteger attempts = new AtomicInteger();
+
+            // When
+            assertThrows(MaxRetriesExceeded.class, () -> command.executeSync(() -> {
+                attempts.incrementAndGet();
+                throw new IOException("locked");
+            }));
+
+            // Then: the first attempt and all the retries.
+            assertThat(attempts.get()).isEqualTo(4);
+        }
+    }
+
+    @Test
+    void shouldMakeAllRetriesBeforeDeadlineAsync() {
+        for (RetryPolicy policy : RetryPolicy.values()) {
+            // Given
+            RetryCommand command = retryCommand(policy);
+            AtomicInteger attempts = new AtomicInteger();
+            Mono<Object> operation = Mono.defer(() -> {
+                attempts.incrementAndGet();
+                return Mono.error(new IOException("locked"));
+            });
+
+            // When
+            assertThrows(MaxRetriesExceeded.class, () -> command.execute(operation).block());
+
+            // Then
+            assertThat(attempts.get()).isEqualTo(4);
+        }
+    }
+
+    @Test
+    void shouldGiveUpAtGivenDeadline() {
+        // Given
+        RetryCommand command = retryCommand(RetryPolicy.FIXED);
+        AtomicInteger attempts = new AtomicInteger();
+
+        // When
+        assertThrows(MaxRetriesExceeded.class, () -> command.executeSync(() -> {
+            attempts.incrementAndGet();
+            throw new IOException("locked");
+        }, System.nanoTime()));
+
+        // Then
+        assertThat(attempts.get()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldNotRetryOtherExceptions() {
+        // Given
+        RetryCommand command = retryCommand(RetryPolicy.FIXED);
+        AtomicInteger attempts = new AtomicInteger();
+
+        // When
+        assertThrows(IllegalStateException.class, () -> command.executeSync(() -> {
+            attempts.incrementAndGet();
+            throw new IllegalStateException("not retried");
+        }));
+
+        // Then
+        assertThat(attempts.get()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldSumMaxDelaysOfRetries() {
+        // Expect
+        assertThat(RetryPolicy.FIXED.maxTotalDelay(500, 3)).isEqualTo(1500L);
+        assertThat(RetryPolicy.EXPONENTIAL.maxTotalDelay(500, 3)).isEqualTo(500L + 1000L + 2000L);
+        assertThat(RetryPolicy.DECORRELATED_JITTER.maxTotalDelay(500, 3)).isEqualTo(500L + 1500L + 2000L);
+        assertThat(RetryPolicy.EXPONENTIAL.maxTotalDelay(500, 10)).isEqualTo(500L + 1000L + 8 * 2000L);
+        assertThat(RetryPolicy.FIXED.maxTotalDelay(500, 0)).isZero();
+    }
+
+    @Test
+    void shouldPickDelaysUpToMaxDelay() {
+        for (RetryPolicy policy : RetryPolicy.values()) {
+            long previousDelay = 0;
+            for (int retries = 0; retries < 10; retries++) {
+                // When
+                long delay = policy.delay(100, previousDelay, retries);
+
+                // Then
+                assertThat(delay).isBetween(0L, policy.maxDelay(100, previousDelay, retries));
+                previousDelay = delay;
+            }
+        }
+    }
+
+    @Test
+    void shouldNotOverflowDeadline() {
+        // Given
+        RetryCommand command = RetryCommand.builder()
+                .policy(RetryPolicy.FIXED)
+                .maxRetries(Integer.MAX_VALUE)
+                .waitTime(Long.MAX_VALUE / 2)
+                .retryOn(IOException.class)
+                .build();
+
+        // Expect
+        assertThat(command.deadline() - System.nanoTime()).isGreaterThan(TimeUnit.DAYS.toNanos(365));
+    }
+
+    private static RetryCommand retryCommand(RetryPolicy policy) {
+        return RetryCommand.builder()
+                .policy(policy)
+                .maxRetries(3)
+                .waitTime(50)
+                .retryOn(IOException.class)
+                .build();
+    }
+}
@@ -0,0 +1,128 @@
+package de.codecentric.reedelk.file.internal.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LatencyHistogramTest {
+
+    @Test
+    void shouldHaveOneBucketForEachSmallValue() {
+        // Expect
+        for (int value = 0; value < 8; value++) {
+            assertThat(LatencyHistogram.indexOf(value)).isEqualTo(value);
+            assertThat(LatencyHistogram.upperBoundOf(value)).isEqualTo((long) value);
+        }
+    }
+
+    @Test
+    void shouldSplitEachPowerOfTwoIntoLinearBuckets() {
+        // Expect: 8..15 have a bucket each, 16..31 have a bucket every two values.
+        assertThat(LatencyHistogram.indexOf(8)).isEqualTo(8);
+        assertThat(LatencyHistogram.indexOf(15)).isEqualTo(15);
+        assertThat(LatencyHistogram.indexOf(16)).isEqualTo(16);
+        assertThat(LatencyHistogram.indexOf(17)).isEqualTo(16);
+        assertThat(LatencyHistogram.indexOf(18)).isEqualTo(17);
+        assertThat(LatencyHistogram.indexOf(31)).isEqualTo(23);
+        assertThat(LatencyHistogram.indexOf(32)).isEqualTo(24);
+    }
+
+    @Test
+    void shouldContainEachValueWithinItsBucket() {
+        // Given
+        long[] values = {8, 9, 100, 1_000, 12_345, 1_000_000, 987_654_321, Long.MAX_VALUE / 3, Long.MAX_VALUE};
+
+        for (long value : values) {
+            // When
+            int index = LatencyHistogram.indexOf(value);
+
+            // Then: the value is within its bucket and above the previous one,
+            // and the bucket is at most 1/8 of the value wide.
+            long upperBound = LatencyHistogram.upperBoundOf(index);
+            long previousUpperBound = LatencyHistogram.upperBoundOf(index - 1);
+            assertThat(value).isLessThanOrEqualTo(upperBound);
+            assertThat(value).isGreaterThan(previousUpperBound);
+            assertThat(upperBound - previousUpperBound).isLessThanOrEqualTo(Math.max(1, value / 8));
+        }
+    }
+
+    @Test
+    void shouldHaveContiguousBuckets() {
+        // Expect
+        for (int index = 1; index < (64 - 3) * 8; index++) {
+            long lowerBound = LatencyHistogram.upperBoundOf(index - 1) + 1;
+            assertThat(LatencyHistogram.indexOf(lowerBound)).isEqualTo(index);
+            assertThat(LatencyHistogram.indexOf(LatencyHistogram.upperBoundOf(index))).isEqualTo(index);
+        }
+    }
+
+    @Test
+    void shouldBeEmpty() {
+        // Given
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        // Expect
+        assertThat(histogram.getCount()).isZero();
+        assertThat(histogram.getMax()).isZero();
+        assertThat(histogram.getMean()).isEqualTo(0.0);
+        assertThat(histogram.getPercentile(99)).isZero();
+    }
+
+    @Test
+    void shouldComputeCountMeanAndMax() {
+        // Given
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        // When
+        histogram.record(100);
+        histogram.record(200);
+        histogram.record(600);
+
+        // Then
+        assertThat(histogram.getCount()).isEqualTo(3L);
+        assertThat(histogram.getMean()).isEqualTo(300.0);
+        assertThat(histogram.getMax()).isEqualTo(600L);
+    }
+
+    @Test
+    void shouldRecordNegativeValuesAsZero() {
+        // Given
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        // When
+        histogram.record(-5);
+
+        // Then
+        assertThat(histogram.getCount()).isEqualTo(1L);
+        assertThat(histogram.getMax()).isZero();
+        assertThat(histogram.getPercentile(100)).isZero();
+    }
+
+    @Test
+    void shouldComputePercentilesWithinRelativeError() {
+        // Given
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        // When
+        for (long value = 1; value <= 10_000; value++) {
+            histogram.record(value * 1_000);
+        }
+
+        // Then: the upper bound of the bucket, at most 1/8 above the exact percentile.
+        assertThat(histogram.getPercentile(50)).isBetween(5_000_000L, 5_000_000L + 5_000_000L / 8);
+        assertThat(histogram.getPercentile(99)).isBetween(9_900_000L, 9_900_000L + 9_900_000L / 8);
+        assertThat(histogram.getPercentile(0)).isBetween(1_000L, 1_000L + 1_000L / 8);
+    }
+
+    @Test
+    void shouldNotExceedMaxValue() {
+        // Given
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        // When
+        histogram.record(1_000_001);
+
+        // Then
+        assertThat(histogram.getPercentile(100)).isEqualTo(1_000_001L);
+    }
+}
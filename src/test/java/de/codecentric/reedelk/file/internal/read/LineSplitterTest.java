@@ -0,0 +1,215 @@
+package de.codecentric.reedelk.file.internal.read;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LineSplitterTest {
+
+    private static final Charset UTF_8 = StandardCharsets.UTF_8;
+    private static final Charset UTF_16LE = StandardCharsets.UTF_16LE;
+
+    @Test
+    void shouldSplitLines() throws IOException {
+        // When
+        List<String> lines = split("one\ntwo\nthree\n", UTF_8, 1024, 1);
+
+        // Then
+        assertThat(lines).containsExactly("one", "two", "three");
+    }
+
+    @Test
+    void shouldReturnLastLineWithoutTerminator() throws IOException {
+        // When
+        List<String> lines = split("one\ntwo", UTF_8, 1024, 1);
+
+        // Then
+        assertThat(lines).containsExactly("one", "two");
+    }
+
+    @Test
+    void shouldRemoveCarriageReturn() throws IOException {
+        // When
+        List<String> lines = split("one\r\ntwo\r\n", UTF_8, 1024, 1);
+
+        // Then
+        assertThat(lines).containsExactly("one", "two");
+    }
+
+    @Test
+    void shouldKeepEmptyLines() throws IOException {
+        // When
+        List<String> lines = split("one\n\nthree\n", UTF_8, 1024, 1);
+
+        // Then
+        assertThat(lines).containsExactly("one", "", "three");
+    }
+
+    @Test
+    void shouldReturnNoElementsWhenContentIsEmpty() throws IOException {
+        // When
+        List<String> lines = split("", UTF_8, 1024, 1);
+
+        // Then
+        assertThat(lines).isEmpty();
+    }
+
+    @Test
+    void shouldGroupLinesPerElement() throws IOException {
+        // When
+        List<String> elements = split("a\nb\r\nc\nd\ne\n", UTF_8, 1024, 2);
+
+        // Then: the lines of an element are separated by their original terminators.
+        assertThat(elements).containsExactly("a\nb", "c\nd", "e");
+    }
+
+    @Test
+    void shouldNotSplitLinesStraddlingReads() throws IOException {
+        // When
+        List<String> lines = split("short\na line much longer than the read buffer\nend", UTF_8, 4, 1);
+
+        // Then
+        assertThat(lines).containsExactly("short", "a line much longer than the read buffer", "end");
+    }
+
+    @Test
+    void shouldReadAtMostLength() throws IOException {
+        // Given
+        byte[] content = "one\ntwo\nthree\n".getBytes(UTF_8);
+
+        // When
+        List<String> lines = split(content, 6, UTF_8, 1024, 1, false, false);
+
+        // Then
+        assertThat(lines).containsExactly("one", "tw");
+    }
+
+    @Test
+    void shouldSkipFirstLine() throws IOException {
+        // Given
+        byte[] content = "end of a line\nsecond\nthird\n".getBytes(UTF_8);
+
+        // When
+        List<String> lines = split(content, content.length, UTF_8, 1024, 1, true, false);
+
+        // Then
+        assertThat(lines).containsExactly("second", "third");
+    }
+
+    @Test
+    void shouldReturnNoElementsWhenOnlyFirstLineIsSkipped() throws IOException {
+        // Given
+        byte[] content = "end of a line".getBytes(UTF_8);
+
+        // When
+        List<String> lines = split(content, content.length, UTF_8, 1024, 1, true, false);
+
+        // Then
+        assertThat(lines).isEmpty();
+    }
+
+    @Test
+    void shouldSkipLastLineWithoutTerminator() throws IOException {
+        // Given
+        byte[] content = "first\nsecond\nbeginning of a li".getBytes(UTF_8);
+
+        // When
+        List<String> lines = split(content, content.length, UTF_8, 1024, 1, false, true);
+
+        // Then
+        assertThat(lines).containsExactly("first", "second");
+    }
+
+    @Test
+    void shouldKeepLastLineWithTerminatorWhenSkippingLastLine() throws IOException {
+        // Given
+        byte[] content = "first\nsecond\n".getBytes(UTF_8);
+
+        // When
+        List<String> lines = split(content, content.length, UTF_8, 1024, 1, false, true);
+
+        // Then
+        assertThat(lines).containsExactly("first", "second");
+    }
+
+    @Test
+    void shouldSkipFirstAndLastLine() throws IOException {
+        // Given
+        byte[] content = "ne\nfull line\nanother\nbeginn".getBytes(UTF_8);
+
+        // When
+        List<String> lines = split(content, content.length, UTF_8, 2, 1, true, true);
+
+        // Then
+        assertThat(lines).containsExactly("full line", "another");
+    }
+
+    @Test
+    void shouldSplitUtf16LinesAtCodeUnitBoundariesOnly() throws IOException {
+        // Given: U+0A41 followed by U+4100 is encoded as 41 0A 00 41,
+        // which contains the encoding of '\n' (0A 00) across two code units.
+        String content = "\u0A41\u4100\nsecond\n";
+
+        // When
+        List<String> lines = split(content, UTF_16LE, 3, 1);
+
+        // Then
+        assertThat(lines).containsExactly("\u0A41\u4100", "second");
+    }
+
+    @Test
+    void shouldRemoveUtf16CarriageReturn() throws IOException {
+        // When
+        List<String> lines = split("one\r\ntwo", UTF_16LE, 1024, 1);
+
+        // Then
+        assertThat(lines).containsExactly("one", "two");
+    }
+
+    @Test
+    void shouldReturnCodeUnitOfCharset() {
+        assertThat(LineSplitter.codeUnitOf(UTF_8)).isEqualTo(1);
+        assertThat(LineSplitter.codeUnitOf(UTF_16LE)).isEqualTo(2);
+        assertThat(LineSplitter.codeUnitOf(StandardCharsets.UTF_16)).isEqualTo(2);
+    }
+
+    @Test
+    void shouldReturnByteOrderMarkOfCharset() {
+        assertThat(LineSplitter.byteOrderMarkOf(UTF_8)).isEqualTo(0);
+        assertThat(LineSplitter.byteOrderMarkOf(UTF_16LE)).isEqualTo(0);
+        assertThat(LineSplitter.byteOrderMarkOf(StandardCharsets.UTF_16)).isEqualTo(2);
+    }
+
+    private static List<String> split(String content, Charset charset, int bufferSize, int linesPerElement) throws IOException {
+        byte[] bytes = content.getBytes(charset);
+        return split(bytes, bytes.length, charset, bufferSize, linesPerElement, false, false);
+    }
+
+    private static List<String> split(byte[] content, long length, Charset charset, int bufferSize, int linesPerElement,
+                                      boolean skipFirstLine, boolean skipLastLine) throws IOException {
+        LineSplitter splitter = new LineSplitter(
+                Channels.newChannel(new ByteArrayInputStream(content)),
+                length,
+                ByteBuffer.allocate(bufferSize),
+                charset,
+                linesPerElement,
+                skipFirstLine,
+                skipLastLine);
+
+        List<String> elements = new ArrayList<>();
+        ByteBuffer element;
+        while ((element = splitter.next()) != null) {
+            elements.add(charset.decode(element).toString());
+        }
+        return elements;
+    }
+}
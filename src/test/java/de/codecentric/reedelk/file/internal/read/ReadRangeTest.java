@@ -0,0 +1,140 @@
+package de.codecentric.reedelk.file.internal.read;
+
+import de.codecentric.reedelk.file.internal.exception.FileReadException;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ReadRangeTest {
+
+    private final Path path = Paths.get("/var/logs/log1.txt");
+
+    @Test
+    void shouldReturnAllWhenNoOffsetLengthOrTail() {
+        // When
+        ReadRange range = ReadRange.of(path, null, null, null);
+
+        // Then
+        assertThat(range).isSameAs(ReadRange.ALL);
+        assertThat(range.isOpenEnded()).isTrue();
+        assertThat(range.start(100)).isEqualTo(0);
+        assertThat(range.end(100)).isEqualTo(100);
+    }
+
+    @Test
+    void shouldReadFromOffsetToEndOfFile() {
+        // When
+        ReadRange range = ReadRange.of(path, 10L, null, null);
+
+        // Then
+        assertThat(range.isOpenEnded()).isTrue();
+        assertThat(range.start(100)).isEqualTo(10);
+        assertThat(range.end(100)).isEqualTo(100);
+    }
+
+    @Test
+    void shouldReadLengthFromBeginningWhenOffsetNotGiven() {
+        // When
+        ReadRange range = ReadRange.of(path, null, 20L, null);
+
+        // Then
+        assertThat(range.isOpenEnded()).isFalse();
+        assertThat(range.start(100)).isEqualTo(0);
+        assertThat(range.end(100)).isEqualTo(20);
+    }
+
+    @Test
+    void shouldReadLengthFromOffset() {
+        // When
+        ReadRange range = ReadRange.of(path, 10L, 20L, null);
+
+        // Then
+        assertThat(range.start(100)).isEqualTo(10);
+        assertThat(range.end(100)).isEqualTo(30);
+    }
+
+    @Test
+    void shouldClampLengthToEndOfFile() {
+        // When
+        ReadRange range = ReadRange.of(path, 90L, 20L, null);
+
+        // Then
+        assertThat(range.start(100)).isEqualTo(90);
+        assertThat(range.end(100)).isEqualTo(100);
+    }
+
+    @Test
+    void shouldNotOverflowWhenOffsetPlusLengthExceedsLongRange() {
+        // When
+        ReadRange range = ReadRange.of(path, 50L, Long.MAX_VALUE, null);
+
+        // Then
+        assertThat(range.start(100)).isEqualTo(50);
+        assertThat(range.end(100)).isEqualTo(100);
+    }
+
+    @Test
+    void shouldBeEmptyWhenOffsetIsPastEndOfFile() {
+        // When
+        ReadRange range = ReadRange.of(path, 200L, 5L, null);
+
+        // Then
+        assertThat(range.start(100)).isEqualTo(100);
+        assertThat(range.end(100)).isEqualTo(100);
+    }
+
+    @Test
+    void shouldReadTailOfFile() {
+        // When
+        ReadRange range = ReadRange.of(path, null, null, 30L);
+
+        // Then
+        assertThat(range.isOpenEnded()).isFalse();
+        assertThat(range.start(100)).isEqualTo(70);
+        assertThat(range.end(100)).isEqualTo(100);
+    }
+
+    @Test
+    void shouldReadWholeFileWhenTailIsLargerThanFile() {
+        // When
+        ReadRange range = ReadRange.of(path, null, null, 1000L);
+
+        // Then
+        assertThat(range.start(100)).isEqualTo(0);
+        assertThat(range.end(100)).isEqualTo(100);
+    }
+
+    @Test
+    void shouldIgnoreOffsetAndLengthWhenTailIsGiven() {
+        // When
+        ReadRange range = ReadRange.of(path, 10L, 20L, 30L);
+
+        // Then
+        assertThat(range.start(100)).isEqualTo(70);
+        assertThat(range.end(100)).isEqualTo(100);
+    }
+
+    @Test
+    void shouldThrowExceptionWhenOffsetIsNegative() {
+        // When
+        FileReadException thrown = assertThrows(FileReadException.class,
+                () -> ReadRange.of(path, -1L, null, null));
+
+        // Then
+        assertThat(thrown.getMessage()).contains(path.toString());
+    }
+
+    @Test
+    void shouldThrowExceptionWhenLengthIsNegative() {
+        assertThrows(FileReadException.class, () -> ReadRange.of(path, 0L, -1L, null));
+    }
+
+    @Test
+    void shouldThrowExceptionWhenTailIsNegative() {
+        assertThrows(FileReadException.class, () -> ReadRange.of(path, null, null, -1L));
+    }
+}
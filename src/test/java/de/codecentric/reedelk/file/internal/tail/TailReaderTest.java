@@ -0,0 +1,139 @@
+package de.codecentric.reedelk.file.internal.tail;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TailReaderTest {
+
+    private Path directory;
+    private Path file;
+    private Path checkpointFile;
+    private TailReader reader;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        directory = Files.createTempDirectory("tail-reader-test");
+        file = directory.resolve("orders.log");
+        checkpointFile = directory.resolve("checkpoints.properties");
+        reader = new TailReader(checkpointFile, true);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        reader.dispose();
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path current : (Iterable<Path>) files::iterator) {
+                Files.deleteIfExists(current);
+            }
+        }
+        Files.deleteIfExists(directory);
+    }
+
+    @Test
+    void shouldReadOnlyAppendedBytes() throws IOException {
+        // Given
+        append("first\n");
+        assertThat(content(reader.tail(file, null))).isEqualTo("first\n");
+
+        // When
+        append("second\n");
+
+        // Then
+        assertThat(content(reader.tail(file, null))).isEqualTo("second\n");
+        assertThat(content(reader.tail(file, null))).isEqualTo("");
+    }
+
+    @Test
+    void shouldNotMoveCheckpointBackWhenOverlappingReadsCompleteOutOfOrder() throws IOException {
+        // Given: two triggers, the second one starting before the first one has been consumed.
+        append("first\n");
+        TailReader.Tail earlier = reader.tail(file, null);
+        append("second\n");
+        TailReader.Tail later = reader.tail(file, null);
+
+        // When: the later (longer) read completes first.
+        assertThat(content(later)).isEqualTo("first\nsecond\n");
+        assertThat(content(earlier)).isEqualTo("first\n");
+
+        // Then
+        assertThat(checkpoint().offset).isEqualTo(13L);
+        assertThat(content(reader.tail(file, null))).isEqualTo("");
+    }
+
+    @Test
+    void shouldNotMoveCheckpointBackWhenReadFindsNothingNew() throws IOException {
+        // Given
+        append("first\n");
+        content(reader.tail(file, null));
+        Checkpoint first = checkpoint();
+        append("second\n");
+        content(reader.tail(file, null));
+
+        // When: a read which started from the first checkpoint, found nothing new and records it late.
+        CheckpointStore store = CheckpointStore.acquire(checkpointFile);
+        try {
+            store.advance(file, first, first);
+        } finally {
+            store.release();
+        }
+
+        // Then
+        assertThat(checkpoint().offset).isEqualTo(13L);
+    }
+
+    @Test
+    void shouldReadAgainFromStartWhenFileIsTruncated() throws IOException {
+        // Given
+        append("first line\n");
+        content(reader.tail(file, null));
+
+        // When
+        Files.write(file, "new\n".getBytes(StandardCharsets.UTF_8), StandardOpenOption.TRUNCATE_EXISTING);
+
+        // Then
+        assertThat(content(reader.tail(file, null))).isEqualTo("new\n");
+        assertThat(checkpoint().offset).isEqualTo(4L);
+    }
+
+    @Test
+    void shouldNotAdvanceCheckpointWhenStreamIsNotConsumed() throws IOException {
+        // Given
+        append("first\n");
+
+        // When
+        reader.tail(file, null);
+
+        // Then
+        assertThat(content(reader.tail(file, null))).isEqualTo("first\n");
+    }
+
+    private void append(String content) throws IOException {
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8), StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    private Checkpoint checkpoint() {
+        CheckpointStore store = CheckpointStore.acquire(checkpointFile);
+        try {
+            return store.get(file);
+        } finally {
+            store.release();
+        }
+    }
+
+    private static String content(TailReader.Tail tail) {
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        tail.stream.toIterable().forEach(chunk -> content.write(chunk, 0, chunk.length));
+        return new String(content.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
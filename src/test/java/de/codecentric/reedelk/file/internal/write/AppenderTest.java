@@ -0,0 +1,161 @@
+package de.codecentric.reedelk.file.internal.write;
+
+import de.codecentric.reedelk.file.component.FileWriteConfiguration;
+import de.codecentric.reedelk.file.internal.exception.FileWriteException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class AppenderTest {
+
+    private Path directory;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        directory = Files.createTempDirectory("appender-test");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.deleteIfExists(file);
+            }
+        }
+        Files.deleteIfExists(directory);
+    }
+
+    @Test
+    void shouldAppendConcurrentAppendsWithoutInterleaving() throws Exception {
+        // Given
+        Path file = directory.resolve("concurrent.log");
+        WriteConfiguration config = configuration(false);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        // When
+        List<Future<CompletableFuture<Path>>> results = new ArrayList<>();
+        for (int thread = 0; thread < 8; thread++) {
+            int threadId = thread;
+            results.add(executor.submit(() -> {
+                CompletableFuture<Path> last = null;
+                for (int i = 0; i < 500; i++) {
+                    // Each line is appended as two chunks, which must not be split.
+                    byte[] head = ("thread-" + threadId + "-").getBytes(StandardCharsets.UTF_8);
+                    byte[] tail = ("line-" + i + "\n").getBytes(StandardCharsets.UTF_8);
+                    last = AppenderRegistry.get().append(file, config, asList(head, tail));
+                }
+                return last;
+            }));
+        }
+        for (Future<CompletableFuture<Path>> result : results) {
+            result.get().join();
+        }
+        executor.shutdown();
+
+        // Then
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        assertThat(lines).hasSize(8 * 500);
+        assertThat(new HashSet<>(lines)).hasSize(8 * 500);
+        for (String line : lines) {
+            assertThat(line.matches("thread-\\d-line-\\d+")).isTrue();
+        }
+    }
+
+    @Test
+    void shouldCompleteAppendWithPathOfFile() throws Exception {
+        // Given
+        Path file = directory.resolve("result.log");
+        WriteConfiguration config = configuration(false);
+
+        // When
+        Path target = AppenderRegistry.get().append(file, config, chunks("first\n")).join();
+
+        // Then
+        assertThat(target).isEqualTo(file.toAbsolutePath().normalize());
+        assertThat(new String(Files.readAllBytes(file), StandardCharsets.UTF_8)).isEqualTo("first\n");
+    }
+
+    @Test
+    void shouldReleaseLockOnceDrained() throws Exception {
+        // Given
+        Path file = directory.resolve("locked.log");
+        WriteConfiguration config = configuration(true);
+
+        // When
+        AppenderRegistry.get().append(file, config, chunks("first\n")).join();
+
+        // Then: the lock is released once the drain loop is done, although the appender is still open.
+        assertThat(awaitLockReleased(file)).isTrue();
+
+        // When
+        AppenderRegistry.get().append(file, config, chunks("second\n")).join();
+
+        // Then
+        assertThat(Files.readAllLines(file, StandardCharsets.UTF_8)).containsExactly("first", "second");
+    }
+
+    @Test
+    void shouldRejectAppendWithConflictingConfiguration() {
+        // Given
+        Path file = directory.resolve("conflict.log");
+        AppenderRegistry.get().append(file, configuration(false), chunks("first\n")).join();
+
+        // When
+        CompletableFuture<Path> result = AppenderRegistry.get().append(file, configuration(true), chunks("second\n"));
+
+        // Then
+        CompletionException exception = assertThrows(CompletionException.class, result::join);
+        assertThat(exception.getCause()).isInstanceOf(FileWriteException.class);
+    }
+
+    private WriteConfiguration configuration(boolean lockFile) {
+        FileWriteConfiguration configuration = new FileWriteConfiguration();
+        configuration.setSharedAppender(true);
+        // The appenders of the test files are closed shortly after each test.
+        configuration.setSharedAppenderIdleTimeout(100L);
+        configuration.setLockFile(lockFile);
+        return new WriteConfiguration(configuration, WriteMode.APPEND);
+    }
+
+    private static boolean awaitLockReleased(Path file) throws IOException, InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            while (System.currentTimeMillis() < deadline) {
+                try (FileLock lock = channel.tryLock()) {
+                    if (lock != null) return true;
+                } catch (OverlappingFileLockException exception) {
+                    // Still held by the appender channel of this JVM.
+                }
+                Thread.sleep(10);
+            }
+        }
+        return false;
+    }
+
+    private static List<byte[]> chunks(String content) {
+        return Collections.singletonList(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
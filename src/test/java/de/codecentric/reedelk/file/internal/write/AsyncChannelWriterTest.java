@@ -0,0 +1,188 @@
+package de.codecentric.reedelk.file.internal.write;
+
+import de.codecentric.reedelk.file.internal.write.AsyncChannelWriter.Coalescer;
+import de.codecentric.reedelk.file.internal.write.AsyncChannelWriter.Region;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AsyncChannelWriterTest {
+
+    @Test
+    void shouldCoalesceSmallChunksIntoOneBuffer() {
+        // Given
+        Coalescer coalescer = new Coalescer(8);
+
+        // When
+        List<Region> regions = new ArrayList<>();
+        regions.addAll(toList(coalescer.add(bytes("abc"))));
+        regions.addAll(toList(coalescer.add(bytes("de"))));
+        Region last = coalescer.last();
+
+        // Then
+        assertThat(regions).isEmpty();
+        assertThat(last.position).isEqualTo(0);
+        assertThat(contentOf(last)).isEqualTo("abcde");
+        assertThat(last.buffer.isDirect()).isTrue();
+        last.release();
+    }
+
+    @Test
+    void shouldEmitBufferOnceFull() {
+        // Given
+        Coalescer coalescer = new Coalescer(4);
+
+        // When
+        List<Region> first = toList(coalescer.add(bytes("abc")));
+        List<Region> second = toList(coalescer.add(bytes("def")));
+        Region last = coalescer.last();
+
+        // Then
+        assertThat(first).isEmpty();
+        assertThat(second).hasSize(1);
+        assertThat(contentOf(second.get(0))).isEqualTo("abcd");
+        assertThat(second.get(0).position).isEqualTo(0);
+        assertThat(contentOf(last)).isEqualTo("ef");
+        assertThat(last.position).isEqualTo(4);
+        release(second);
+        last.release();
+    }
+
+    @Test
+    void shouldWriteWholeBuffersStraightFromLargeChunk() {
+        // Given
+        Coalescer coalescer = new Coalescer(4);
+        byte[] chunk = bytes("0123456789");
+
+        // When
+        List<Region> regions = toList(coalescer.add(chunk));
+        Region last = coalescer.last();
+
+        // Then
+        assertThat(regions).hasSize(2);
+        assertThat(contentOf(regions.get(0))).isEqualTo("0123");
+        assertThat(regions.get(0).buffer.isDirect()).isFalse();
+        assertThat(regions.get(0).position).isEqualTo(0);
+        assertThat(contentOf(regions.get(1))).isEqualTo("4567");
+        assertThat(regions.get(1).position).isEqualTo(4);
+        assertThat(contentOf(last)).isEqualTo("89");
+        assertThat(last.position).isEqualTo(8);
+        last.release();
+    }
+
+    @Test
+    void shouldFillPendingBufferBeforeWritingStraightFromChunk() {
+        // Given
+        Coalescer coalescer = new Coalescer(4);
+        toList(coalescer.add(bytes("ab")));
+
+        // When
+        List<Region> regions = toList(coalescer.add(bytes("cdefghij")));
+        Region last = coalescer.last();
+
+        // Then
+        assertThat(regions).hasSize(2);
+        assertThat(contentOf(regions.get(0))).isEqualTo("abcd");
+        assertThat(regions.get(0).buffer.isDirect()).isTrue();
+        assertThat(contentOf(regions.get(1))).isEqualTo("efgh");
+        assertThat(regions.get(1).buffer.isDirect()).isFalse();
+        assertThat(contentOf(last)).isEqualTo("ij");
+        assertThat(last.position).isEqualTo(8);
+        release(regions);
+        last.release();
+    }
+
+    @Test
+    void shouldSplitChunkLazily() {
+        // Given
+        Coalescer coalescer = new Coalescer(4);
+        Iterator<Region> regions = coalescer.add(bytes("0123456789")).iterator();
+
+        // When
+        Region first = regions.next();
+
+        // Then: the rest of the chunk is not split (nor buffered) until requested.
+        assertThat(first.position).isEqualTo(0);
+        assertThat(coalescer.last()).isNull();
+
+        Region second = regions.next();
+        assertThat(second.position).isEqualTo(4);
+        assertThat(regions.hasNext()).isFalse();
+
+        Region last = coalescer.last();
+        assertThat(contentOf(last)).isEqualTo("89");
+        assertThat(last.position).isEqualTo(8);
+        last.release();
+    }
+
+    @Test
+    void shouldReturnNoLastRegionWhenContentIsEmpty() {
+        // Given
+        Coalescer coalescer = new Coalescer(4);
+
+        // When
+        List<Region> regions = toList(coalescer.add(new byte[0]));
+
+        // Then
+        assertThat(regions).isEmpty();
+        assertThat(coalescer.last()).isNull();
+    }
+
+    @Test
+    void shouldKeepContentAndPositionsContiguous() {
+        // Given
+        Coalescer coalescer = new Coalescer(7);
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        List<Region> regions = new ArrayList<>();
+
+        // When
+        for (int size = 1; size <= 20; size++) {
+            byte[] chunk = new byte[size];
+            for (int i = 0; i < size; i++) chunk[i] = (byte) (size + i);
+            expected.write(chunk, 0, chunk.length);
+            regions.addAll(toList(coalescer.add(chunk)));
+        }
+        Region last = coalescer.last();
+        if (last != null) regions.add(last);
+
+        // Then
+        ByteArrayOutputStream actual = new ByteArrayOutputStream();
+        long position = 0;
+        for (Region region : regions) {
+            assertThat(region.position).isEqualTo(position);
+            byte[] content = new byte[region.buffer.remaining()];
+            region.buffer.duplicate().get(content);
+            actual.write(content, 0, content.length);
+            position += content.length;
+            region.release();
+        }
+        assertThat(actual.toByteArray()).isEqualTo(expected.toByteArray());
+    }
+
+    private static List<Region> toList(Iterable<Region> regions) {
+        List<Region> list = new ArrayList<>();
+        regions.forEach(list::add);
+        return list;
+    }
+
+    private static void release(List<Region> regions) {
+        regions.forEach(Region::release);
+    }
+
+    private static String contentOf(Region region) {
+        ByteBuffer buffer = region.buffer.duplicate();
+        byte[] content = new byte[buffer.remaining()];
+        buffer.get(content);
+        return new String(content);
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes();
+    }
+}
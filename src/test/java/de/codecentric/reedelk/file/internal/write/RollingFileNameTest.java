@@ -0,0 +1,87 @@
+package de.codecentric.reedelk.file.internal.write;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RollingFileNameTest {
+
+    private final LocalDateTime time = LocalDateTime.of(2020, 3, 7, 14, 5, 9);
+
+    @Test
+    void shouldResolveDateAndIndex() {
+        // Given
+        RollingFileName fileName = new RollingFileName("orders-%d{yyyyMMdd-HHmmss}-%i.log");
+
+        // Expect
+        assertThat(fileName.resolve(time, 3)).isEqualTo(Paths.get("orders-20200307-140509-3.log"));
+    }
+
+    @Test
+    void shouldUseDefaultDateFormat() {
+        // Given
+        RollingFileName fileName = new RollingFileName("orders-%d.log");
+
+        // Expect
+        assertThat(fileName.resolve(time, 0)).isEqualTo(Paths.get("orders-2020-03-07.log"));
+        assertThat(fileName.hasIndex()).isFalse();
+    }
+
+    @Test
+    void shouldHaveIndex() {
+        // Given
+        RollingFileName fileName = new RollingFileName("orders-%i.log");
+
+        // Expect
+        assertThat(fileName.hasIndex()).isTrue();
+        assertThat(fileName.resolve(time, 12)).isEqualTo(Paths.get("orders-12.log"));
+    }
+
+    @Test
+    void shouldKeepLiteralsAndDirectories() {
+        // Given
+        RollingFileName fileName = new RollingFileName("/var/log/%d{yyyy}/100%-%i");
+
+        // Expect
+        assertThat(fileName.resolve(time, 1)).isEqualTo(Paths.get("/var/log/2020/100%-1"));
+    }
+
+    @Test
+    void shouldHaveSameTimeKeyWithinTimeWindow() {
+        // Given
+        RollingFileName fileName = new RollingFileName("orders-%d{yyyyMMdd-HH}.log");
+
+        // When
+        String key = fileName.timeKey(time);
+
+        // Then
+        assertThat(fileName.timeKey(time.withMinute(59).withSecond(59))).isEqualTo(key);
+        assertThat(fileName.timeKey(time.plusHours(1))).isNotEqualTo(key);
+        assertThat(fileName.timeKey(time.plusDays(1))).isNotEqualTo(key);
+    }
+
+    @Test
+    void shouldHaveSameTimeKeyWithoutDate() {
+        // Given
+        RollingFileName fileName = new RollingFileName("orders-%i.log");
+
+        // Expect
+        assertThat(fileName.timeKey(time)).isEqualTo(fileName.timeKey(time.plusYears(1)));
+    }
+
+    @Test
+    void shouldThrowExceptionWhenDateFormatIsNotClosed() {
+        // Expect
+        assertThrows(IllegalArgumentException.class, () -> new RollingFileName("orders-%d{yyyyMMdd.log"));
+    }
+
+    @Test
+    void shouldThrowExceptionWhenDateFormatIsNotValid() {
+        // Expect
+        assertThrows(IllegalArgumentException.class, () -> new RollingFileName("orders-%d{bbb}.log"));
+    }
+}